@@ -0,0 +1,58 @@
+package com.media.sslmonitor.benchmark;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.util.DomainNameUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-domain CPU work outside the handshake: cleaning the requested name and
+ * mapping a result to the API response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    @Param({"example.com", "https://www.example.co.uk:8443/login?next=/"})
+    public String domain;
+
+    private final SslCheckProperties.Thresholds thresholds = new SslCheckProperties.Thresholds();
+    private CertificateInfo info;
+
+    @Setup
+    public void setUp() {
+        info = CertificateInfo.builder()
+                .domain("example.com")
+                .isValid(true)
+                .expiryDate(LocalDateTime.now().plusDays(42))
+                .issuer("CN=Test CA, O=Example, C=US")
+                .subject("CN=example.com")
+                .daysUntilExpiry(42)
+                .checkTime(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public String normalize() {
+        return DomainNameUtils.normalize(domain);
+    }
+
+    @Benchmark
+    public int hostAndPort() {
+        final String clean = DomainNameUtils.normalize(domain);
+        return DomainNameUtils.host(clean).length() + DomainNameUtils.port(clean);
+    }
+
+    @Benchmark
+    public DomainCheckResponse fromCertificateInfo() {
+        return DomainCheckResponse.fromCertificateInfo(info, thresholds);
+    }
+}
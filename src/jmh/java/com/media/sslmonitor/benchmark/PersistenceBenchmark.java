@@ -0,0 +1,71 @@
+package com.media.sslmonitor.benchmark;
+
+import com.media.sslmonitor.DomainSslMonitorApplication;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.service.CertificateCheckWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Saving one batch of check results through {@link CertificateCheckWriter} into
+ * an embedded H2 database in PostgreSQL mode. Every batch uses new domain names,
+ * so each operation also registers its domains.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private CertificateCheckWriter writer;
+    private long batch;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DomainSslMonitorApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--logging.level.com.media.sslmonitor=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN");
+        writer = context.getBean(CertificateCheckWriter.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CertificateInfo> saveAll() {
+        final long current = batch++;
+        final LocalDateTime now = LocalDateTime.now();
+        final List<CertificateInfo> results = IntStream.range(0, batchSize)
+                .mapToObj(i -> CertificateInfo.builder()
+                        .domain("domain-" + current + "-" + i + ".com")
+                        .isValid(true)
+                        .expiryDate(now.plusDays(90))
+                        .issuer("CN=Test CA")
+                        .subject("CN=domain-" + current + "-" + i + ".com")
+                        .daysUntilExpiry(90)
+                        .checkTime(now)
+                        .build())
+                .toList();
+        writer.saveAll(results);
+        return results;
+    }
+}
@@ -0,0 +1,88 @@
+package com.media.sslmonitor.benchmark;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.impl.HostResolverImpl;
+import com.media.sslmonitor.service.impl.NioSSLCertificateServiceImpl;
+import com.media.sslmonitor.service.impl.SSLCertificateServiceImpl;
+import com.media.sslmonitor.support.TestTlsServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full certificate check against an in-process TLS server on loopback, so
+ * the numbers cover handshake and certificate processing without network noise.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ProbeBenchmark {
+
+    private TestTlsServer server;
+    private SSLSocketFactory defaultSocketFactory;
+    private HostResolverImpl hostResolver;
+    private SSLCertificateServiceImpl jdkProber;
+    private NioSSLCertificateServiceImpl nioProber;
+    private NioSSLCertificateServiceImpl resumingProber;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = TestTlsServer.start();
+
+        // The JDK prober validates against the default trust store, so trust the test certificate there
+        final SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[]{server.trustManager()}, null);
+        defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
+
+        final SslCheckProperties properties = new SslCheckProperties();
+        final CheckMetrics metrics = new CheckMetrics(new SimpleMeterRegistry());
+        hostResolver = new HostResolverImpl(properties);
+        jdkProber = new SSLCertificateServiceImpl(properties, hostResolver, metrics);
+        nioProber = new NioSSLCertificateServiceImpl(properties, server.trustManager(), hostResolver, metrics);
+        final SslCheckProperties resumption = new SslCheckProperties();
+        resumption.getNio().setSessionResumption(true);
+        resumption.getNio().setFullHandshakeWithin(Duration.ZERO);
+        resumingProber = new NioSSLCertificateServiceImpl(resumption, server.trustManager(), hostResolver, metrics);
+        if (!jdkProber.checkCertificate(server.getDomain()).isValid()
+                || !nioProber.checkCertificate(server.getDomain()).isValid()
+                || !resumingProber.checkCertificate(server.getDomain()).isValid()) {
+            throw new IllegalStateException("Probers do not trust the test server");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        nioProber.destroy();
+        resumingProber.destroy();
+        hostResolver.destroy();
+        HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        server.close();
+    }
+
+    @Benchmark
+    public CertificateInfo jdkCheckCertificate() {
+        return jdkProber.checkCertificate(server.getDomain());
+    }
+
+    @Benchmark
+    public CertificateInfo nioCheckCertificate() {
+        return nioProber.checkCertificate(server.getDomain());
+    }
+
+    @Benchmark
+    public CertificateInfo nioResumedCheckCertificate() {
+        return resumingProber.checkCertificate(server.getDomain());
+    }
+}
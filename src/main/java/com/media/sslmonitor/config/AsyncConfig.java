@@ -1,38 +1,100 @@
 package com.media.sslmonitor.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.ToDoubleFunction;
 
 @Configuration
 @Slf4j
 public class AsyncConfig implements AsyncConfigurer {
 
+    private static final String EXECUTOR_METRIC_PREFIX = "ssl.check.executor.";
+
     @Bean(name = "sslCheckExecutor")
-    public Executor sslCheckExecutor() {
-        log.info("Creating SSL Check Executor");
+    public Executor sslCheckExecutor(SslCheckProperties properties, MeterRegistry registry) {
+        final SslCheckProperties.Executor config = properties.getExecutor();
+        log.info("Creating SSL Check Executor in {} mode", config.getMode());
+        return switch (config.getMode()) {
+            case PLATFORM -> platformThreadExecutor(config, registry);
+            case VIRTUAL -> virtualThreadExecutor(config, registry);
+        };
+    }
+
+    /**
+     * A full pool rejects the task rather than running it on the submitting
+     * thread, which may be a request, DNS or limiter thread. Callers handle the
+     * rejection; DomainServiceImpl resubmits the probe after a short pause.
+     */
+    static ThreadPoolTaskExecutor platformThreadExecutor(SslCheckProperties.Executor config, MeterRegistry registry) {
+        final Counter rejected = rejectedCounter(registry);
+        final RejectedExecutionHandler abortPolicy = new ThreadPoolExecutor.AbortPolicy();
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(10);
-        executor.setMaxPoolSize(25);
-        executor.setQueueCapacity(100);
+        executor.setCorePoolSize(config.getCorePoolSize());
+        executor.setMaxPoolSize(config.getMaxPoolSize());
+        executor.setQueueCapacity(config.getQueueCapacity());
         executor.setThreadNamePrefix("SSLCheck-");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            abortPolicy.rejectedExecution(task, pool);
+        });
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
         executor.initialize();
+
+        gauge(registry, "active", "Tasks currently running on the executor",
+                executor, ThreadPoolTaskExecutor::getActiveCount);
+        gauge(registry, "queued", "Tasks waiting in the executor queue",
+                executor, e -> e.getThreadPoolExecutor().getQueue().size());
         return executor;
     }
 
+    static SimpleAsyncTaskExecutor virtualThreadExecutor(SslCheckProperties.Executor config, MeterRegistry registry) {
+        final ConcurrencyLimitingTaskDecorator limiter = new ConcurrencyLimitingTaskDecorator(config.getMaxConcurrency());
+
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("SSLCheck-vt-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(limiter);
+        executor.setTaskTerminationTimeout(60_000);
+
+        // Virtual threads are never rejected; waiting for a permit is their queue
+        rejectedCounter(registry);
+        gauge(registry, "active", "Tasks currently running on the executor",
+                limiter, ConcurrencyLimitingTaskDecorator::getActiveCount);
+        gauge(registry, "queued", "Tasks waiting for a concurrency permit",
+                limiter, ConcurrencyLimitingTaskDecorator::getWaitingCount);
+        return executor;
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry) {
+        return Counter.builder(EXECUTOR_METRIC_PREFIX + "rejected")
+                .description("Tasks rejected by the full executor")
+                .register(registry);
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, String description,
+                                  T target, ToDoubleFunction<T> value) {
+        Gauge.builder(EXECUTOR_METRIC_PREFIX + name, target, value)
+                .description(description)
+                .register(registry);
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return (throwable, method, params) -> {
             log.error("Async method {} threw exception", method.getName(), throwable);
         };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.media.sslmonitor.config;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the number of decorated tasks running at the same time. The permit is
+ * acquired on the worker thread, so submitters are never blocked - with virtual
+ * threads the excess tasks simply park until a permit is released.
+ */
+public class ConcurrencyLimitingTaskDecorator implements TaskDecorator {
+
+    private final int maxConcurrency;
+    private final Semaphore permits;
+
+    public ConcurrencyLimitingTaskDecorator(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return () -> {
+            permits.acquireUninterruptibly();
+            try {
+                runnable.run();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+}
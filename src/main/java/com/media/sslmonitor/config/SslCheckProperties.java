@@ -0,0 +1,226 @@
+package com.media.sslmonitor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ssl.check")
+public class SslCheckProperties {
+
+    private Thresholds thresholds = new Thresholds();
+    private Executor executor = new Executor();
+    private ProberType prober = ProberType.JDK;
+    private Nio nio = new Nio();
+    private Timeouts timeouts = new Timeouts();
+    private Dns dns = new Dns();
+    private Cache cache = new Cache();
+    private Scheduler scheduler = new Scheduler();
+    private Limits limits = new Limits();
+    private BulkImport bulkImport = new BulkImport();
+    private Storage storage = new Storage();
+    private ExpiryIndex expiryIndex = new ExpiryIndex();
+    private WriteBehind writeBehind = new WriteBehind();
+    private Jobs jobs = new Jobs();
+    private TaskQueue taskQueue = new TaskQueue();
+    private ProbeSharing probeSharing = new ProbeSharing();
+
+    @Data
+    public static class Thresholds {
+        private int critical = 7;
+        private int warning = 30;
+        private int info = 90;
+    }
+
+    @Data
+    public static class Executor {
+        private ExecutorMode mode = ExecutorMode.PLATFORM;
+
+        // PLATFORM mode pool sizing
+        private int corePoolSize = 10;
+        private int maxPoolSize = 25;
+        private int queueCapacity = 100;
+
+        // VIRTUAL mode: max number of probes in flight at the same time
+        private int maxConcurrency = 1000;
+    }
+
+    @Data
+    public static class Nio {
+        private int selectorThreads = 1;
+
+        // Complete handshakes and resume cached sessions (IDs or TLS 1.3 tickets) on rechecks
+        private boolean sessionResumption = false;
+        private int sessionCacheSize = 10_000;
+        // Upper bound for how long a resumed probe can report a certificate without seeing it again
+        private Duration sessionTimeout = Duration.ofHours(1);
+        // Resumed certificates expiring within this window are fetched again with a full handshake
+        private Duration fullHandshakeWithin = Duration.ofDays(30);
+    }
+
+    @Data
+    public static class Timeouts {
+        private Duration dns = Duration.ofSeconds(5);
+        private Duration connect = Duration.ofSeconds(10);
+        // The JDK prober applies this to every read during the handshake
+        private Duration handshake = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Dns {
+        // Blocking lookups running at the same time; further lookups queue, and their DNS timeout starts once they run
+        private int resolverThreads = 8;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+
+        // Upper bound for a valid certificate, shortened so the entry expires before the critical threshold
+        private Duration ttl = Duration.ofHours(1);
+        // Valid certificates already inside the critical threshold
+        private Duration criticalTtl = Duration.ofMinutes(5);
+        // Failed or untrusted checks
+        private Duration errorTtl = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Scheduler {
+        private boolean enabled = false;
+
+        // Steady probe rate, and a cap on scheduled probes still running
+        private int probesPerSecond = 10;
+        private int maxInFlight = 500;
+
+        // Rescan interval by days until expiry, using the thresholds above
+        private Duration okInterval = Duration.ofHours(24);
+        private Duration infoInterval = Duration.ofHours(12);
+        private Duration warningInterval = Duration.ofHours(4);
+        private Duration criticalInterval = Duration.ofHours(1);
+
+        // Failing domains: errorBackoff, doubled after each consecutive failure up to maxErrorBackoff
+        private Duration errorBackoff = Duration.ofMinutes(15);
+        private Duration maxErrorBackoff = Duration.ofHours(24);
+
+        // Random +/- fraction applied to every interval so checks do not bunch up
+        private double jitter = 0.1;
+
+        // How often the domains table is re-read for newly added domains
+        private Duration reloadInterval = Duration.ofMinutes(5);
+
+        // Split domains into partitions (domain id modulo partitions) that instances lease, so each
+        // instance rescans only the domains of the partitions it holds
+        private boolean partitioned = false;
+        private int partitions = 64;
+        // Leases are renewed every third of this; a stopped instance's partitions move on after it
+        private Duration leaseDuration = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Limits {
+        private boolean enabled = true;
+
+        // Concurrent probes per resolved IP address and per registrable domain (example.co.uk)
+        private int maxPerIp = 8;
+        private int maxPerDomain = 16;
+    }
+
+    @Data
+    public static class BulkImport {
+        // Domains registered and queued for probing together
+        private int batchSize = 500;
+        // Batches still being probed before feeding imports pauses
+        private int maxBatchesInFlight = 4;
+        // How long a batch refused by job admission keeps being resubmitted before it is reported as rejected
+        private Duration maxAdmissionWait = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Storage {
+        private HistoryMode historyMode = HistoryMode.EVERY_CHECK;
+        // Fingerprint to certificates id entries kept so saves of known certificates need no lookup
+        private int certificateCacheSize = 100_000;
+    }
+
+    @Data
+    public static class ExpiryIndex {
+        // Answer /expiring from memory instead of querying domain_status
+        private boolean enabled = true;
+        // Re-read domain_status to pick up checks saved by other instances; 0 disables
+        private Duration refreshInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class WriteBehind {
+        // Save probe results from a background writer instead of on the thread that finished the probe
+        private boolean enabled = true;
+        // Results waiting to be saved; callers handing off results block while it is full
+        private int queueCapacity = 10_000;
+        // A group commit is written once it holds batch-size results or its oldest result waited flush-interval
+        private int batchSize = 500;
+        private Duration flushInterval = Duration.ofMillis(200);
+        // Retries of a batch after an error that may pass, such as a lost connection; the wait doubles each time
+        private int maxRetries = 3;
+        private Duration retryBackoff = Duration.ofSeconds(1);
+        // How long shutdown waits for the queue to be saved
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Jobs {
+        // Domains of submitted jobs not checked yet; further jobs get 429 until it drops
+        private int maxBacklog = 10_000;
+        // Sent as Retry-After with a 429
+        private Duration retryAfter = Duration.ofSeconds(10);
+        // How long a finished job's results can still be fetched
+        private Duration retention = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class TaskQueue {
+        // Claims and probes tasks from the shared check_tasks table on this instance
+        private boolean enabled = false;
+        // Tasks claimed per batch; each worker probes one batch at a time
+        private int batchSize = 100;
+        private int workers = 2;
+        // Wait before polling again when no task was due
+        private Duration pollInterval = Duration.ofSeconds(1);
+        // A claimed task becomes claimable again if it is not finished within this time
+        private Duration visibilityTimeout = Duration.ofMinutes(5);
+        // Claims of a task before it is given up
+        private int maxAttempts = 5;
+        private Duration retryBackoff = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class ProbeSharing {
+        // Handshake once for names of a batch served from the same address with the same certificate
+        private boolean enabled = true;
+        // A name shares another name's handshake only this long after its own handshake returned that certificate
+        private Duration verifyInterval = Duration.ofDays(7);
+        // Names whose own handshake is remembered for sharing
+        private int maxVerifiedDomains = 200_000;
+    }
+
+    public enum ExecutorMode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    public enum HistoryMode {
+        // One certificate_checks row per probe
+        EVERY_CHECK,
+        // A new row only when the certificate, validity or error changes; otherwise the latest row's
+        // last_seen_at and observation_count are updated
+        CHANGES_ONLY
+    }
+
+    public enum ProberType {
+        // HttpsURLConnection on the sslCheckExecutor
+        JDK,
+        // SSLEngine over non-blocking SocketChannels, stops once the certificate arrives
+        NIO
+    }
+}
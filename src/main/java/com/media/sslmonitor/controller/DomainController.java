@@ -1,8 +1,16 @@
 package com.media.sslmonitor.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.media.sslmonitor.dto.CheckSummary;
 import com.media.sslmonitor.dto.DomainCheckRequest;
 import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.ExpirySummary;
+import com.media.sslmonitor.dto.HistoryPage;
+import com.media.sslmonitor.dto.ImportSummary;
+import com.media.sslmonitor.dto.IssuerCount;
 import com.media.sslmonitor.entity.CertificateCheck;
+import com.media.sslmonitor.service.CheckJobService;
+import com.media.sslmonitor.service.DomainImportService;
 import com.media.sslmonitor.service.DomainService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,9 +21,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -27,7 +45,12 @@ import java.util.concurrent.CompletableFuture;
 @Tag(name = "Domain SSL Monitor", description = "Endpoints for SSL certificate monitoring")
 public class DomainController {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
+
     private final DomainService domainService;
+    private final DomainImportService domainImportService;
+    private final CheckJobService checkJobService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/check")
     @Operation(summary = "Check SSL certificates for multiple domains")
@@ -39,12 +62,13 @@ public class DomainController {
     }
 
     @PostMapping("/check-async")
-    @Operation(summary = "Check SSL certificates for multiple domains async")
+    @Operation(summary = "Check SSL certificates for multiple domains async",
+            description = "Runs as a check job; returns 429 with Retry-After while too many domains are waiting")
     public CompletableFuture<ResponseEntity<List<DomainCheckResponse>>> checkDomainsAsync(
             @Valid @RequestBody DomainCheckRequest request) {
         log.info("Received async request to check {} domains", request.getDomains().size());
 
-        return domainService.checkDomainsAsync(request)
+        return checkJobService.checkAsync(request)
                 .thenApply(ResponseEntity::ok)
                 .exceptionally(ex -> {
                     log.error("Error in async domain check", ex);
@@ -52,6 +76,63 @@ public class DomainController {
                 });
     }
 
+    @PostMapping(value = "/check-stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Operation(summary = "Stream SSL certificate checks as they complete, followed by a summary",
+            description = "Returns NDJSON by default, or Server-Sent Events for Accept: text/event-stream")
+    public ResponseEntity<StreamingResponseBody> checkDomainsStream(
+            @Valid @RequestBody DomainCheckRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.APPLICATION_NDJSON_VALUE) String accept) {
+        log.info("Received streaming request to check {} domains", request.getDomains().size());
+        final boolean sse = accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+
+        final StreamingResponseBody body = out -> {
+            final CheckSummary summary = domainService.checkDomainsStreaming(request,
+                    response -> writeRecord(out, sse, "result", response));
+            writeRecord(out, sse, "summary", sse ? summary : Map.of("summary", summary));
+        };
+        return ResponseEntity.ok()
+                .contentType(sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void writeRecord(OutputStream out, boolean sse, String event, Object record) {
+        try {
+            final byte[] json = objectMapper.writeValueAsBytes(record);
+            if (sse) {
+                out.write(("event: " + event + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+                out.write(json);
+                out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+            } else {
+                out.write(json);
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PostMapping(value = "/import",
+            consumes = {MediaType.TEXT_PLAIN_VALUE, "text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(summary = "Import domains from a newline-delimited or CSV upload and queue them for probing",
+            description = "The body is read incrementally; returns 202 with the import id once it is read, "
+                    + "while its batches are still being queued for probing")
+    public ResponseEntity<ImportSummary> importDomains(InputStream body) throws IOException {
+        log.info("Received bulk domain import");
+        final ImportSummary summary = domainImportService.importDomains(
+                new InputStreamReader(body, StandardCharsets.UTF_8));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/domains/import/" + summary.getId()))
+                .body(summary);
+    }
+
+    @GetMapping("/import/{importId}")
+    @Operation(summary = "Get the progress of a bulk domain import")
+    public ResponseEntity<ImportSummary> getImport(@PathVariable String importId) {
+        return ResponseEntity.ok(domainImportService.getImport(importId));
+    }
+
     @GetMapping("/expiring")
     @Operation(summary = "Get domains with certificates expiring soon")
     public ResponseEntity<List<DomainCheckResponse>> getExpiringDomains(
@@ -61,6 +142,22 @@ public class DomainController {
         return ResponseEntity.ok(domainService.getDomainsExpiringSoon(days));
     }
 
+    @GetMapping("/summary")
+    @Operation(summary = "Count domains by alert level and by days until certificate expiry")
+    public ResponseEntity<ExpirySummary> getSummary(
+            @Parameter(description = "Include expiry-day counts up to this many days ahead")
+            @RequestParam(defaultValue = "90") int days) {
+        log.info("Getting expiry summary for the next {} days", days);
+        return ResponseEntity.ok(domainService.getExpirySummary(days));
+    }
+
+    @GetMapping("/issuers")
+    @Operation(summary = "Count domains with a valid certificate by issuer")
+    public ResponseEntity<List<IssuerCount>> getIssuers() {
+        log.info("Getting domain counts by issuer");
+        return ResponseEntity.ok(domainService.getIssuerCounts());
+    }
+
     @GetMapping("/{domainName}/history")
     @Operation(summary = "Get certificate check history for a domain")
     public ResponseEntity<Page<CertificateCheck>> getDomainHistory(
@@ -70,6 +167,20 @@ public class DomainController {
         return ResponseEntity.ok(domainService.getDomainHistory(domainName, pageable));
     }
 
+    @GetMapping("/{domainName}/history/cursor")
+    @Operation(summary = "Get certificate check history for a domain, newest first, by continuation cursor",
+            description = "Pass nextCursor from the previous response to get the following page; it is null on the last page")
+    public ResponseEntity<HistoryPage> getDomainHistoryByCursor(
+            @PathVariable String domainName,
+            @Parameter(description = "nextCursor of the previous page; omit for the newest checks")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, 1 to " + MAX_HISTORY_PAGE_SIZE)
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Getting history for domain: {} after cursor {}", domainName, cursor);
+        final int pageSize = Math.clamp(size, 1, MAX_HISTORY_PAGE_SIZE);
+        return ResponseEntity.ok(domainService.getDomainHistory(domainName, cursor, pageSize));
+    }
+
     @GetMapping("/health")
     @Operation(summary = "Health check endpoint")
     public ResponseEntity<Map<String, String>> health() {
@@ -0,0 +1,56 @@
+package com.media.sslmonitor.controller;
+
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.dto.JobResultsPage;
+import com.media.sslmonitor.dto.JobStatus;
+import com.media.sslmonitor.service.CheckJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/v1/jobs")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Check Jobs", description = "Background SSL certificate checks with progress and paged results")
+public class JobController {
+
+    private static final int MAX_RESULTS_PAGE_SIZE = 1000;
+
+    private final CheckJobService checkJobService;
+
+    @PostMapping
+    @Operation(summary = "Start checking SSL certificates in the background",
+            description = "Returns 202 with the job id, or 429 with Retry-After while too many domains are waiting")
+    public ResponseEntity<JobStatus> submit(@Valid @RequestBody DomainCheckRequest request) {
+        log.info("Received job to check {} domains", request.getDomains().size());
+        final JobStatus job = checkJobService.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get the progress of a check job")
+    public ResponseEntity<JobStatus> getStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(checkJobService.getStatus(jobId));
+    }
+
+    @GetMapping("/{jobId}/results")
+    @Operation(summary = "Get the finished results of a check job, in the order they finished")
+    public ResponseEntity<JobResultsPage> getResults(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size, 1 to " + MAX_RESULTS_PAGE_SIZE)
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(checkJobService.getResults(jobId, Math.max(page, 0),
+                Math.clamp(size, 1, MAX_RESULTS_PAGE_SIZE)));
+    }
+}
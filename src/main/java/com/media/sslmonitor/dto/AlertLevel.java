@@ -0,0 +1,24 @@
+package com.media.sslmonitor.dto;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+
+/**
+ * Urgency of a certificate by days until expiry, using the configured
+ * ssl.check.thresholds. Expired certificates are CRITICAL; failed checks have
+ * no expiry and are ERROR.
+ */
+public enum AlertLevel {
+    OK,
+    INFO,
+    WARNING,
+    CRITICAL,
+    ERROR;
+
+    public static AlertLevel of(Integer daysUntilExpiry, SslCheckProperties.Thresholds thresholds) {
+        if (daysUntilExpiry == null) return ERROR;
+        if (daysUntilExpiry <= thresholds.getCritical()) return CRITICAL;
+        if (daysUntilExpiry <= thresholds.getWarning()) return WARNING;
+        if (daysUntilExpiry <= thresholds.getInfo()) return INFO;
+        return OK;
+    }
+}
@@ -1,18 +1,35 @@
 package com.media.sslmonitor.dto;
 
+import com.github.benmanes.caffeine.cache.Interner;
+import com.media.sslmonitor.util.ExpiryUtils;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class CertificateInfo {
 
+    // A few CAs issue almost every certificate; results held in caches and queues share one issuer string each
+    private static final Interner<String> ISSUERS = Interner.newWeakInterner();
+    private static final int DNS_NAME = 2;
+
     private String domain;
     private boolean isValid;
     private LocalDateTime expiryDate;
@@ -21,4 +38,79 @@ public class CertificateInfo {
     private Integer daysUntilExpiry;
     private String errorMessage;
     private LocalDateTime checkTime;
-}
\ No newline at end of file
+    // SHA-256 of the DER-encoded certificate, null when none was received
+    private String fingerprint;
+    private LocalDateTime notBefore;
+    // DNS names from the subjectAltName extension
+    private List<String> subjectAltNames;
+    @ToString.Exclude
+    private byte[] encoded;
+
+    public static CertificateInfo fromCertificate(String domain, X509Certificate cert) {
+        final LocalDateTime now = LocalDateTime.now();
+        final LocalDateTime expiryDate = LocalDateTime.ofInstant(
+                cert.getNotAfter().toInstant(),
+                ZoneId.systemDefault()
+        );
+        final byte[] encoded = encoded(cert);
+
+        return CertificateInfo.builder()
+                .domain(domain)
+                .isValid(true)
+                .expiryDate(expiryDate)
+                .issuer(ISSUERS.intern(cert.getIssuerX500Principal().getName()))
+                .subject(cert.getSubjectX500Principal().getName())
+                .daysUntilExpiry(ExpiryUtils.daysUntilExpiry(now, expiryDate))
+                .checkTime(now)
+                .fingerprint(fingerprint(encoded))
+                .notBefore(LocalDateTime.ofInstant(cert.getNotBefore().toInstant(), ZoneId.systemDefault()))
+                .subjectAltNames(dnsNames(cert))
+                .encoded(encoded)
+                .build();
+    }
+
+    private static byte[] encoded(X509Certificate cert) {
+        try {
+            return cert.getEncoded();
+        } catch (CertificateEncodingException e) {
+            return null;
+        }
+    }
+
+    private static String fingerprint(byte[] encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(encoded));
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private static List<String> dnsNames(X509Certificate cert) {
+        final List<String> names = new ArrayList<>();
+        try {
+            final Collection<List<?>> alternativeNames = cert.getSubjectAlternativeNames();
+            if (alternativeNames != null) {
+                for (List<?> name : alternativeNames) {
+                    if (name.size() > 1 && name.get(0) instanceof Integer type && type == DNS_NAME) {
+                        names.add(String.valueOf(name.get(1)));
+                    }
+                }
+            }
+        } catch (CertificateParsingException e) {
+            // Keep the names parsed so far
+        }
+        return List.copyOf(names);
+    }
+
+    public static CertificateInfo failed(String domain, String errorMessage) {
+        return CertificateInfo.builder()
+                .domain(domain)
+                .isValid(false)
+                .errorMessage(errorMessage)
+                .checkTime(LocalDateTime.now())
+                .build();
+    }
+}
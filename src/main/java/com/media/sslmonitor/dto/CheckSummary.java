@@ -0,0 +1,20 @@
+package com.media.sslmonitor.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CheckSummary {
+
+    private int total;
+    private int valid;
+    private int failed;
+    // Domains still being checked when the request deadline passed; included in failed
+    private int timedOut;
+    // Results that needed a handshake; the rest came from the cache or a probe already in flight
+    private int probed;
+    // Probed results taken from the handshake of another name on the same address with the same certificate
+    private int handshakesSaved;
+    private long durationMs;
+}
@@ -1,6 +1,7 @@
 package com.media.sslmonitor.dto;
 
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,4 +15,11 @@ public class DomainCheckRequest {
 
     @NotEmpty(message = "Domains list cannot be empty")
     private List<String> domains;
+
+    // Skip the result cache and probe every domain again
+    private boolean forceRefresh;
+
+    // Optional time budget for the whole batch; domains still running after it are reported as TIMEOUT
+    @Positive(message = "deadlineMs must be positive")
+    private Long deadlineMs;
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.media.sslmonitor.dto;
 
+import com.media.sslmonitor.config.SslCheckProperties;
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,6 +10,8 @@ import java.time.LocalDateTime;
 @Builder
 public class DomainCheckResponse {
 
+    public static final String TIMEOUT = "TIMEOUT";
+
     private String domain;
     private boolean isValid;
     private LocalDateTime expiryDate;
@@ -17,23 +20,24 @@ public class DomainCheckResponse {
     private LocalDateTime lastChecked;
     private String error;
 
-    public static DomainCheckResponse fromCertificateInfo(CertificateInfo info) {
+    public static DomainCheckResponse fromCertificateInfo(CertificateInfo info, SslCheckProperties.Thresholds thresholds) {
         return DomainCheckResponse.builder()
                 .domain(info.getDomain())
                 .isValid(info.isValid())
                 .expiryDate(info.getExpiryDate())
                 .daysUntilExpiry(info.getDaysUntilExpiry())
-                .alertLevel(getAlertLevel(info.getDaysUntilExpiry()))
+                .alertLevel(AlertLevel.of(info.getDaysUntilExpiry(), thresholds).name())
                 .lastChecked(info.getCheckTime())
                 .error(info.getErrorMessage())
                 .build();
     }
 
-    private static String getAlertLevel(Integer daysUntilExpiry) {
-        if (daysUntilExpiry == null) return "ERROR";
-        if (daysUntilExpiry <= 7) return "CRITICAL";
-        if (daysUntilExpiry <= 30) return "WARNING";
-        if (daysUntilExpiry <= 90) return "INFO";
-        return "OK";
+    public static DomainCheckResponse timedOut(String domain, long deadlineMs) {
+        return DomainCheckResponse.builder()
+                .domain(domain)
+                .isValid(false)
+                .alertLevel(TIMEOUT)
+                .error("Check did not finish within the " + deadlineMs + " ms deadline")
+                .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.media.sslmonitor.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A domain whose latest check found a valid certificate, with only the columns
+ * /expiring returns.
+ */
+public record ExpiringDomain(String domainName, LocalDateTime expiryDate, LocalDateTime checkTime) {
+}
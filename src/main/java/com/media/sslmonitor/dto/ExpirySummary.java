@@ -0,0 +1,30 @@
+package com.media.sslmonitor.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+
+@Data
+@Builder
+public class ExpirySummary {
+
+    // Day the counts refer to; days until expiry are counted in calendar days from it
+    private LocalDate date;
+    private long total;
+    private Map<AlertLevel, Long> byAlertLevel;
+    // Valid certificates by days until expiry, negative once expired
+    private SortedMap<Integer, Long> byDaysUntilExpiry;
+
+    public static ExpirySummary of(LocalDate date, Map<AlertLevel, Long> byAlertLevel,
+                                   SortedMap<Integer, Long> byDaysUntilExpiry) {
+        return ExpirySummary.builder()
+                .date(date)
+                .total(byAlertLevel.values().stream().mapToLong(Long::longValue).sum())
+                .byAlertLevel(byAlertLevel)
+                .byDaysUntilExpiry(byDaysUntilExpiry)
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.media.sslmonitor.dto;
+
+import com.media.sslmonitor.entity.CertificateCheck;
+import com.media.sslmonitor.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a domain's history: the check time and id of the last check on the
+ * previous page. Clients only see it as an opaque URL-safe token.
+ */
+public record HistoryCursor(LocalDateTime checkTime, long id) {
+
+    public static HistoryCursor after(CertificateCheck check) {
+        return new HistoryCursor(check.getCheckTime(), check.getId());
+    }
+
+    public String encode() {
+        final String raw = checkTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static HistoryCursor decode(String token) {
+        try {
+            final String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            final int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + token);
+            }
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token);
+        }
+    }
+}
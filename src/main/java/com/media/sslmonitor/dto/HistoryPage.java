@@ -0,0 +1,18 @@
+package com.media.sslmonitor.dto;
+
+import com.media.sslmonitor.entity.CertificateCheck;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPage {
+
+    private List<CertificateCheck> content;
+    // Pass as cursor to get the next, older page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,25 @@
+package com.media.sslmonitor.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ImportSummary {
+
+    private String id;
+    // DONE once every batch is queued for probing or rejected
+    private JobStatus.State state;
+    // Non-empty lines read, excluding comments and a header line
+    private int read;
+    // Distinct valid domains queued for probing
+    private int imported;
+    // Distinct valid domains registered but not queued, because job admission kept refusing them
+    private int rejected;
+    // Domains that were not in the domains table yet
+    private int registered;
+    private int duplicates;
+    private int invalid;
+    // Until the last batch was queued, or so far while RUNNING
+    private long durationMs;
+}
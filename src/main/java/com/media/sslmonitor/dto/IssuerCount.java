@@ -0,0 +1,15 @@
+package com.media.sslmonitor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IssuerCount {
+
+    private String issuer;
+    // Domains whose latest valid check received a certificate from this issuer
+    private long domains;
+}
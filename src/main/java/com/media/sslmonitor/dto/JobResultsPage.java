@@ -0,0 +1,21 @@
+package com.media.sslmonitor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobResultsPage {
+
+    // Results in the order they finished, so earlier pages do not change while the job runs
+    private List<DomainCheckResponse> content;
+    private int page;
+    private int size;
+    // Results finished so far
+    private int available;
+    private boolean complete;
+}
@@ -0,0 +1,26 @@
+package com.media.sslmonitor.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class JobStatus {
+
+    public enum State {
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private String id;
+    private State state;
+    private int total;
+    private int done;
+    // Included in done; timed-out domains count as failed
+    private int failed;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
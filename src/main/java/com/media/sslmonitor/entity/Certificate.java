@@ -0,0 +1,50 @@
+package com.media.sslmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+
+import java.time.LocalDateTime;
+
+/**
+ * A certificate seen by any check, stored once and referenced by every check
+ * that received it. The DER encoding lives in certificate_encodings so loading
+ * a certificate for a history page stays small.
+ */
+@Entity
+@Table(name = "certificates", indexes = {
+        @Index(name = "idx_certificates_issuer", columnList = "issuer")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@BatchSize(size = 100)
+public class Certificate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificates_seq")
+    @SequenceGenerator(name = "certificates_seq", sequenceName = "certificates_seq", allocationSize = 1)
+    private Long id;
+
+    // SHA-256 of the DER encoding, hex
+    @Column(length = 64, unique = true, nullable = false)
+    private String fingerprint;
+
+    @Column(length = 500)
+    private String issuer;
+
+    @Column(length = 500)
+    private String subject;
+
+    @Column(name = "not_before")
+    private LocalDateTime notBefore;
+
+    @Column(name = "not_after")
+    private LocalDateTime notAfter;
+
+    // DNS names, comma-separated
+    @Column(name = "subject_alt_names", length = 8000)
+    private String subjectAltNames;
+}
@@ -1,6 +1,7 @@
 package com.media.sslmonitor.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.media.sslmonitor.util.ExpiryUtils;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,17 +9,19 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "certificate_checks")
+@Table(name = "certificate_checks", indexes = {
+        @Index(name = "idx_certificate_checks_domain_time", columnList = "domain_id, check_time DESC, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class CertificateCheck {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificate_checks_seq")
+    @SequenceGenerator(name = "certificate_checks_seq", sequenceName = "certificate_checks_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,18 +39,56 @@ public class CertificateCheck {
     @Column(name = "expiry_date")
     private LocalDateTime expiryDate;
 
+    // Only set on rows saved before the certificates table; newer rows read them from certificate
     @Column(length = 500)
     private String issuer;
 
     @Column(length = 500)
     private String subject;
 
+    // History reads initialize it in batches of @BatchSize; saves only set a reference
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "certificate_id")
+    @ToString.Exclude
+    @JsonIgnore
+    private Certificate certificate;
+
     @Column(name = "error_message", length = 1000)
     private String errorMessage;
 
+    @Column(length = 64)
+    private String fingerprint;
+
+    // The row covers every identical check from checkTime to lastSeenAt (history mode CHANGES_ONLY)
+    @Column(name = "last_seen_at")
+    private LocalDateTime lastSeenAt;
+
+    @Column(name = "observation_count")
+    private Integer observationCount;
+
+    // Set from the configured thresholds when the check is returned by the API
+    @Transient
+    private String alertLevel;
+
     @PrePersist
     protected void onCreate() {
         checkTime = LocalDateTime.now();
+        if (lastSeenAt == null || lastSeenAt.isBefore(checkTime)) {
+            lastSeenAt = checkTime;
+        }
+        if (observationCount == null) {
+            observationCount = 1;
+        }
+    }
+
+    @Transient
+    public String getIssuer() {
+        return issuer != null || certificate == null ? issuer : certificate.getIssuer();
+    }
+
+    @Transient
+    public String getSubject() {
+        return subject != null || certificate == null ? subject : certificate.getSubject();
     }
 
     @Transient
@@ -55,17 +96,6 @@ public class CertificateCheck {
         if (expiryDate == null) {
             return null;
         }
-        long days = ChronoUnit.DAYS.between(LocalDateTime.now(), expiryDate);
-        return (int) days;
-    }
-
-    @Transient
-    public String getAlertLevel() {
-        final Integer days = getDaysUntilExpiry();
-        if (days == null) return "ERROR";
-        if (days <= 7) return "CRITICAL";
-        if (days <= 30) return "WARNING";
-        if (days <= 90) return "INFO";
-        return "OK";
+        return ExpiryUtils.daysUntilExpiry(LocalDateTime.now(), expiryDate);
     }
 }
\ No newline at end of file
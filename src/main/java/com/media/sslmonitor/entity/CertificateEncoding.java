@@ -0,0 +1,27 @@
+package com.media.sslmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * DER encoding of a stored certificate, kept apart from {@link Certificate}
+ * because it is only read when the certificate itself is needed.
+ */
+@Entity
+@Table(name = "certificate_encodings")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CertificateEncoding {
+
+    @Id
+    @Column(name = "certificate_id")
+    private Long certificateId;
+
+    @Column(name = "der", length = 32768, nullable = false)
+    @ToString.Exclude
+    private byte[] der;
+}
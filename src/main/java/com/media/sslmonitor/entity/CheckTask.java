@@ -0,0 +1,46 @@
+package com.media.sslmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A domain waiting to be checked by whichever instance claims it first. A
+ * claimed task is hidden until visible_at, so it is claimed again if its
+ * worker does not finish it in time; each claim increments attempts.
+ */
+@Entity
+@Table(name = "check_tasks", indexes = {
+        @Index(name = "idx_check_tasks_visible_at", columnList = "visible_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "check_tasks_seq")
+    @SequenceGenerator(name = "check_tasks_seq", sequenceName = "check_tasks_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "domain_name", unique = true, nullable = false)
+    private String domainName;
+
+    @Column(name = "visible_at", nullable = false)
+    private LocalDateTime visibleAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "locked_by")
+    private String lockedBy;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
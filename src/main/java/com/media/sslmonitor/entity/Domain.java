@@ -17,7 +17,8 @@ import java.util.List;
 public class Domain {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "domains_seq")
+    @SequenceGenerator(name = "domains_seq", sequenceName = "domains_seq", allocationSize = 1)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -0,0 +1,44 @@
+package com.media.sslmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest check result per domain, maintained by the check writer so reads
+ * such as /expiring do not have to find the newest row in certificate_checks.
+ */
+@Entity
+@Table(name = "domain_status", indexes = {
+        @Index(name = "idx_domain_status_valid_expiry", columnList = "is_valid, expiry_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DomainStatus {
+
+    @Id
+    @Column(name = "domain_id")
+    private Long domainId;
+
+    @Column(name = "domain_name", nullable = false)
+    private String domainName;
+
+    @Column(name = "last_check_id", nullable = false)
+    private Long lastCheckId;
+
+    @Column(name = "check_time", nullable = false)
+    private LocalDateTime checkTime;
+
+    @Column(name = "is_valid")
+    private boolean isValid;
+
+    @Column(name = "expiry_date")
+    private LocalDateTime expiryDate;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+}
@@ -0,0 +1,30 @@
+package com.media.sslmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which instance rescans a partition of the domains table, and until when.
+ * A lease that is not renewed before expires_at can be taken by any instance.
+ */
+@Entity
+@Table(name = "scan_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanLease {
+
+    @Id
+    @Column(name = "partition_id")
+    private Integer partitionId;
+
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,27 @@
+package com.media.sslmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Heartbeat of an instance taking part in partitioned rescans, used to work
+ * out each instance's fair share of partitions.
+ */
+@Entity
+@Table(name = "scan_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanNode {
+
+    @Id
+    @Column(name = "node_id")
+    private String nodeId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,16 @@
+package com.media.sslmonitor.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class JobRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public JobRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
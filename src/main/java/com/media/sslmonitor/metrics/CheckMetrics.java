@@ -0,0 +1,140 @@
+package com.media.sslmonitor.metrics;
+
+import com.media.sslmonitor.dto.AlertLevel;
+import com.media.sslmonitor.dto.CertificateInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the stages of a domain check. Stage timers publish percentile
+ * histograms so latency quantiles can be aggregated across instances.
+ */
+@Component
+public class CheckMetrics {
+
+    public static final String STAGE_TIMER = "ssl.check.stage";
+    public static final String RESULT_COUNTER = "ssl.check.results";
+    public static final String HANDSHAKE_COUNTER = "ssl.check.handshakes";
+    public static final String WRITE_QUEUE_SIZE = "ssl.check.write.queue.size";
+    public static final String WRITE_QUEUE_LAG = "ssl.check.write.queue.lag";
+    public static final String WRITE_FAILURE_COUNTER = "ssl.check.write.failures";
+    public static final String JOB_BACKLOG = "ssl.check.jobs.backlog";
+    public static final String JOB_REJECTED_COUNTER = "ssl.check.jobs.rejected";
+    public static final String TASK_COUNTER = "ssl.check.tasks";
+    public static final String SHARED_PROBE_COUNTER = "ssl.check.probes.shared";
+
+    public enum Stage {
+        DNS, CONNECT, HANDSHAKE, PARSE, SAVE
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Counter fullHandshakes;
+    private final Counter resumedHandshakes;
+
+    public CheckMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder(STAGE_TIMER)
+                    .description("Time spent in one stage of a domain check")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.fullHandshakes = handshakeCounter("full");
+        this.resumedHandshakes = handshakeCounter("resumed");
+    }
+
+    private Counter handshakeCounter(String type) {
+        return Counter.builder(HANDSHAKE_COUNTER)
+                .description("TLS handshakes of the NIO prober by type")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    public void record(Stage stage, long nanos) {
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publishes the write-behind queue's length and the age in seconds of its
+     * oldest result.
+     */
+    public void monitorWriteQueue(Supplier<Number> size, Supplier<Number> lagSeconds) {
+        Gauge.builder(WRITE_QUEUE_SIZE, size)
+                .description("Probe results waiting to be saved")
+                .register(registry);
+        Gauge.builder(WRITE_QUEUE_LAG, lagSeconds)
+                .description("Seconds the oldest unsaved probe result has been waiting")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    public void recordWriteFailure(int results) {
+        Counter.builder(WRITE_FAILURE_COUNTER)
+                .description("Probe results the write-behind writer failed to save")
+                .register(registry)
+                .increment(results);
+    }
+
+    public void monitorJobBacklog(Supplier<Number> backlog) {
+        Gauge.builder(JOB_BACKLOG, backlog)
+                .description("Domains of admitted check jobs not checked yet")
+                .register(registry);
+    }
+
+    public void recordJobRejected() {
+        Counter.builder(JOB_REJECTED_COUNTER)
+                .description("Check jobs turned away because the backlog was full")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts claimed check_tasks rows by outcome: completed, retried or abandoned.
+     */
+    public void recordTasks(String outcome, int tasks) {
+        Counter.builder(TASK_COUNTER)
+                .description("Claimed check tasks by outcome")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment(tasks);
+    }
+
+    /**
+     * Counts a domain answered from the handshake of another name on the same
+     * address with the same certificate.
+     */
+    public void recordSharedProbe() {
+        Counter.builder(SHARED_PROBE_COUNTER)
+                .description("Domains answered from another name's handshake")
+                .register(registry)
+                .increment();
+    }
+
+    public void recordHandshake(boolean resumed) {
+        (resumed ? resumedHandshakes : fullHandshakes).increment();
+    }
+
+    /**
+     * Counts a probed result by outcome and alert level. Cached results are not
+     * counted again.
+     */
+    public void recordResult(CertificateInfo info, AlertLevel alertLevel) {
+        Counter.builder(RESULT_COUNTER)
+                .description("Probed domains by outcome and alert level")
+                .tag("outcome", info.isValid() ? "valid" : "failed")
+                .tag("alert_level", alertLevel.name())
+                .register(registry)
+                .increment();
+    }
+}
@@ -13,19 +13,28 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface CertificateCheckRepository extends JpaRepository<CertificateCheck, Long> {
+public interface CertificateCheckRepository extends JpaRepository<CertificateCheck, Long>,
+        CertificateCheckRepositoryCustom {
 
     Page<CertificateCheck> findByDomainOrderByCheckTimeDesc(Domain domain, Pageable pageable);
 
-    @Query("""
-        SELECT c FROM CertificateCheck c
-        WHERE c.id IN (
-            SELECT MAX(cc.id) FROM CertificateCheck cc
-            GROUP BY cc.domain.id
-        )
-        AND c.isValid = true
-        AND c.expiryDate <= :expiryDate
-        ORDER BY c.expiryDate ASC
-    """)
-    List<CertificateCheck> findLatestChecksExpiringBefore(@Param("expiryDate") LocalDateTime expiryDate);
-}
\ No newline at end of file
+    // Newest checks first; together with findHistoryBefore a seek over idx_certificate_checks_domain_time
+    @Query(value = """
+            SELECT * FROM certificate_checks
+            WHERE domain_id = :domainId
+            ORDER BY check_time DESC, id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<CertificateCheck> findHistory(@Param("domainId") Long domainId, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM certificate_checks
+            WHERE domain_id = :domainId AND (check_time, id) < (:checkTime, :id)
+            ORDER BY check_time DESC, id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<CertificateCheck> findHistoryBefore(@Param("domainId") Long domainId,
+                                             @Param("checkTime") LocalDateTime checkTime,
+                                             @Param("id") Long id,
+                                             @Param("limit") int limit);
+}
@@ -0,0 +1,26 @@
+package com.media.sslmonitor.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+public interface CertificateCheckRepositoryCustom {
+
+    /**
+     * The parts of a domain's latest check that decide whether a new result differs from it.
+     */
+    record LatestCheck(long checkId, String fingerprint, boolean valid, String errorMessage) {
+    }
+
+    /**
+     * Latest check of each given domain that has one, keyed by domain id. Found
+     * through domain_status.last_check_id rather than by scanning the history.
+     */
+    Map<Long, LatestCheck> findLatestChecks(Collection<Long> domainIds);
+
+    /**
+     * Extends each check's last-seen range to seenAt and adds the given number of
+     * observations to it, keyed by check id.
+     */
+    void recordObservations(Map<Long, Integer> observationsByCheckId, LocalDateTime seenAt);
+}
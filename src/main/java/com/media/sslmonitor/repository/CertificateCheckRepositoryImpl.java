@@ -0,0 +1,64 @@
+package com.media.sslmonitor.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+class CertificateCheckRepositoryImpl implements CertificateCheckRepositoryCustom {
+
+    private static final String SELECT_LATEST = """
+            SELECT s.domain_id, c.id, c.fingerprint, c.is_valid, c.error_message
+            FROM domain_status s
+            JOIN certificate_checks c ON c.id = s.last_check_id
+            WHERE s.domain_id = ANY(?)
+            """;
+
+    private static final String OBSERVE = """
+            UPDATE certificate_checks
+            SET last_seen_at = ?, observation_count = COALESCE(observation_count, 1) + ?
+            WHERE id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<Long, LatestCheck> findLatestChecks(Collection<Long> domainIds) {
+        final Map<Long, LatestCheck> latest = new HashMap<>();
+        if (domainIds.isEmpty()) {
+            return latest;
+        }
+        jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(SELECT_LATEST);
+                    ps.setArray(1, con.createArrayOf("bigint", domainIds.toArray()));
+                    return ps;
+                },
+                rs -> {
+                    latest.put(rs.getLong("domain_id"), new LatestCheck(rs.getLong("id"), rs.getString("fingerprint"),
+                            rs.getBoolean("is_valid"), rs.getString("error_message")));
+                });
+        return latest;
+    }
+
+    @Override
+    public void recordObservations(Map<Long, Integer> observationsByCheckId, LocalDateTime seenAt) {
+        if (observationsByCheckId.isEmpty()) {
+            return;
+        }
+        final Timestamp timestamp = Timestamp.valueOf(seenAt);
+        final List<Map.Entry<Long, Integer>> observations = new ArrayList<>(observationsByCheckId.entrySet());
+        jdbcTemplate.batchUpdate(OBSERVE, observations, observations.size(), (ps, observation) -> {
+            ps.setTimestamp(1, timestamp);
+            ps.setInt(2, observation.getValue());
+            ps.setLong(3, observation.getKey());
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package com.media.sslmonitor.repository;
+
+import com.media.sslmonitor.entity.Certificate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CertificateRepository extends JpaRepository<Certificate, Long> {
+
+    Optional<Certificate> findByFingerprint(String fingerprint);
+
+    // Latest check of each domain; checks saved before the certificates table have no certificate and are not counted
+    @Query("""
+        SELECT ct.issuer AS issuer, COUNT(s) AS domains FROM DomainStatus s
+        JOIN CertificateCheck c ON c.id = s.lastCheckId
+        JOIN c.certificate ct
+        WHERE s.isValid = true
+        GROUP BY ct.issuer
+        ORDER BY COUNT(s) DESC
+    """)
+    List<IssuerCount> countValidByIssuer();
+
+    interface IssuerCount {
+        String getIssuer();
+        long getDomains();
+    }
+}
@@ -0,0 +1,9 @@
+package com.media.sslmonitor.repository;
+
+import com.media.sslmonitor.entity.CheckTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CheckTaskRepository extends JpaRepository<CheckTask, Long>, CheckTaskRepositoryCustom {
+}
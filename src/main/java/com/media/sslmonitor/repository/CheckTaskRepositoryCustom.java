@@ -0,0 +1,34 @@
+package com.media.sslmonitor.repository;
+
+import com.media.sslmonitor.entity.CheckTask;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface CheckTaskRepositoryCustom {
+
+    /**
+     * Adds a task for each domain that has none yet, visible from visibleAt.
+     * Returns the number of tasks added.
+     */
+    int enqueue(Collection<String> domainNames, LocalDateTime visibleAt);
+
+    /**
+     * Claims up to limit tasks visible at now, skipping rows other instances
+     * have locked, and hides them until invisibleUntil. The returned tasks
+     * carry their incremented attempts.
+     */
+    List<CheckTask> claim(String worker, int limit, LocalDateTime now, LocalDateTime invisibleUntil);
+
+    /**
+     * Deletes finished tasks. A task claimed again since (its attempts differ)
+     * is left alone. Returns the number deleted.
+     */
+    int complete(Collection<CheckTask> tasks);
+
+    /**
+     * Releases tasks to be claimed again from visibleAt, keeping the error.
+     */
+    void retry(Collection<CheckTask> tasks, LocalDateTime visibleAt, String error);
+}
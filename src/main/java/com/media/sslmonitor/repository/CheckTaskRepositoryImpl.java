@@ -0,0 +1,102 @@
+package com.media.sslmonitor.repository;
+
+import com.media.sslmonitor.entity.CheckTask;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+class CheckTaskRepositoryImpl implements CheckTaskRepositoryCustom {
+
+    private static final String INSERT = """
+            INSERT INTO check_tasks (id, domain_name, visible_at, attempts, created_at)
+            SELECT nextval('check_tasks_seq'), t.name, ?, 0, ? FROM unnest(?) AS t(name)
+            ON CONFLICT DO NOTHING
+            """;
+
+    // Rows locked by another claim are skipped rather than waited for
+    private static final String SELECT_VISIBLE = """
+            SELECT id, domain_name, attempts, created_at FROM check_tasks
+            WHERE visible_at <= ?
+            ORDER BY visible_at
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String HIDE = """
+            UPDATE check_tasks SET visible_at = ?, attempts = attempts + 1, locked_by = ?
+            WHERE id = ANY(?)
+            """;
+
+    private static final String DELETE = "DELETE FROM check_tasks WHERE id = ? AND attempts = ?";
+
+    private static final String RELEASE = """
+            UPDATE check_tasks SET visible_at = ?, locked_by = NULL, last_error = ?
+            WHERE id = ? AND attempts = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int enqueue(Collection<String> domainNames, LocalDateTime visibleAt) {
+        final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        final Object[] names = domainNames.stream().distinct().toArray();
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT);
+            ps.setTimestamp(1, Timestamp.valueOf(visibleAt));
+            ps.setTimestamp(2, now);
+            ps.setArray(3, con.createArrayOf("varchar", names));
+            return ps;
+        });
+    }
+
+    @Override
+    @Transactional
+    public List<CheckTask> claim(String worker, int limit, LocalDateTime now, LocalDateTime invisibleUntil) {
+        final List<CheckTask> claimed = new ArrayList<>();
+        jdbcTemplate.query(SELECT_VISIBLE, rs -> {
+            claimed.add(new CheckTask(rs.getLong("id"), rs.getString("domain_name"), invisibleUntil,
+                    rs.getInt("attempts") + 1, worker, null, rs.getTimestamp("created_at").toLocalDateTime()));
+        }, Timestamp.valueOf(now), limit);
+        if (claimed.isEmpty()) {
+            return claimed;
+        }
+
+        final Object[] ids = claimed.stream().map(CheckTask::getId).toArray();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(HIDE);
+            ps.setTimestamp(1, Timestamp.valueOf(invisibleUntil));
+            ps.setString(2, worker);
+            ps.setArray(3, con.createArrayOf("bigint", ids));
+            return ps;
+        });
+        return claimed;
+    }
+
+    @Override
+    public int complete(Collection<CheckTask> tasks) {
+        final int[][] counts = jdbcTemplate.batchUpdate(DELETE, tasks, tasks.size(), (ps, task) -> {
+            ps.setLong(1, task.getId());
+            ps.setInt(2, task.getAttempts());
+        });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).map(count -> Math.max(count, 0)).sum();
+    }
+
+    @Override
+    public void retry(Collection<CheckTask> tasks, LocalDateTime visibleAt, String error) {
+        jdbcTemplate.batchUpdate(RELEASE, tasks, tasks.size(), (ps, task) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(visibleAt));
+            ps.setString(2, error);
+            ps.setLong(3, task.getId());
+            ps.setInt(4, task.getAttempts());
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.media.sslmonitor.repository;
+
+import com.media.sslmonitor.dto.ExpiringDomain;
+import com.media.sslmonitor.entity.DomainStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DomainStatusRepository extends JpaRepository<DomainStatus, Long>, DomainStatusRepositoryCustom {
+
+    @Query("""
+        SELECT new com.media.sslmonitor.dto.ExpiringDomain(s.domainName, s.expiryDate, s.checkTime)
+        FROM DomainStatus s
+        WHERE s.isValid = true
+        AND s.expiryDate <= :expiryDate
+        ORDER BY s.expiryDate ASC
+    """)
+    List<ExpiringDomain> findValidExpiringBefore(@Param("expiryDate") LocalDateTime expiryDate);
+
+    @Query("""
+        SELECT CAST(s.expiryDate AS LocalDate) AS expiryDay, COUNT(s) AS domains FROM DomainStatus s
+        WHERE s.isValid = true
+        AND s.expiryDate IS NOT NULL
+        GROUP BY CAST(s.expiryDate AS LocalDate)
+    """)
+    List<ExpiryDayCount> countValidByExpiryDay();
+
+    @Query("SELECT COUNT(s) FROM DomainStatus s WHERE s.isValid = false OR s.expiryDate IS NULL")
+    long countFailed();
+
+    interface ExpiryDayCount {
+        LocalDate getExpiryDay();
+        long getDomains();
+    }
+}
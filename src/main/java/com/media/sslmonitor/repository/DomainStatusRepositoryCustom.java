@@ -0,0 +1,20 @@
+package com.media.sslmonitor.repository;
+
+import com.media.sslmonitor.entity.DomainStatus;
+
+import java.util.List;
+
+public interface DomainStatusRepositoryCustom {
+
+    /**
+     * Inserts or replaces the status of each domain, ignoring rows older than
+     * the stored check.
+     */
+    void upsertAll(List<DomainStatus> statuses);
+
+    /**
+     * Fills an empty domain_status table from the latest check of every domain.
+     * Returns the number of rows inserted.
+     */
+    int backfillFromLatestChecks();
+}
@@ -0,0 +1,83 @@
+package com.media.sslmonitor.repository;
+
+import com.media.sslmonitor.entity.DomainStatus;
+import com.media.sslmonitor.util.DatabaseUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+class DomainStatusRepositoryImpl implements DomainStatusRepositoryCustom {
+
+    private static final String UPSERT = """
+            INSERT INTO domain_status (domain_id, domain_name, last_check_id, check_time, is_valid, expiry_date, error_message)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (domain_id) DO UPDATE SET
+                domain_name = EXCLUDED.domain_name,
+                last_check_id = EXCLUDED.last_check_id,
+                check_time = EXCLUDED.check_time,
+                is_valid = EXCLUDED.is_valid,
+                expiry_date = EXCLUDED.expiry_date,
+                error_message = EXCLUDED.error_message
+            WHERE domain_status.check_time <= EXCLUDED.check_time
+            """;
+
+    // For databases without ON CONFLICT ... DO UPDATE (H2 in tests)
+    private static final String MERGE = """
+            MERGE INTO domain_status s
+            USING (SELECT CAST(? AS BIGINT) AS domain_id, CAST(? AS VARCHAR(255)) AS domain_name,
+                          CAST(? AS BIGINT) AS last_check_id, CAST(? AS TIMESTAMP) AS check_time,
+                          CAST(? AS BOOLEAN) AS is_valid, CAST(? AS TIMESTAMP) AS expiry_date,
+                          CAST(? AS VARCHAR(1000)) AS error_message) n
+            ON s.domain_id = n.domain_id
+            WHEN MATCHED AND s.check_time <= n.check_time THEN UPDATE SET
+                domain_name = n.domain_name,
+                last_check_id = n.last_check_id,
+                check_time = n.check_time,
+                is_valid = n.is_valid,
+                expiry_date = n.expiry_date,
+                error_message = n.error_message
+            WHEN NOT MATCHED THEN INSERT (domain_id, domain_name, last_check_id, check_time, is_valid, expiry_date, error_message)
+                VALUES (n.domain_id, n.domain_name, n.last_check_id, n.check_time, n.is_valid, n.expiry_date, n.error_message)
+            """;
+
+    private static final String BACKFILL = """
+            INSERT INTO domain_status (domain_id, domain_name, last_check_id, check_time, is_valid, expiry_date, error_message)
+            SELECT c.domain_id, d.domain_name, c.id, COALESCE(c.last_seen_at, c.check_time), c.is_valid, c.expiry_date,
+                   c.error_message
+            FROM certificate_checks c
+            JOIN domains d ON d.id = c.domain_id
+            WHERE c.id IN (SELECT MAX(cc.id) FROM certificate_checks cc GROUP BY cc.domain_id)
+            AND NOT EXISTS (SELECT 1 FROM domain_status)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    @Override
+    public void upsertAll(List<DomainStatus> statuses) {
+        jdbcTemplate.batchUpdate(isPostgres() ? UPSERT : MERGE, statuses, statuses.size(), (ps, status) -> {
+            ps.setLong(1, status.getDomainId());
+            ps.setString(2, status.getDomainName());
+            ps.setLong(3, status.getLastCheckId());
+            ps.setTimestamp(4, Timestamp.valueOf(status.getCheckTime()));
+            ps.setBoolean(5, status.isValid());
+            ps.setTimestamp(6, status.getExpiryDate() != null ? Timestamp.valueOf(status.getExpiryDate()) : null);
+            ps.setString(7, status.getErrorMessage());
+        });
+    }
+
+    @Override
+    public int backfillFromLatestChecks() {
+        return jdbcTemplate.update(BACKFILL);
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = DatabaseUtils.isPostgres(jdbcTemplate);
+        }
+        return postgres;
+    }
+}
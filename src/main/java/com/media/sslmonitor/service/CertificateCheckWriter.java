@@ -0,0 +1,10 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.dto.CertificateInfo;
+
+import java.util.List;
+
+public interface CertificateCheckWriter {
+
+    void saveAll(List<CertificateInfo> results);
+}
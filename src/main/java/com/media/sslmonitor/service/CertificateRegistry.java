@@ -0,0 +1,16 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.dto.CertificateInfo;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface CertificateRegistry {
+
+    /**
+     * Returns the certificates table id of each result's certificate, keyed by
+     * fingerprint, storing certificates not seen before. Results without a
+     * fingerprint are skipped.
+     */
+    Map<String, Long> resolveIds(Collection<CertificateInfo> results);
+}
@@ -0,0 +1,12 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.dto.CertificateInfo;
+
+import java.util.Optional;
+
+public interface CertificateResultCache {
+
+    Optional<CertificateInfo> get(String domain);
+
+    void put(String domain, CertificateInfo info);
+}
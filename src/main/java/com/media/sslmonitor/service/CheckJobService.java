@@ -0,0 +1,29 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.JobResultsPage;
+import com.media.sslmonitor.dto.JobStatus;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs domain checks as background jobs on job threads, never on the caller's
+ * thread. Jobs are admitted while the backlog of unchecked domains is under
+ * the configured limit; otherwise submitting throws
+ * {@link com.media.sslmonitor.exception.JobRejectedException}.
+ */
+public interface CheckJobService {
+
+    JobStatus submit(DomainCheckRequest request);
+
+    /**
+     * Submits a job and completes with its results in request order once it is done.
+     */
+    CompletableFuture<List<DomainCheckResponse>> checkAsync(DomainCheckRequest request);
+
+    JobStatus getStatus(String jobId);
+
+    JobResultsPage getResults(String jobId, int page, int size);
+}
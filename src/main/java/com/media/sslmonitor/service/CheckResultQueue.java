@@ -0,0 +1,32 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.dto.CertificateInfo;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hands probe results to a background writer that saves them in group commits,
+ * so probing does not wait for the database.
+ */
+public interface CheckResultQueue {
+
+    /**
+     * Queues the results to be saved. Blocks while the queue is full, which
+     * slows down whoever is producing results until the writer catches up.
+     */
+    void enqueue(List<CertificateInfo> results);
+
+    /**
+     * Number of results queued so far. Pass it to {@link #flush(long)} to ask
+     * about results queued after this point.
+     */
+    long position();
+
+    /**
+     * Waits until every result queued before the call has been written. Returns
+     * the domains of results queued after {@code since} that could not be saved,
+     * whoever queued them.
+     */
+    Set<String> flush(long since);
+}
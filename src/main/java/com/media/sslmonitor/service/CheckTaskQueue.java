@@ -0,0 +1,22 @@
+package com.media.sslmonitor.service;
+
+import java.util.Collection;
+
+/**
+ * Durable queue of domains to check, kept in the check_tasks table. Every
+ * instance with the task queue enabled claims batches from it, so queued work
+ * survives restarts and is shared by all instances.
+ */
+public interface CheckTaskQueue {
+
+    /**
+     * Queues the domains that are not queued yet. Returns the number added.
+     */
+    int enqueue(Collection<String> domainNames);
+
+    /**
+     * Claims one batch of due tasks, checks them and saves the results before
+     * the tasks are deleted. Returns the number of tasks claimed.
+     */
+    int processBatch();
+}
@@ -0,0 +1,21 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.dto.ImportSummary;
+
+import java.io.IOException;
+import java.io.Reader;
+
+public interface DomainImportService {
+
+    /**
+     * Reads one domain per line, or the first column of a CSV file, registering the
+     * domains batch by batch while the input is read. Returns once the input is read,
+     * with the import id; the batches are queued for probing in the background.
+     */
+    ImportSummary importDomains(Reader reader) throws IOException;
+
+    /**
+     * Current counts of an import, which is RUNNING until every batch is queued for probing.
+     */
+    ImportSummary getImport(String importId);
+}
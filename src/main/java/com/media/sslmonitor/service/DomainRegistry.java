@@ -0,0 +1,17 @@
+package com.media.sslmonitor.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+public interface DomainRegistry {
+
+    /**
+     * Returns the id of every given domain name, registering unknown names first.
+     */
+    Map<String, Long> resolveIds(Collection<String> domainNames);
+
+    Optional<Long> findId(String domainName);
+
+    int size();
+}
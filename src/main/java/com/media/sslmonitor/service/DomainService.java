@@ -1,18 +1,55 @@
 package com.media.sslmonitor.service;
 
+import com.media.sslmonitor.dto.CheckSummary;
 import com.media.sslmonitor.dto.DomainCheckRequest;
 import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.ExpirySummary;
+import com.media.sslmonitor.dto.HistoryPage;
+import com.media.sslmonitor.dto.IssuerCount;
 import com.media.sslmonitor.entity.CertificateCheck;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 public interface DomainService {
 
     List<DomainCheckResponse> checkDomains(DomainCheckRequest request);
     CompletableFuture<List<DomainCheckResponse>> checkDomainsAsync(DomainCheckRequest request);
+
+    /**
+     * Checks the domains asynchronously and passes each result to the listener on the
+     * calling thread as soon as it completes. Blocks until every domain is done.
+     */
+    CheckSummary checkDomainsStreaming(DomainCheckRequest request, Consumer<DomainCheckResponse> listener);
+
+    /**
+     * Like {@link #checkDomainsStreaming}, but also passes the listener the position
+     * of the result's domain in the request.
+     */
+    CheckSummary checkDomainsWithProgress(DomainCheckRequest request, ObjIntConsumer<DomainCheckResponse> listener);
+
     List<DomainCheckResponse> getDomainsExpiringSoon(int days);
+
+    /**
+     * Domains by alert level and valid certificates by days until expiry, up to
+     * the given number of days.
+     */
+    ExpirySummary getExpirySummary(int days);
+
+    /**
+     * Domains with a valid certificate by issuer, most common issuer first.
+     */
+    List<IssuerCount> getIssuerCounts();
+
     Page<CertificateCheck> getDomainHistory(String domainName, Pageable pageable);
+
+    /**
+     * Returns up to size checks, newest first, starting after the given cursor
+     * (null for the newest). Runs no count query, so deep pages cost the same as the first.
+     */
+    HistoryPage getDomainHistory(String domainName, String cursor, int size);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.dto.ExpiringDomain;
+import com.media.sslmonitor.dto.ExpirySummary;
+import com.media.sslmonitor.entity.DomainStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ExpiryIndex {
+
+    /**
+     * Whether the index has been loaded from the database and can answer queries.
+     */
+    boolean isReady();
+
+    /**
+     * Applies saved statuses, after their transaction commits when one is active.
+     * A status older than the one already indexed for its domain is ignored.
+     */
+    void update(List<DomainStatus> statuses);
+
+    /**
+     * Domains with a valid certificate expiring at or before the given time, soonest
+     * first.
+     */
+    List<ExpiringDomain> findValidExpiringBefore(LocalDateTime expiryDate);
+
+    /**
+     * Domains by alert level, and valid certificates by days until expiry up to
+     * the given number of days. The counts are kept up to date as statuses are
+     * applied and as days pass, so this does not walk the index.
+     */
+    ExpirySummary summarize(int days);
+
+    int size();
+}
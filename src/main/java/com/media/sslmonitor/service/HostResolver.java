@@ -0,0 +1,17 @@
+package com.media.sslmonitor.service;
+
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resolves host names off the calling thread, bounded by the configured DNS
+ * timeout.
+ */
+public interface HostResolver {
+
+    /**
+     * Completes with the first address of the host, or exceptionally with an
+     * {@link java.net.UnknownHostException} when it cannot be resolved in time.
+     */
+    CompletableFuture<InetAddress> resolve(String host);
+}
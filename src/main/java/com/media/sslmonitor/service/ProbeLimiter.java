@@ -0,0 +1,40 @@
+package com.media.sslmonitor.service;
+
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Limits how many probes run at the same time against one IP address or one
+ * registrable domain.
+ */
+public interface ProbeLimiter {
+
+    /**
+     * Resolves the domain's host and completes once it may be probed, or
+     * exceptionally with an {@link java.net.UnknownHostException} when it does not
+     * resolve. The caller must release the permit when the probe is done.
+     */
+    default CompletableFuture<Permit> acquire(String domain) {
+        return acquire(domain, null);
+    }
+
+    /**
+     * Like {@link #acquire(String)}, for a host that is already being resolved,
+     * such as by the {@link ProbePlanner}; that lookup is used instead of a new one.
+     * The lookup is cancelled if the caller cancels the permit.
+     */
+    CompletableFuture<Permit> acquire(String domain, CompletableFuture<InetAddress> address);
+
+    interface Permit {
+
+        void release();
+
+        /**
+         * The address the permit was granted for, which the probe connects to so the
+         * host is not resolved twice; null when limits are disabled and no lookup was given.
+         */
+        default InetAddress address() {
+            return null;
+        }
+    }
+}
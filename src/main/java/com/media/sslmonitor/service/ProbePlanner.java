@@ -0,0 +1,119 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.util.DomainNameUtils;
+
+import java.net.InetAddress;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plans the probes of a batch so that names served from the same address with
+ * the same certificate share one handshake.
+ */
+public interface ProbePlanner {
+
+    /**
+     * Groups the normalized domains of a batch, in request order, without waiting
+     * for DNS. Names that are not grouped are probed on their own.
+     */
+    Plan plan(Collection<String> domains);
+
+    /**
+     * Records the result of a handshake sent with the domain's own SNI. Until the
+     * verify interval passes, the domain may share handshakes that return the
+     * same certificate.
+     */
+    void recordHandshake(CertificateInfo result);
+
+    /**
+     * Grouping of one batch. The first name of each group is probed; every other
+     * name follows it and is answered from its result when that holds the
+     * certificate the name was last seen with and covers the name. Names that
+     * could be grouped are resolved by the planner; the groups are known once
+     * those lookups finish, and the probes reuse the addresses.
+     */
+    final class Plan {
+
+        public static final Plan NONE = new Plan(Map.of());
+
+        private final Map<String, CompletableFuture<InetAddress>> addresses;
+        private final CompletableFuture<Map<String, Group>> followers;
+        private final AtomicInteger shared = new AtomicInteger();
+
+        public Plan(Map<String, Group> followers) {
+            this(Map.of(), CompletableFuture.completedFuture(followers));
+        }
+
+        public Plan(Map<String, CompletableFuture<InetAddress>> addresses,
+                    CompletableFuture<Map<String, Group>> followers) {
+            this.addresses = addresses;
+            this.followers = followers;
+        }
+
+        /**
+         * Completes once the groups are known.
+         */
+        public CompletableFuture<Void> grouped() {
+            return followers.thenAccept(groups -> { });
+        }
+
+        /**
+         * Completes with the name whose handshake the domain waits for, or with null
+         * when it is probed on its own. Only names the planner resolves wait for the
+         * groups; every other name completes at once.
+         */
+        public CompletableFuture<String> leaderOf(String domain) {
+            if (!followers.isDone() && !addresses.containsKey(domain)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return followers.thenApply(groups -> {
+                final Group group = groups.get(domain);
+                return group != null ? group.leader() : null;
+            });
+        }
+
+        /**
+         * The planner's lookup of the domain's host, for the probe to reuse, or null
+         * when the planner did not resolve it.
+         */
+        public CompletableFuture<InetAddress> addressOf(String domain) {
+            return addresses.get(domain);
+        }
+
+        /**
+         * The leader's result restated for the domain, or empty when the domain
+         * needs its own handshake after all.
+         */
+        public Optional<CertificateInfo> share(String domain, CertificateInfo leaderResult) {
+            final Group group = followers.getNow(Map.of()).get(domain);
+            if (group == null || !leaderResult.isValid()
+                    || !group.fingerprint().equals(leaderResult.getFingerprint())
+                    || !DomainNameUtils.coveredBy(DomainNameUtils.host(domain), leaderResult.getSubjectAltNames())) {
+                return Optional.empty();
+            }
+            shared.incrementAndGet();
+            return Optional.of(leaderResult.toBuilder().domain(domain).build());
+        }
+
+        /**
+         * Names following another one; 0 until the groups are known.
+         */
+        public int followers() {
+            return followers.getNow(Map.of()).size();
+        }
+
+        /**
+         * Handshakes saved so far: followers answered from their leader's result.
+         */
+        public int shared() {
+            return shared.get();
+        }
+
+        public record Group(String leader, String fingerprint) {
+        }
+    }
+}
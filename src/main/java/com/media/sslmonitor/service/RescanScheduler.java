@@ -0,0 +1,14 @@
+package com.media.sslmonitor.service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RescanScheduler {
+
+    /**
+     * Returns when the domain is next due, or empty if it is unknown or being checked right now.
+     */
+    Optional<Instant> nextCheck(String domainName);
+
+    int size();
+}
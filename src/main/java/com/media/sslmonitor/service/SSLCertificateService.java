@@ -1,10 +1,19 @@
 package com.media.sslmonitor.service;
 
 import com.media.sslmonitor.dto.CertificateInfo;
+
+import java.net.InetAddress;
 import java.util.concurrent.CompletableFuture;
 
 public interface SSLCertificateService {
 
     CertificateInfo checkCertificate(String domain);
     CompletableFuture<CertificateInfo> checkCertificateAsync(String domain);
+
+    /**
+     * Probes a domain whose host was already resolved to the given address, or
+     * resolves it first when the address is null.
+     */
+    CertificateInfo checkCertificate(String domain, InetAddress address);
+    CompletableFuture<CertificateInfo> checkCertificateAsync(String domain, InetAddress address);
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.media.sslmonitor.service;
+
+import java.util.Set;
+
+/**
+ * Leases on partitions of the domains table, kept in the database so that each
+ * partition is rescanned by exactly one instance at a time.
+ */
+public interface ScanPartitionLeases {
+
+    int partitions();
+
+    /**
+     * Renews this instance's leases and takes or gives up partitions to move
+     * towards an even share among live instances. Returns the partitions held.
+     */
+    Set<Integer> renew();
+
+    /**
+     * Gives up every lease so other instances can take the partitions at once.
+     */
+    void release();
+}
@@ -0,0 +1,180 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.entity.CertificateCheck;
+import com.media.sslmonitor.entity.Domain;
+import com.media.sslmonitor.entity.DomainStatus;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.repository.CertificateCheckRepository;
+import com.media.sslmonitor.repository.CertificateCheckRepositoryCustom.LatestCheck;
+import com.media.sslmonitor.repository.CertificateRepository;
+import com.media.sslmonitor.repository.DomainRepository;
+import com.media.sslmonitor.repository.DomainStatusRepository;
+import com.media.sslmonitor.service.CertificateCheckWriter;
+import com.media.sslmonitor.service.CertificateRegistry;
+import com.media.sslmonitor.service.DomainRegistry;
+import com.media.sslmonitor.service.ExpiryIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists a batch of check results in one transaction. Domain ids come from
+ * the {@link DomainRegistry} and checks use a pooled sequence, so Hibernate can
+ * group the inserts into JDBC batches (hibernate.jdbc.batch_size). The
+ * domain_status read model is updated in the same transaction. Certificates
+ * are stored once through the {@link CertificateRegistry} and new rows only
+ * reference them. In history mode
+ * CHANGES_ONLY a result identical to the domain's latest row only bumps that
+ * row's last_seen_at and observation_count.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class CertificateCheckWriterImpl implements CertificateCheckWriter {
+
+    private final DomainRepository domainRepository;
+    private final DomainRegistry domainRegistry;
+    private final CertificateCheckRepository certificateCheckRepository;
+    private final DomainStatusRepository domainStatusRepository;
+    private final CheckMetrics metrics;
+    private final SslCheckProperties properties;
+    private final ExpiryIndex expiryIndex;
+    private final CertificateRegistry certificateRegistry;
+    private final CertificateRepository certificateRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfillDomainStatus() {
+        try {
+            final int inserted = domainStatusRepository.backfillFromLatestChecks();
+            if (inserted > 0) {
+                log.info("Backfilled domain status for {} domains", inserted);
+            }
+        } catch (DataAccessException e) {
+            // Another instance may be running the same backfill
+            log.warn("Domain status backfill failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void saveAll(List<CertificateInfo> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        final long startTime = System.nanoTime();
+        final Map<String, Long> domainIds = domainRegistry.resolveIds(results.stream()
+                .map(CertificateInfo::getDomain)
+                .toList());
+
+        final boolean changesOnly = properties.getStorage().getHistoryMode() == SslCheckProperties.HistoryMode.CHANGES_ONLY;
+        final Map<Long, LatestCheck> latest = changesOnly
+                ? certificateCheckRepository.findLatestChecks(Set.copyOf(domainIds.values()))
+                : Map.of();
+
+        // Each result either becomes a new row or is counted as one more observation of an identical row
+        final LocalDateTime now = LocalDateTime.now();
+        final List<CertificateCheck> inserts = new ArrayList<>();
+        final Map<Long, CertificateCheck> insertedByDomain = new HashMap<>();
+        final Map<Long, Integer> observations = new HashMap<>();
+        final List<Row> rows = new ArrayList<>(results.size());
+        for (CertificateInfo info : results) {
+            final long domainId = domainIds.get(info.getDomain());
+            if (changesOnly) {
+                final CertificateCheck inserted = insertedByDomain.get(domainId);
+                if (inserted != null && unchanged(inserted.getFingerprint(), inserted.isValid(), inserted.getErrorMessage(), info)) {
+                    inserted.setObservationCount(inserted.getObservationCount() + 1);
+                    rows.add(new Row(info, domainId, inserted, null));
+                    continue;
+                }
+                final LatestCheck last = inserted == null ? latest.get(domainId) : null;
+                if (last != null && unchanged(last.fingerprint(), last.valid(), last.errorMessage(), info)) {
+                    observations.merge(last.checkId(), 1, Integer::sum);
+                    rows.add(new Row(info, domainId, null, last.checkId()));
+                    continue;
+                }
+            }
+            final CertificateCheck check = toCertificateCheck(domainRepository.getReferenceById(domainId), info);
+            inserts.add(check);
+            insertedByDomain.put(domainId, check);
+            rows.add(new Row(info, domainId, check, null));
+        }
+
+        final Map<String, Long> certificateIds = certificateRegistry.resolveIds(rows.stream()
+                .filter(row -> row.inserted() != null)
+                .map(Row::info)
+                .toList());
+        for (CertificateCheck check : inserts) {
+            final Long certificateId = check.getFingerprint() != null ? certificateIds.get(check.getFingerprint()) : null;
+            if (certificateId != null) {
+                // Issuer and subject are read from the certificate row instead of repeated per check
+                check.setCertificate(certificateRepository.getReferenceById(certificateId));
+                check.setIssuer(null);
+                check.setSubject(null);
+            }
+        }
+        certificateCheckRepository.saveAll(inserts);
+        certificateCheckRepository.recordObservations(observations, now);
+        final List<DomainStatus> statuses = rows.stream()
+                .map(row -> row.inserted() != null
+                        ? toDomainStatus(row, row.inserted().getId(), row.inserted().getCheckTime())
+                        : toDomainStatus(row, row.observedCheckId(), now))
+                .toList();
+        domainStatusRepository.upsertAll(statuses);
+        expiryIndex.update(statuses);
+
+        final long elapsed = System.nanoTime() - startTime;
+        metrics.record(CheckMetrics.Stage.SAVE, elapsed);
+        log.debug("Saved {} certificate checks ({} unchanged) in {} ms", results.size(),
+                results.size() - inserts.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private record Row(CertificateInfo info, long domainId, CertificateCheck inserted, Long observedCheckId) {
+    }
+
+    private static boolean unchanged(String fingerprint, boolean valid, String errorMessage, CertificateInfo info) {
+        return valid == info.isValid()
+                && Objects.equals(fingerprint, info.getFingerprint())
+                && Objects.equals(errorMessage, info.getErrorMessage())
+                // A valid row without a fingerprint predates fingerprinting and cannot be compared
+                && (fingerprint != null || !valid);
+    }
+
+    private CertificateCheck toCertificateCheck(Domain domain, CertificateInfo certInfo) {
+        final CertificateCheck check = new CertificateCheck();
+        check.setDomain(domain);
+        check.setValid(certInfo.isValid());
+        check.setExpiryDate(certInfo.getExpiryDate());
+        check.setIssuer(certInfo.getIssuer());
+        check.setSubject(certInfo.getSubject());
+        check.setErrorMessage(certInfo.getErrorMessage());
+        check.setFingerprint(certInfo.getFingerprint());
+        check.setObservationCount(1);
+        return check;
+    }
+
+    private DomainStatus toDomainStatus(Row row, Long checkId, LocalDateTime checkTime) {
+        final CertificateInfo info = row.info();
+        return new DomainStatus(row.domainId(), info.getDomain(), checkId,
+                checkTime, info.isValid(), info.getExpiryDate(), info.getErrorMessage());
+    }
+}
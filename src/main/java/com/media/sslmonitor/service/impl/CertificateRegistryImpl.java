@@ -0,0 +1,132 @@
+package com.media.sslmonitor.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.service.CertificateRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores each certificate once in the certificates table, keyed by its SHA-256
+ * fingerprint. A bounded fingerprint to id cache answers the save path for
+ * certificates seen recently, which is nearly all of them since a certificate
+ * usually stays in place for months. New certificates are inserted with ON
+ * CONFLICT DO NOTHING, so instances saving the same certificate do not clash.
+ */
+@Service
+@Slf4j
+public class CertificateRegistryImpl implements CertificateRegistry {
+
+    private static final String INSERT = """
+            INSERT INTO certificates (id, fingerprint, issuer, subject, not_before, not_after, subject_alt_names)
+            VALUES (nextval('certificates_seq'), ?, ?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String INSERT_ENCODING = """
+            INSERT INTO certificate_encodings (certificate_id, der) VALUES (?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String SELECT_IDS = "SELECT id, fingerprint FROM certificates WHERE fingerprint = ANY(?)";
+
+    private static final int MAX_NAME_LENGTH = 500;
+    private static final int MAX_ALT_NAMES_LENGTH = 8000;
+    private static final int MAX_DER_LENGTH = 32768;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, Long> ids;
+    private final PendingIds pendingIds;
+
+    public CertificateRegistryImpl(SslCheckProperties properties, JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ids = Caffeine.newBuilder()
+                .maximumSize(properties.getStorage().getCertificateCacheSize())
+                .build();
+        this.pendingIds = new PendingIds(ids::putAll);
+    }
+
+    @Override
+    public Map<String, Long> resolveIds(Collection<CertificateInfo> results) {
+        final Map<String, Long> resolved = new HashMap<>();
+        final Map<String, CertificateInfo> unknown = new LinkedHashMap<>();
+        final Map<String, Long> pending = pendingIds.get();
+        for (CertificateInfo info : results) {
+            final String fingerprint = info.getFingerprint();
+            if (fingerprint == null || resolved.containsKey(fingerprint)) {
+                continue;
+            }
+            final Long id = pending.getOrDefault(fingerprint, ids.getIfPresent(fingerprint));
+            if (id != null) {
+                resolved.put(fingerprint, id);
+            } else {
+                unknown.putIfAbsent(fingerprint, info);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            resolved.putAll(register(unknown));
+        }
+        return resolved;
+    }
+
+    private Map<String, Long> register(Map<String, CertificateInfo> unknown) {
+        // After a restart most of them are stored already
+        final Map<String, Long> registered = findIds(unknown.keySet());
+        final List<CertificateInfo> inserts = unknown.entrySet().stream()
+                .filter(entry -> !registered.containsKey(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, inserts, inserts.size(), (ps, info) -> {
+                ps.setString(1, info.getFingerprint());
+                ps.setString(2, truncate(info.getIssuer(), MAX_NAME_LENGTH));
+                ps.setString(3, truncate(info.getSubject(), MAX_NAME_LENGTH));
+                ps.setTimestamp(4, info.getNotBefore() != null ? Timestamp.valueOf(info.getNotBefore()) : null);
+                ps.setTimestamp(5, info.getExpiryDate() != null ? Timestamp.valueOf(info.getExpiryDate()) : null);
+                ps.setString(6, info.getSubjectAltNames() != null
+                        ? truncate(String.join(",", info.getSubjectAltNames()), MAX_ALT_NAMES_LENGTH) : null);
+            });
+            final Map<String, Long> inserted = findIds(inserts.stream().map(CertificateInfo::getFingerprint).toList());
+            final List<CertificateInfo> encodings = inserts.stream()
+                    .filter(info -> inserted.containsKey(info.getFingerprint()) && info.getEncoded() != null
+                            && info.getEncoded().length <= MAX_DER_LENGTH)
+                    .toList();
+            jdbcTemplate.batchUpdate(INSERT_ENCODING, encodings, encodings.size(), (ps, info) -> {
+                ps.setLong(1, inserted.get(info.getFingerprint()));
+                ps.setBytes(2, info.getEncoded());
+            });
+            registered.putAll(inserted);
+            log.debug("Stored {} new certificates", inserts.size());
+        }
+        pendingIds.publishOnCommit(registered);
+        return registered;
+    }
+
+    private Map<String, Long> findIds(Collection<String> fingerprints) {
+        final Map<String, Long> found = new HashMap<>();
+        jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(SELECT_IDS);
+                    ps.setArray(1, con.createArrayOf("varchar", fingerprints.toArray()));
+                    return ps;
+                },
+                rs -> {
+                    found.put(rs.getString("fingerprint"), rs.getLong("id"));
+                });
+        return found;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,86 @@
+package com.media.sslmonitor.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.service.CertificateResultCache;
+import com.media.sslmonitor.util.DomainNameUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bounded cache of probe results keyed by the normalized domain. Entries for
+ * valid certificates live for the configured TTL but never past the point
+ * where the certificate enters the critical threshold; failed checks use a
+ * separate short TTL. Hit, miss and eviction counts are published as the
+ * {@code cache.*} meters with {@code cache=certificate-results}.
+ */
+@Service
+@Slf4j
+public class CertificateResultCacheImpl implements CertificateResultCache {
+
+    static final String CACHE_NAME = "certificate-results";
+
+    private final SslCheckProperties.Cache config;
+    private final int criticalDays;
+    private final Cache<String, CertificateInfo> cache;
+
+    @Autowired
+    public CertificateResultCacheImpl(SslCheckProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    public CertificateResultCacheImpl(SslCheckProperties properties, MeterRegistry meterRegistry,
+                                      Ticker ticker, Executor executor) {
+        this.config = properties.getCache();
+        this.criticalDays = properties.getThresholds().getCritical();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(Expiry.writing((String domain, CertificateInfo info) -> ttlFor(info)))
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        log.info("Certificate result cache {} (max {} entries, ttl {})",
+                config.isEnabled() ? "enabled" : "disabled", config.getMaximumSize(), config.getTtl());
+    }
+
+    @Override
+    public Optional<CertificateInfo> get(String domain) {
+        if (!config.isEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(DomainNameUtils.normalize(domain)));
+    }
+
+    @Override
+    public void put(String domain, CertificateInfo info) {
+        if (config.isEnabled()) {
+            cache.put(DomainNameUtils.normalize(domain), info);
+        }
+    }
+
+    private Duration ttlFor(CertificateInfo info) {
+        if (!info.isValid() || info.getExpiryDate() == null) {
+            return config.getErrorTtl();
+        }
+        final Duration untilCritical = Duration.between(LocalDateTime.now(), info.getExpiryDate().minusDays(criticalDays));
+        if (untilCritical.compareTo(config.getCriticalTtl()) <= 0) {
+            return config.getCriticalTtl();
+        }
+        return untilCritical.compareTo(config.getTtl()) < 0 ? untilCritical : config.getTtl();
+    }
+}
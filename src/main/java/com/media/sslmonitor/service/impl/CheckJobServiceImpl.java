@@ -0,0 +1,228 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.JobResultsPage;
+import com.media.sslmonitor.dto.JobStatus;
+import com.media.sslmonitor.exception.JobNotFoundException;
+import com.media.sslmonitor.exception.JobRejectedException;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.CheckJobService;
+import com.media.sslmonitor.service.DomainService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Each job runs on its own virtual thread, which starts the probes and collects
+ * their results, so no request thread waits for them. Admission is counted in
+ * domains: a job is accepted while the unchecked domains of running jobs stay
+ * within max-backlog, or when nothing else is running so a job larger than the
+ * limit can still run alone. Finished jobs are kept for the retention and
+ * purged on a schedule, whether or not new jobs arrive.
+ */
+@Service
+@Slf4j
+public class CheckJobServiceImpl implements CheckJobService, DisposableBean {
+
+    private static final Duration MAX_PURGE_INTERVAL = Duration.ofMinutes(1);
+
+    private final SslCheckProperties.Jobs config;
+    private final DomainService domainService;
+    private final CheckMetrics metrics;
+    private final ConcurrentMap<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong backlog = new AtomicLong();
+    private final ExecutorService runner =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("SSLCheck-job-", 0).factory());
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SSLCheck-job-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CheckJobServiceImpl(SslCheckProperties properties, DomainService domainService, CheckMetrics metrics) {
+        this.config = properties.getJobs();
+        this.domainService = domainService;
+        this.metrics = metrics;
+        metrics.monitorJobBacklog(backlog::get);
+        // Short retentions are purged about on time; long ones at least once a minute
+        final long purgeMs = Math.clamp(config.getRetention().toMillis(), 1, MAX_PURGE_INTERVAL.toMillis());
+        purger.scheduleWithFixedDelay(this::removeExpired, purgeMs, purgeMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public JobStatus submit(DomainCheckRequest request) {
+        return start(request).status();
+    }
+
+    @Override
+    public CompletableFuture<List<DomainCheckResponse>> checkAsync(DomainCheckRequest request) {
+        return start(request).completion;
+    }
+
+    @Override
+    public JobStatus getStatus(String jobId) {
+        return find(jobId).status();
+    }
+
+    @Override
+    public JobResultsPage getResults(String jobId, int page, int size) {
+        return find(jobId).results(page, size);
+    }
+
+    @Override
+    public void destroy() {
+        purger.shutdownNow();
+        runner.shutdownNow();
+    }
+
+    private Job find(String jobId) {
+        final Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new JobNotFoundException("Job not found: " + jobId);
+        }
+        return job;
+    }
+
+    private Job start(DomainCheckRequest request) {
+        final int total = request.getDomains().size();
+        if (!admit(total)) {
+            metrics.recordJobRejected();
+            log.warn("Rejected job of {} domains with {} domains waiting", total, backlog.get());
+            throw new JobRejectedException("Too many domains waiting to be checked (" + backlog.get()
+                    + "), retry later", config.getRetryAfter());
+        }
+
+        final Job job = new Job(UUID.randomUUID().toString(), total);
+        jobs.put(job.id, job);
+        try {
+            runner.execute(() -> run(job, request));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            backlog.addAndGet(-total);
+            throw new JobRejectedException("Shutting down", config.getRetryAfter());
+        }
+        log.info("Started job {} for {} domains", job.id, total);
+        return job;
+    }
+
+    private boolean admit(int domains) {
+        while (true) {
+            final long waiting = backlog.get();
+            if (waiting > 0 && waiting + domains > config.getMaxBacklog()) {
+                return false;
+            }
+            if (backlog.compareAndSet(waiting, waiting + domains)) {
+                return true;
+            }
+        }
+    }
+
+    private void run(Job job, DomainCheckRequest request) {
+        RuntimeException failure = null;
+        try {
+            domainService.checkDomainsWithProgress(request, (response, index) -> {
+                job.record(index, response);
+                backlog.decrementAndGet();
+            });
+        } catch (RuntimeException e) {
+            log.error("Job {} failed", job.id, e);
+            failure = e;
+        } finally {
+            // Results that never arrived no longer count against the backlog
+            backlog.addAndGet(-job.remaining());
+        }
+        job.complete(failure);
+        log.info("Job {} finished: {}", job.id, job.status());
+    }
+
+    private void removeExpired() {
+        final LocalDateTime expiredBefore = LocalDateTime.now().minus(config.getRetention());
+        jobs.values().removeIf(job -> job.completedBefore(expiredBefore));
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final CompletableFuture<List<DomainCheckResponse>> completion = new CompletableFuture<>();
+        // Guarded by this
+        private final DomainCheckResponse[] byIndex;
+        private final List<DomainCheckResponse> finished;
+        private int failed;
+        private LocalDateTime completedAt;
+        private JobStatus.State state = JobStatus.State.RUNNING;
+
+        Job(String id, int total) {
+            this.id = id;
+            this.byIndex = new DomainCheckResponse[total];
+            this.finished = new ArrayList<>(total);
+        }
+
+        synchronized void record(int index, DomainCheckResponse response) {
+            byIndex[index] = response;
+            finished.add(response);
+            if (!response.isValid()) {
+                failed++;
+            }
+        }
+
+        synchronized int remaining() {
+            return byIndex.length - finished.size();
+        }
+
+        void complete(RuntimeException failure) {
+            final List<DomainCheckResponse> results;
+            synchronized (this) {
+                completedAt = LocalDateTime.now();
+                state = failure == null ? JobStatus.State.DONE : JobStatus.State.FAILED;
+                results = Arrays.asList(byIndex.clone());
+            }
+            if (failure == null) {
+                completion.complete(results);
+            } else {
+                completion.completeExceptionally(failure);
+            }
+        }
+
+        synchronized boolean completedBefore(LocalDateTime time) {
+            return completedAt != null && completedAt.isBefore(time);
+        }
+
+        synchronized JobStatus status() {
+            return JobStatus.builder()
+                    .id(id)
+                    .state(state)
+                    .total(byIndex.length)
+                    .done(finished.size())
+                    .failed(failed)
+                    .createdAt(createdAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+
+        synchronized JobResultsPage results(int page, int size) {
+            final int from = (int) Math.min((long) page * size, finished.size());
+            final int to = Math.min(from + size, finished.size());
+            return new JobResultsPage(List.copyOf(finished.subList(from, to)), page, size, finished.size(),
+                    state != JobStatus.State.RUNNING);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.CertificateCheckWriter;
+import com.media.sslmonitor.service.CheckResultQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue in front of {@link CertificateCheckWriter}. One writer
+ * thread takes results off a bounded queue and saves them in batches of up to
+ * batch-size, or fewer once the oldest result has waited flush-interval. A full
+ * queue blocks callers, so a slow database slows probing down instead of
+ * growing the heap. On shutdown the writer saves what is queued before it stops.
+ * A batch that fails with an error that may pass is retried; one the database
+ * rejects is split until only the rejected results are left, and those are
+ * dropped and remembered for {@link #flush(long)}.
+ */
+@Service
+@Slf4j
+public class CheckResultQueueImpl implements CheckResultQueue, DisposableBean {
+
+    // Ends the writer's wait for a fuller batch; carries no result
+    private static final Queued WAKE_UP = new Queued(0, null, 0);
+    // Dropped results remembered for flush; the oldest are forgotten beyond this
+    private static final int MAX_REMEMBERED_FAILURES = 10_000;
+
+    private final SslCheckProperties.WriteBehind config;
+    private final CertificateCheckWriter certificateCheckWriter;
+    private final CheckMetrics metrics;
+    private final BlockingQueue<Queued> queue;
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+    // Sequence number to domain of each dropped result
+    private final ConcurrentNavigableMap<Long, String> failures = new ConcurrentSkipListMap<>();
+    private final Thread writer;
+    // Guarded by this
+    private long written;
+    private volatile boolean running = true;
+
+    public CheckResultQueueImpl(SslCheckProperties properties, CertificateCheckWriter certificateCheckWriter,
+                                CheckMetrics metrics) {
+        this.config = properties.getWriteBehind();
+        this.certificateCheckWriter = certificateCheckWriter;
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        if (config.isEnabled()) {
+            metrics.monitorWriteQueue(queue::size, this::lagSeconds);
+            this.writer = new Thread(this::drain, "SSLCheck-writer");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.writer = null;
+        }
+    }
+
+    @Override
+    public void enqueue(List<CertificateInfo> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        if (writer == null) {
+            certificateCheckWriter.saveAll(results);
+            return;
+        }
+        for (int i = 0; i < results.size(); i++) {
+            if (!running) {
+                // Shutting down; the writer may already be gone
+                certificateCheckWriter.saveAll(results.subList(i, results.size()));
+                return;
+            }
+            try {
+                queue.put(new Queued(sequence.incrementAndGet(), results.get(i), System.nanoTime()));
+                enqueued.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                certificateCheckWriter.saveAll(results.subList(i, results.size()));
+                return;
+            }
+        }
+    }
+
+    @Override
+    public long position() {
+        return sequence.get();
+    }
+
+    @Override
+    public Set<String> flush(long since) {
+        if (writer == null) {
+            // Saved on the calling thread, which saw any failure as an exception
+            return Set.of();
+        }
+        final long target = enqueued.get();
+        queue.offer(WAKE_UP);
+        synchronized (this) {
+            while (written < target && writer.isAlive()) {
+                try {
+                    wait(config.getFlushInterval().toMillis() + 1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for queued results to be saved", e);
+                }
+            }
+        }
+        return new HashSet<>(failures.tailMap(since, false).values());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        queue.offer(WAKE_UP);
+        writer.join(config.getShutdownTimeout().toMillis());
+        if (writer.isAlive()) {
+            log.warn("Shutting down with {} probe results not saved", queue.size());
+        }
+    }
+
+    private void drain() {
+        final long flushIntervalNanos = config.getFlushInterval().toNanos();
+        final List<Queued> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                final Queued first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null || first == WAKE_UP) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch, first.enqueuedNanos() + flushIntervalNanos);
+            } catch (InterruptedException e) {
+                // Not expected; write what was taken and keep draining until shutdown
+                log.debug("Writer interrupted while filling a batch");
+            }
+            write(batch);
+            batch.clear();
+        }
+        log.info("Write-behind writer stopped");
+    }
+
+    /**
+     * Adds queued results to the batch until it is full, the window that started
+     * with its oldest result closes, or a flush or shutdown asks for it early.
+     */
+    private void fill(List<Queued> batch, long windowEndNanos) throws InterruptedException {
+        while (batch.size() < config.getBatchSize()) {
+            Queued next = queue.poll();
+            if (next == null) {
+                final long remaining = windowEndNanos - System.nanoTime();
+                if (remaining <= 0 || !running) {
+                    return;
+                }
+                next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            }
+            if (next == null || next == WAKE_UP) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<Queued> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            save(batch);
+        } finally {
+            synchronized (this) {
+                written += batch.size();
+                notifyAll();
+            }
+        }
+    }
+
+    private void save(List<Queued> batch) {
+        RuntimeException failure = null;
+        for (int attempt = 0; attempt <= config.getMaxRetries(); attempt++) {
+            if (attempt > 0 && !backOff(attempt)) {
+                break;
+            }
+            try {
+                certificateCheckWriter.saveAll(batch.stream().map(Queued::info).toList());
+                return;
+            } catch (RuntimeException e) {
+                failure = e;
+                if (!isTransient(e)) {
+                    break;
+                }
+                log.warn("Saving {} probe results failed, attempt {}: {}", batch.size(), attempt + 1, e.getMessage());
+            }
+        }
+        // The batch was rolled back; halves without the rejected row go through
+        if (batch.size() > 1 && !isTransient(failure)) {
+            final int half = batch.size() / 2;
+            save(batch.subList(0, half));
+            save(batch.subList(half, batch.size()));
+            return;
+        }
+        drop(batch, failure);
+    }
+
+    private void drop(List<Queued> batch, RuntimeException failure) {
+        metrics.recordWriteFailure(batch.size());
+        for (Queued queued : batch) {
+            failures.put(queued.sequence(), queued.info().getDomain());
+        }
+        while (failures.size() > MAX_REMEMBERED_FAILURES) {
+            failures.pollFirstEntry();
+        }
+        if (batch.size() == 1) {
+            log.error("Failed to save probe result of {}: {}", batch.getFirst().info().getDomain(),
+                    failure.getMessage(), failure);
+        } else {
+            log.error("Failed to save {} probe results: {}", batch.size(), failure.getMessage(), failure);
+        }
+    }
+
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(config.getRetryBackoff().multipliedBy(1L << (attempt - 1)).toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            log.debug("Writer interrupted while waiting to retry");
+            return false;
+        }
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private double lagSeconds() {
+        final Queued oldest = queue.peek();
+        if (oldest == null || oldest == WAKE_UP) {
+            return 0;
+        }
+        return (System.nanoTime() - oldest.enqueuedNanos()) / 1e9;
+    }
+
+    private record Queued(long sequence, CertificateInfo info, long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.entity.CheckTask;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.repository.CheckTaskRepository;
+import com.media.sslmonitor.service.CheckResultQueue;
+import com.media.sslmonitor.service.CheckTaskQueue;
+import com.media.sslmonitor.service.DomainService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Task queue on the check_tasks table. Workers claim batches with SELECT ...
+ * FOR UPDATE SKIP LOCKED, so instances never wait for each other's rows and
+ * probing capacity grows with the number of instances. A claimed task stays
+ * hidden for the visibility timeout; if its worker dies it is claimed again
+ * afterwards. Results go through {@link DomainService} and the write-behind
+ * queue, and a task is deleted only once its result has been saved; tasks whose
+ * results the writer dropped are retried like failed checks.
+ */
+@Service
+@Slf4j
+public class CheckTaskQueueImpl implements CheckTaskQueue, DisposableBean {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final SslCheckProperties.TaskQueue config;
+    private final CheckTaskRepository checkTaskRepository;
+    private final DomainService domainService;
+    private final CheckResultQueue checkResultQueue;
+    private final CheckMetrics metrics;
+    private final Clock clock;
+    private final String workerId = ManagementFactory.getRuntimeMXBean().getName();
+    private volatile boolean running;
+    private ExecutorService workers;
+
+    @Autowired
+    public CheckTaskQueueImpl(SslCheckProperties properties, CheckTaskRepository checkTaskRepository,
+                              DomainService domainService, CheckResultQueue checkResultQueue, CheckMetrics metrics) {
+        this(properties, checkTaskRepository, domainService, checkResultQueue, metrics, Clock.systemDefaultZone());
+    }
+
+    public CheckTaskQueueImpl(SslCheckProperties properties, CheckTaskRepository checkTaskRepository,
+                              DomainService domainService, CheckResultQueue checkResultQueue, CheckMetrics metrics,
+                              Clock clock) {
+        this.config = properties.getTaskQueue();
+        this.checkTaskRepository = checkTaskRepository;
+        this.domainService = domainService;
+        this.checkResultQueue = checkResultQueue;
+        this.metrics = metrics;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        running = true;
+        final AtomicInteger workerThreads = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(config.getWorkers(), runnable -> {
+            Thread thread = new Thread(runnable, "SSLCheck-task-" + workerThreads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < config.getWorkers(); i++) {
+            workers.execute(this::work);
+        }
+        log.info("Started {} task queue workers as {}", config.getWorkers(), workerId);
+    }
+
+    @Override
+    public int enqueue(Collection<String> domainNames) {
+        if (domainNames.isEmpty()) {
+            return 0;
+        }
+        final int added = checkTaskRepository.enqueue(domainNames, LocalDateTime.now(clock));
+        log.debug("Queued {} of {} domains as check tasks", added, domainNames.size());
+        return added;
+    }
+
+    @Override
+    public int processBatch() {
+        final LocalDateTime now = LocalDateTime.now(clock);
+        final List<CheckTask> tasks = checkTaskRepository.claim(workerId, config.getBatchSize(), now,
+                now.plus(config.getVisibilityTimeout()));
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+
+        final DomainCheckRequest request = new DomainCheckRequest(
+                tasks.stream().map(CheckTask::getDomainName).toList(), true, null);
+        final long since = checkResultQueue.position();
+        try {
+            domainService.checkDomainsAsync(request)
+                    .get(config.getVisibilityTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            final Set<String> unsaved = checkResultQueue.flush(since);
+            final Map<Boolean, List<CheckTask>> saved = tasks.stream().collect(Collectors.partitioningBy(
+                    task -> !unsaved.contains(task.getDomainName())));
+            if (!saved.get(true).isEmpty()) {
+                metrics.recordTasks("completed", checkTaskRepository.complete(saved.get(true)));
+            }
+            if (!saved.get(false).isEmpty()) {
+                fail(saved.get(false), new IllegalStateException("Check result could not be saved"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Let another instance take them without waiting for the visibility timeout
+            checkTaskRepository.retry(tasks, LocalDateTime.now(clock), "Interrupted");
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            fail(tasks, e instanceof ExecutionException ? e.getCause() : e);
+        }
+        return tasks.size();
+    }
+
+    private void fail(List<CheckTask> tasks, Throwable cause) {
+        final String error = truncate(cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        final List<CheckTask> retried = new ArrayList<>();
+        final List<CheckTask> abandoned = new ArrayList<>();
+        for (CheckTask task : tasks) {
+            (task.getAttempts() < config.getMaxAttempts() ? retried : abandoned).add(task);
+        }
+        if (!retried.isEmpty()) {
+            checkTaskRepository.retry(retried, LocalDateTime.now(clock).plus(config.getRetryBackoff()), error);
+            metrics.recordTasks("retried", retried.size());
+        }
+        if (!abandoned.isEmpty()) {
+            // The domains stay registered, so the rescan scheduler still checks them
+            checkTaskRepository.complete(abandoned);
+            metrics.recordTasks("abandoned", abandoned.size());
+        }
+        log.warn("Check of {} queued domains failed ({} to retry, {} given up): {}", tasks.size(),
+                retried.size(), abandoned.size(), error);
+    }
+
+    private void work() {
+        while (running) {
+            int claimed = 0;
+            try {
+                claimed = processBatch();
+            } catch (RuntimeException e) {
+                log.error("Task queue worker failed", e);
+            }
+            if (claimed < config.getBatchSize()) {
+                try {
+                    Thread.sleep(config.getPollInterval().toMillis());
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
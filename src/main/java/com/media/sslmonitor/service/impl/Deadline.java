@@ -0,0 +1,27 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.dto.DomainCheckRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time budget of one request, measured from when it started.
+ */
+record Deadline(long startNanos, Long deadlineMs) {
+
+    static Deadline of(DomainCheckRequest request) {
+        return new Deadline(System.nanoTime(), request.getDeadlineMs());
+    }
+
+    boolean isSet() {
+        return deadlineMs != null;
+    }
+
+    long remainingNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(deadlineMs) - (System.nanoTime() - startNanos);
+    }
+
+    boolean expired() {
+        return isSet() && remainingNanos() <= 0;
+    }
+}
@@ -0,0 +1,344 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.ImportSummary;
+import com.media.sslmonitor.dto.JobStatus;
+import com.media.sslmonitor.exception.JobNotFoundException;
+import com.media.sslmonitor.exception.JobRejectedException;
+import com.media.sslmonitor.service.CheckJobService;
+import com.media.sslmonitor.service.CheckTaskQueue;
+import com.media.sslmonitor.service.DomainImportService;
+import com.media.sslmonitor.service.DomainRegistry;
+import com.media.sslmonitor.util.DomainNameUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports domains from an upload. The request thread reads the lines,
+ * deduplicates them by name and registers each full batch in the domains table;
+ * the batches are then handed to the import's own feeder thread and the upload
+ * is answered with an import id while probing is still being queued. The feeder
+ * submits each batch as a {@link CheckJobService} job. Once
+ * max-batches-in-flight batches of all imports are still probing it waits for
+ * one to finish, and a batch refused by job admission is resubmitted after its
+ * Retry-After until max-admission-wait has passed. With the task queue enabled,
+ * batches are added to {@link CheckTaskQueue} instead, where they survive
+ * restarts and are probed by every instance. Finished imports can be looked up
+ * for the job retention and are purged on a schedule after that.
+ */
+@Service
+@Slf4j
+public class DomainImportServiceImpl implements DomainImportService, DisposableBean {
+
+    // Longer lines cannot hold a valid domain and are skipped without buffering them
+    private static final int MAX_LINE_LENGTH = 1024;
+    private static final char BOM = '\uFEFF';
+    private static final Set<String> HEADERS = Set.of("domain", "domain_name", "domainname", "host", "hostname");
+    private static final Duration MAX_PURGE_INTERVAL = Duration.ofMinutes(1);
+
+    private final SslCheckProperties.BulkImport config;
+    private final Duration retention;
+    private final DomainRegistry domainRegistry;
+    private final CheckJobService checkJobService;
+    private final CheckTaskQueue checkTaskQueue;
+    private final boolean useTaskQueue;
+    private final Semaphore batchesInFlight;
+    private final ConcurrentMap<String, Import> imports = new ConcurrentHashMap<>();
+    private final ExecutorService feeders =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("SSLCheck-import-", 0).factory());
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SSLCheck-import-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DomainImportServiceImpl(SslCheckProperties properties, DomainRegistry domainRegistry,
+                                   CheckJobService checkJobService, CheckTaskQueue checkTaskQueue) {
+        this.config = properties.getBulkImport();
+        this.retention = properties.getJobs().getRetention();
+        this.domainRegistry = domainRegistry;
+        this.checkJobService = checkJobService;
+        this.checkTaskQueue = checkTaskQueue;
+        this.useTaskQueue = properties.getTaskQueue().isEnabled();
+        this.batchesInFlight = new Semaphore(config.getMaxBatchesInFlight());
+        final long purgeMs = Math.clamp(retention.toMillis(), 1, MAX_PURGE_INTERVAL.toMillis());
+        purger.scheduleWithFixedDelay(this::removeExpired, purgeMs, purgeMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ImportSummary importDomains(Reader reader) throws IOException {
+        final Import current = new Import(UUID.randomUUID().toString());
+        imports.put(current.id, current);
+        try {
+            feeders.execute(() -> feed(current));
+        } catch (RejectedExecutionException e) {
+            imports.remove(current.id);
+            throw new JobRejectedException("Shutting down", retention);
+        }
+        try {
+            read(reader, current);
+        } finally {
+            current.batches.add(List.of());
+        }
+        return current.summary();
+    }
+
+    @Override
+    public ImportSummary getImport(String importId) {
+        final Import found = imports.get(importId);
+        if (found == null) {
+            throw new JobNotFoundException("Import not found: " + importId);
+        }
+        return found.summary();
+    }
+
+    @Override
+    public void destroy() {
+        purger.shutdownNow();
+        feeders.shutdownNow();
+    }
+
+    private void read(Reader reader, Import current) throws IOException {
+        final BufferedReader in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        // Exact names, so two different domains never count as duplicates of each other
+        final Set<String> seen = new HashSet<>();
+        final List<String> batch = new ArrayList<>(config.getBatchSize());
+        final StringBuilder line = new StringBuilder();
+
+        boolean first = true;
+        while (readLine(in, line)) {
+            final String field = firstField(line);
+            if (field.isEmpty() || field.startsWith("#")) {
+                continue;
+            }
+            final String domain = DomainNameUtils.normalize(field).toLowerCase(Locale.ROOT);
+            if (first && HEADERS.contains(domain)) {
+                first = false;
+                continue;
+            }
+            first = false;
+            if (line.length() > MAX_LINE_LENGTH || !DomainNameUtils.isValid(domain)) {
+                current.count(1, 0, 0, 1);
+            } else if (!seen.add(domain)) {
+                current.count(1, 0, 1, 0);
+            } else {
+                current.count(1, 0, 0, 0);
+                batch.add(domain);
+                if (batch.size() >= config.getBatchSize()) {
+                    register(batch, current);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            register(batch, current);
+        }
+    }
+
+    private void register(List<String> batch, Import current) {
+        final List<String> domains = List.copyOf(batch);
+        final int known = (int) domains.stream().filter(domain -> domainRegistry.findId(domain).isPresent()).count();
+        domainRegistry.resolveIds(domains);
+        current.count(0, domains.size() - known, 0, 0);
+        current.batches.add(domains);
+    }
+
+    /**
+     * Runs on the import's feeder thread until the reader hands over the empty
+     * batch that marks the end of the upload.
+     */
+    private void feed(Import current) {
+        try {
+            for (List<String> domains = current.batches.take(); !domains.isEmpty();
+                 domains = current.batches.take()) {
+                submit(domains, current);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Import {} interrupted before all batches were queued for probing", current.id);
+        }
+        current.finish();
+        final ImportSummary summary = current.summary();
+        log.info("Imported {} domains ({} new, {} duplicates, {} invalid, {} rejected) in {} ms", summary.getImported(),
+                summary.getRegistered(), summary.getDuplicates(), summary.getInvalid(), summary.getRejected(),
+                summary.getDurationMs());
+    }
+
+    private void submit(List<String> domains, Import current) throws InterruptedException {
+        if (useTaskQueue) {
+            try {
+                checkTaskQueue.enqueue(domains);
+                current.fed(domains.size(), 0);
+            } catch (RuntimeException e) {
+                current.fed(0, domains.size());
+                log.warn("Could not queue {} imported domains for probing: {}", domains.size(), e.getMessage());
+            }
+            return;
+        }
+
+        batchesInFlight.acquire();
+        try {
+            admit(domains).whenComplete((responses, ex) -> {
+                batchesInFlight.release();
+                if (ex != null) {
+                    log.warn("Probing {} imported domains failed: {}", domains.size(), ex.getMessage());
+                }
+            });
+            current.fed(domains.size(), 0);
+        } catch (InterruptedException e) {
+            batchesInFlight.release();
+            throw e;
+        } catch (RuntimeException e) {
+            batchesInFlight.release();
+            current.fed(0, domains.size());
+            log.warn("Could not queue {} imported domains for probing: {}", domains.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Submits the batch as a check job, waiting out job admission's Retry-After
+     * while the backlog is full. Later batches of the import wait meanwhile.
+     */
+    private CompletableFuture<List<DomainCheckResponse>> admit(List<String> domains) throws InterruptedException {
+        final long giveUpAt = System.nanoTime() + config.getMaxAdmissionWait().toNanos();
+        while (true) {
+            try {
+                return checkJobService.checkAsync(new DomainCheckRequest(domains, false, null));
+            } catch (JobRejectedException e) {
+                final long remaining = giveUpAt - System.nanoTime();
+                if (remaining <= 0) {
+                    throw e;
+                }
+                final Duration retryAfter = e.getRetryAfter();
+                log.debug("Job backlog full, resubmitting {} imported domains in {} ms", domains.size(),
+                        retryAfter.toMillis());
+                TimeUnit.NANOSECONDS.sleep(Math.min(retryAfter.toNanos(), remaining));
+            }
+        }
+    }
+
+    private void removeExpired() {
+        final LocalDateTime expiredBefore = LocalDateTime.now().minus(retention);
+        imports.values().removeIf(found -> found.completedBefore(expiredBefore));
+    }
+
+    /**
+     * Reads the next line into the buffer, keeping at most one character past
+     * {@link #MAX_LINE_LENGTH}. Returns false at the end of the input.
+     */
+    private static boolean readLine(BufferedReader in, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c = in.read();
+        if (c < 0) {
+            return false;
+        }
+        while (c >= 0 && c != '\n') {
+            if (c != '\r' && c != BOM && line.length() <= MAX_LINE_LENGTH) {
+                line.append((char) c);
+            }
+            c = in.read();
+        }
+        return true;
+    }
+
+    /**
+     * First column of a CSV line, which may be quoted; a plain list has just one.
+     */
+    private static String firstField(CharSequence line) {
+        final String text = line.toString().strip();
+        if (text.startsWith("\"")) {
+            final int end = text.indexOf('"', 1);
+            return (end > 0 ? text.substring(1, end) : text.substring(1)).strip();
+        }
+        int end = text.length();
+        for (char separator : new char[] {',', ';', '\t'}) {
+            final int index = text.indexOf(separator);
+            if (index >= 0 && index < end) {
+                end = index;
+            }
+        }
+        return text.substring(0, end).strip();
+    }
+
+    private static final class Import {
+
+        private final String id;
+        private final long startTime = System.currentTimeMillis();
+        // Registered batches waiting for the feeder; an empty one marks the end of the upload
+        private final BlockingQueue<List<String>> batches = new LinkedBlockingQueue<>();
+        // Guarded by this
+        private int read;
+        private int imported;
+        private int rejected;
+        private int registered;
+        private int duplicates;
+        private int invalid;
+        private LocalDateTime completedAt;
+        private long durationMs;
+
+        Import(String id) {
+            this.id = id;
+        }
+
+        synchronized void count(int read, int registered, int duplicates, int invalid) {
+            this.read += read;
+            this.registered += registered;
+            this.duplicates += duplicates;
+            this.invalid += invalid;
+        }
+
+        synchronized void fed(int imported, int rejected) {
+            this.imported += imported;
+            this.rejected += rejected;
+        }
+
+        synchronized void finish() {
+            completedAt = LocalDateTime.now();
+            durationMs = System.currentTimeMillis() - startTime;
+        }
+
+        synchronized boolean completedBefore(LocalDateTime time) {
+            return completedAt != null && completedAt.isBefore(time);
+        }
+
+        synchronized ImportSummary summary() {
+            return ImportSummary.builder()
+                    .id(id)
+                    .state(completedAt == null ? JobStatus.State.RUNNING : JobStatus.State.DONE)
+                    .read(read)
+                    .imported(imported)
+                    .rejected(rejected)
+                    .registered(registered)
+                    .duplicates(duplicates)
+                    .invalid(invalid)
+                    .durationMs(completedAt == null ? System.currentTimeMillis() - startTime : durationMs)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.service.DomainRegistry;
+import com.media.sslmonitor.util.DatabaseUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a name to id map of all domains so the save path needs no per-domain
+ * lookup. Unknown names are registered with one INSERT ... ON CONFLICT DO
+ * NOTHING statement, which also resolves races between threads and nodes
+ * registering the same domain. Ids registered inside a transaction are shared
+ * only once it commits; until then other transactions could not see the rows
+ * they point to.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DomainRegistryImpl implements DomainRegistry {
+
+    private static final String INSERT_RETURNING = """
+            INSERT INTO domains (id, domain_name, created_at, updated_at)
+            SELECT nextval('domains_seq'), t.name, ?, ? FROM unnest(?) AS t(name)
+            ON CONFLICT (domain_name) DO NOTHING
+            RETURNING id, domain_name
+            """;
+
+    // For databases without RETURNING support (H2 in PostgreSQL mode in tests)
+    private static final String INSERT_IGNORE = """
+            INSERT INTO domains (id, domain_name, created_at, updated_at)
+            SELECT nextval('domains_seq'), t.name, ?, ? FROM unnest(?) AS t(name)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String SELECT_IDS = "SELECT id, domain_name FROM domains WHERE domain_name = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+    private final PendingIds pendingIds = new PendingIds(ids::putAll);
+    private volatile Boolean supportsReturning;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDomains() {
+        final long startTime = System.currentTimeMillis();
+        jdbcTemplate.query("SELECT id, domain_name FROM domains",
+                rs -> {
+                    ids.put(rs.getString("domain_name"), rs.getLong("id"));
+                });
+        log.info("Loaded {} domains into the registry in {} ms", ids.size(), System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public Map<String, Long> resolveIds(Collection<String> domainNames) {
+        final Map<String, Long> resolved = new HashMap<>();
+        final List<String> unknown = new ArrayList<>();
+        final Map<String, Long> pending = pendingIds.get();
+        for (String name : domainNames) {
+            final Long id = ids.getOrDefault(name, pending.get(name));
+            if (id != null) {
+                resolved.put(name, id);
+            } else if (!resolved.containsKey(name)) {
+                unknown.add(name);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            resolved.putAll(register(unknown.stream().distinct().toList()));
+        }
+        return resolved;
+    }
+
+    @Override
+    public Optional<Long> findId(String domainName) {
+        return Optional.ofNullable(ids.getOrDefault(domainName, pendingIds.get().get(domainName)));
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    private Map<String, Long> register(List<String> names) {
+        final Map<String, Long> registered = new HashMap<>();
+        final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        if (supportsReturning()) {
+            jdbcTemplate.query(con -> {
+                        PreparedStatement ps = con.prepareStatement(INSERT_RETURNING);
+                        ps.setTimestamp(1, now);
+                        ps.setTimestamp(2, now);
+                        ps.setArray(3, con.createArrayOf("varchar", names.toArray()));
+                        return ps;
+                    },
+                    rs -> {
+                        registered.put(rs.getString("domain_name"), rs.getLong("id"));
+                    });
+        } else {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(INSERT_IGNORE);
+                ps.setTimestamp(1, now);
+                ps.setTimestamp(2, now);
+                ps.setArray(3, con.createArrayOf("varchar", names.toArray()));
+                return ps;
+            });
+        }
+
+        // Names that lost the ON CONFLICT race were inserted by someone else
+        if (registered.size() < names.size()) {
+            final Object[] remaining = names.stream().filter(name -> !registered.containsKey(name)).toArray();
+            jdbcTemplate.query(con -> {
+                        PreparedStatement ps = con.prepareStatement(SELECT_IDS);
+                        ps.setArray(1, con.createArrayOf("varchar", remaining));
+                        return ps;
+                    },
+                    rs -> {
+                        registered.put(rs.getString("domain_name"), rs.getLong("id"));
+                    });
+        }
+
+        pendingIds.publishOnCommit(registered);
+        log.debug("Registered {} new domains", registered.size());
+        return registered;
+    }
+
+    private boolean supportsReturning() {
+        if (supportsReturning == null) {
+            supportsReturning = DatabaseUtils.isPostgres(jdbcTemplate);
+        }
+        return supportsReturning;
+    }
+}
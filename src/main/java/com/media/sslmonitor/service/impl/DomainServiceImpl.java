@@ -1,48 +1,136 @@
 package com.media.sslmonitor.service.impl;
 
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.AlertLevel;
 import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.dto.CheckSummary;
 import com.media.sslmonitor.dto.DomainCheckRequest;
 import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.ExpiringDomain;
+import com.media.sslmonitor.dto.ExpirySummary;
+import com.media.sslmonitor.dto.HistoryCursor;
+import com.media.sslmonitor.dto.HistoryPage;
+import com.media.sslmonitor.dto.IssuerCount;
 import com.media.sslmonitor.entity.CertificateCheck;
 import com.media.sslmonitor.entity.Domain;
 import com.media.sslmonitor.exception.DomainNotFoundException;
+import com.media.sslmonitor.metrics.CheckMetrics;
 import com.media.sslmonitor.repository.CertificateCheckRepository;
+import com.media.sslmonitor.repository.CertificateRepository;
 import com.media.sslmonitor.repository.DomainRepository;
+import com.media.sslmonitor.repository.DomainStatusRepository;
+import com.media.sslmonitor.service.CertificateResultCache;
+import com.media.sslmonitor.service.CheckResultQueue;
 import com.media.sslmonitor.service.DomainService;
+import com.media.sslmonitor.service.ExpiryIndex;
+import com.media.sslmonitor.service.ProbeLimiter;
+import com.media.sslmonitor.service.ProbePlanner;
 import com.media.sslmonitor.service.SSLCertificateService;
-import lombok.RequiredArgsConstructor;
+import com.media.sslmonitor.util.ExpiryUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
 
+/**
+ * Runs domain checks and answers the history and expiry queries. Which probes
+ * are needed at all is decided by {@link SharedLookups}, and streamed checks are
+ * handed out by {@link ResultStreamer}; this class runs the probes under the
+ * {@link ProbeLimiter}'s permits and saves the results.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @Transactional
-public class DomainServiceImpl implements DomainService {
+public class DomainServiceImpl implements DomainService, DisposableBean {
+
+    private static final long PROBE_RESUBMIT_DELAY_MS = 50;
 
     private final DomainRepository domainRepository;
     private final CertificateCheckRepository certificateCheckRepository;
+    private final CertificateRepository certificateRepository;
     private final SSLCertificateService sslCertificateService;
+    private final CheckResultQueue checkResultQueue;
+    private final DomainStatusRepository domainStatusRepository;
+    private final ProbeLimiter probeLimiter;
+    private final ProbePlanner probePlanner;
+    private final ExpiryIndex expiryIndex;
+    private final SslCheckProperties properties;
+    private final SharedLookups sharedLookups;
+    private final ResultStreamer resultStreamer;
+    // Async checks are saved here rather than on the thread that finished the last probe, which may be an NIO
+    // selector thread; handing results to a full write-behind queue blocks, and without write-behind it saves them
+    private final ExecutorService completions = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("SSLCheck-complete-", 0).factory());
+
+    public DomainServiceImpl(DomainRepository domainRepository,
+                             CertificateCheckRepository certificateCheckRepository,
+                             CertificateRepository certificateRepository,
+                             SSLCertificateService sslCertificateService,
+                             CheckResultQueue checkResultQueue,
+                             DomainStatusRepository domainStatusRepository,
+                             CertificateResultCache certificateResultCache,
+                             ProbeLimiter probeLimiter,
+                             ProbePlanner probePlanner,
+                             CheckMetrics metrics,
+                             ExpiryIndex expiryIndex,
+                             SslCheckProperties properties) {
+        this.domainRepository = domainRepository;
+        this.certificateCheckRepository = certificateCheckRepository;
+        this.certificateRepository = certificateRepository;
+        this.sslCertificateService = sslCertificateService;
+        this.checkResultQueue = checkResultQueue;
+        this.domainStatusRepository = domainStatusRepository;
+        this.probeLimiter = probeLimiter;
+        this.probePlanner = probePlanner;
+        this.expiryIndex = expiryIndex;
+        this.properties = properties;
+        this.sharedLookups = new SharedLookups(certificateResultCache, probePlanner, metrics, properties);
+        this.resultStreamer = new ResultStreamer(checkResultQueue, properties);
+    }
 
     @Override
     public List<DomainCheckResponse> checkDomains(DomainCheckRequest request) {
         log.info("Starting synchronous check for {} domains", request.getDomains().size());
         final long startTime = System.currentTimeMillis();
+        final Deadline deadline = Deadline.of(request);
+        final ProbePlanner.Plan plan = sharedLookups.plan(request);
+        // Probes run one after another on this thread, so they start once the groups are known
+        plan.grouped().join();
 
-        final List<DomainCheckResponse> collect = request.getDomains().stream()
-                .map(this::checkSingleDomain)
-                .collect(Collectors.toList());
+        // The deadline only stops new probes from starting
+        final List<SharedLookups.Lookup> lookups = sharedLookups.lookupAll(request, deadline, plan,
+                (domain, address) -> CompletableFuture.completedFuture(probe(domain, address)));
+        awaitAll(lookups, deadline);
+        final List<DomainCheckResponse> collect = saveCertificateChecks(lookups, deadline);
         final long duration = System.currentTimeMillis() - startTime;
-        log.info("Synchronous check completed for {} domains in {} ms",
-                request.getDomains().size(), duration);
+        log.info("Synchronous check completed for {} domains in {} ms ({} probed, {} handshakes saved)",
+                request.getDomains().size(), duration, lookups.stream().filter(SharedLookups.Lookup::owned).count(), plan.shared());
         return collect;
     }
 
@@ -50,75 +138,313 @@ public class DomainServiceImpl implements DomainService {
     public CompletableFuture<List<DomainCheckResponse>> checkDomainsAsync(DomainCheckRequest request) {
         log.info("Starting asynchronous check for {} domains", request.getDomains().size());
         final long startTime = System.currentTimeMillis();
+        final Deadline deadline = Deadline.of(request);
+        final ProbePlanner.Plan plan = sharedLookups.plan(request);
 
-        final List<CompletableFuture<DomainCheckResponse>> futures = request.getDomains().stream()
-                .map(domain -> sslCertificateService.checkCertificateAsync(domain)
-                        .thenApply(this::saveCertificateCheck))
-                .toList();
+        final List<SharedLookups.Lookup> lookups = sharedLookups.lookupAll(request, deadline, plan, this::probeAsync);
+
+        final CompletableFuture<Void> done = allDone(lookups);
+        if (deadline.isSet()) {
+            CompletableFuture.delayedExecutor(deadline.remainingNanos(), TimeUnit.NANOSECONDS)
+                    .execute(() -> done.complete(null));
+        }
+        return done.thenApplyAsync(v -> {
+            List<DomainCheckResponse> results = saveCertificateChecks(lookups, deadline);
+
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("Async check completed for {} domains in {} ms ({} probed, {} handshakes saved)",
+                    request.getDomains().size(), duration, lookups.stream().filter(SharedLookups.Lookup::owned).count(),
+                    plan.shared());
+
+            return results;
+        }, completions);
+    }
+
+    @Override
+    public void destroy() {
+        completions.shutdown();
+    }
+
+    private static CompletableFuture<Void> allDone(List<SharedLookups.Lookup> lookups) {
+        return CompletableFuture.allOf(lookups.stream()
+                .map(lookup -> lookup.result().handle((info, ex) -> null))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    // Waits for probes of other requests this one attached to
+    private static void awaitAll(List<SharedLookups.Lookup> lookups, Deadline deadline) {
+        final CompletableFuture<Void> done = allDone(lookups);
+        try {
+            if (deadline.isSet()) {
+                done.get(Math.max(deadline.remainingNanos(), 0), TimeUnit.NANOSECONDS);
+            } else {
+                done.join();
+            }
+        } catch (TimeoutException e) {
+            log.debug("Deadline of {} ms passed", deadline.deadlineMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for check results", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CheckSummary checkDomainsStreaming(DomainCheckRequest request, Consumer<DomainCheckResponse> listener) {
+        return checkDomainsWithProgress(request, (response, index) -> listener.accept(response));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CheckSummary checkDomainsWithProgress(DomainCheckRequest request,
+                                                 ObjIntConsumer<DomainCheckResponse> listener) {
+        log.info("Starting streaming check for {} domains", request.getDomains().size());
+        final Deadline deadline = Deadline.of(request);
+        final ProbePlanner.Plan plan = sharedLookups.plan(request);
+        final List<SharedLookups.Lookup> lookups = sharedLookups.lookupAll(request, deadline, plan, this::probeAsync);
 
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> {
-                    List<DomainCheckResponse> results = futures.stream()
-                            .map(CompletableFuture::join)
-                            .collect(Collectors.toList());
+        final CheckSummary summary = resultStreamer.stream(request, deadline, plan, lookups, listener);
+        log.info("Streaming check completed for {} domains in {} ms ({} probed, {} handshakes saved, {} timed out)",
+                summary.getTotal(), summary.getDurationMs(), summary.getProbed(), summary.getHandshakesSaved(),
+                summary.getTimedOut());
+        return summary;
+    }
+
+    private CertificateInfo probe(String domain, CompletableFuture<InetAddress> address) {
+        final ProbeLimiter.Permit permit;
+        try {
+            permit = probeLimiter.acquire(domain, address).join();
+        } catch (CompletionException e) {
+            return unresolved(domain, e.getCause());
+        }
+        try {
+            final CertificateInfo info = sslCertificateService.checkCertificate(domain, permit.address());
+            probePlanner.recordHandshake(info);
+            return info;
+        } finally {
+            permit.release();
+        }
+    }
 
-                    long duration = System.currentTimeMillis() - startTime;
-                    log.info("Async check completed for {} domains in {} ms",
-                            request.getDomains().size(), duration);
+    /**
+     * The limiter resolves the host before granting a permit; a name that does not
+     * resolve is reported the way the prober reports it.
+     */
+    private CertificateInfo unresolved(String domain, Throwable failure) {
+        if (!(failure instanceof UnknownHostException)) {
+            throw failure instanceof RuntimeException e ? e : new CompletionException(failure);
+        }
+        log.error("Error checking certificate for domain {}: {}", domain, failure.getMessage());
+        final CertificateInfo info = CertificateInfo.failed(domain, failure.getMessage());
+        probePlanner.recordHandshake(info);
+        return info;
+    }
 
-                    return results;
-                });
+    /**
+     * Cancelling the returned future gives up the wait for a permit, or cancels
+     * the running probe and releases its permit.
+     */
+    private CompletableFuture<CertificateInfo> probeAsync(String domain, CompletableFuture<InetAddress> address) {
+        final CompletableFuture<CertificateInfo> result = new CompletableFuture<>();
+        final CompletableFuture<ProbeLimiter.Permit> acquired = probeLimiter.acquire(domain, address);
+        result.whenComplete((info, ex) -> {
+            if (result.isCancelled()) {
+                acquired.cancel(false);
+            }
+        });
+        acquired.whenComplete((permit, failure) -> {
+            if (failure != null) {
+                try {
+                    result.complete(unresolved(domain,
+                            failure instanceof CompletionException ? failure.getCause() : failure));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(failure);
+                }
+                return;
+            }
+            startProbe(domain, permit, result);
+        });
+        return result;
     }
 
-    private DomainCheckResponse checkSingleDomain(String domainName) {
-        final CertificateInfo certInfo = sslCertificateService.checkCertificate(domainName);
-        return saveCertificateCheck(certInfo);
+    /**
+     * A full probe executor rejects the probe instead of running it on this
+     * thread; it is submitted again after a short pause, still holding the permit,
+     * until it is accepted or the caller gives up.
+     */
+    private void startProbe(String domain, ProbeLimiter.Permit permit, CompletableFuture<CertificateInfo> result) {
+        if (result.isDone()) {
+            permit.release();
+            return;
+        }
+        final CompletableFuture<CertificateInfo> probe;
+        try {
+            probe = sslCertificateService.checkCertificateAsync(domain, permit.address());
+        } catch (RejectedExecutionException e) {
+            log.debug("Probe executor full, resubmitting {} in {} ms", domain, PROBE_RESUBMIT_DELAY_MS);
+            CompletableFuture.delayedExecutor(PROBE_RESUBMIT_DELAY_MS, TimeUnit.MILLISECONDS)
+                    .execute(() -> startProbe(domain, permit, result));
+            return;
+        } catch (RuntimeException e) {
+            permit.release();
+            result.completeExceptionally(e);
+            return;
+        }
+        probe.whenComplete((info, ex) -> {
+            permit.release();
+            if (ex == null) {
+                probePlanner.recordHandshake(info);
+                result.complete(info);
+            } else {
+                result.completeExceptionally(ex);
+            }
+        });
+        result.whenComplete((info, ex) -> {
+            if (result.isCancelled()) {
+                probe.cancel(true);
+            }
+        });
     }
 
-    private DomainCheckResponse saveCertificateCheck(CertificateInfo certInfo) {
-        final Domain domain = domainRepository.findByDomainName(certInfo.getDomain())
-                .orElseGet(() -> {
-                    Domain newDomain = new Domain();
-                    newDomain.setDomainName(certInfo.getDomain());
-                    return domainRepository.save(newDomain);
-                });
+    /**
+     * Builds the responses in request order. Lookups still running are given up
+     * and reported as timed out; a probe that finishes after that is cached but
+     * not saved.
+     */
+    private List<DomainCheckResponse> saveCertificateChecks(List<SharedLookups.Lookup> lookups, Deadline deadline) {
+        final List<CertificateInfo> infos = new ArrayList<>(lookups.size());
+        for (SharedLookups.Lookup lookup : lookups) {
+            lookup.abandon();
+            infos.add(finished(lookup));
+        }
 
-        final CertificateCheck check = new CertificateCheck();
-        check.setDomain(domain);
-        check.setValid(certInfo.isValid());
-        check.setExpiryDate(certInfo.getExpiryDate());
-        check.setIssuer(certInfo.getIssuer());
-        check.setSubject(certInfo.getSubject());
-        check.setErrorMessage(certInfo.getErrorMessage());
+        final List<CertificateInfo> owned = new ArrayList<>();
+        for (int i = 0; i < lookups.size(); i++) {
+            if (lookups.get(i).owned() && infos.get(i) != null) {
+                owned.add(infos.get(i));
+            }
+        }
+        checkResultQueue.enqueue(owned);
 
-        certificateCheckRepository.save(check);
+        final List<DomainCheckResponse> responses = new ArrayList<>(lookups.size());
+        for (int i = 0; i < lookups.size(); i++) {
+            final CertificateInfo info = infos.get(i);
+            responses.add(info != null
+                    ? DomainCheckResponse.fromCertificateInfo(info, properties.getThresholds())
+                    : DomainCheckResponse.timedOut(lookups.get(i).domain(), deadline.deadlineMs()));
+        }
+        return responses;
+    }
 
-        return DomainCheckResponse.fromCertificateInfo(certInfo);
+    private static CertificateInfo finished(SharedLookups.Lookup lookup) {
+        final CompletableFuture<CertificateInfo> result = lookup.result();
+        if (!result.isDone() || result.isCancelled()) {
+            return null;
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return CertificateInfo.failed(lookup.domain(), cause.getMessage());
+        }
     }
 
     @Override
     public List<DomainCheckResponse> getDomainsExpiringSoon(int days) {
         log.info("Finding domains expiring within {} days", days);
 
-        final LocalDateTime expiryThreshold = LocalDateTime.now().plusDays(days);
-
-        return certificateCheckRepository.findLatestChecksExpiringBefore(expiryThreshold).stream()
-                .map(check -> DomainCheckResponse.builder()
-                        .domain(check.getDomain().getDomainName())
-                        .isValid(check.isValid())
-                        .expiryDate(check.getExpiryDate())
-                        .daysUntilExpiry(check.getDaysUntilExpiry())
-                        .alertLevel(check.getAlertLevel())
-                        .lastChecked(check.getCheckTime())
-                        .build())
+        final LocalDateTime now = LocalDateTime.now();
+        final LocalDateTime expiryThreshold = now.plusDays(days);
+
+        final List<ExpiringDomain> expiring = expiryIndex.isReady()
+                ? expiryIndex.findValidExpiringBefore(expiryThreshold)
+                : domainStatusRepository.findValidExpiringBefore(expiryThreshold);
+        return expiring.stream()
+                .map(domain -> {
+                    final int daysUntilExpiry = ExpiryUtils.daysUntilExpiry(now, domain.expiryDate());
+                    return DomainCheckResponse.builder()
+                            .domain(domain.domainName())
+                            .isValid(true)
+                            .expiryDate(domain.expiryDate())
+                            .daysUntilExpiry(daysUntilExpiry)
+                            .alertLevel(AlertLevel.of(daysUntilExpiry, properties.getThresholds()).name())
+                            .lastChecked(domain.checkTime())
+                            .build();
+                })
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ExpirySummary getExpirySummary(int days) {
+        if (expiryIndex.isReady()) {
+            return expiryIndex.summarize(days);
+        }
+        final LocalDate today = LocalDate.now();
+        final Map<AlertLevel, Long> byAlertLevel = new EnumMap<>(AlertLevel.class);
+        for (AlertLevel level : AlertLevel.values()) {
+            byAlertLevel.put(level, 0L);
+        }
+        byAlertLevel.put(AlertLevel.ERROR, domainStatusRepository.countFailed());
+        final SortedMap<Integer, Long> byDaysUntilExpiry = new TreeMap<>();
+        for (DomainStatusRepository.ExpiryDayCount count : domainStatusRepository.countValidByExpiryDay()) {
+            final int daysUntilExpiry = ExpiryUtils.daysUntilExpiry(today, count.getExpiryDay());
+            byAlertLevel.merge(AlertLevel.of(daysUntilExpiry, properties.getThresholds()), count.getDomains(), Long::sum);
+            if (daysUntilExpiry <= days) {
+                byDaysUntilExpiry.put(daysUntilExpiry, count.getDomains());
+            }
+        }
+        return ExpirySummary.of(today, byAlertLevel, byDaysUntilExpiry);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<IssuerCount> getIssuerCounts() {
+        return certificateRepository.countValidByIssuer().stream()
+                .map(count -> new IssuerCount(count.getIssuer(), count.getDomains()))
+                .toList();
+    }
+
     @Override
     public Page<CertificateCheck> getDomainHistory(String domainName, Pageable pageable) {
         final Domain domain = domainRepository.findByDomainName(domainName)
                 .orElseThrow(() -> new DomainNotFoundException("Domain not found: " + domainName));
 
-        return certificateCheckRepository.findByDomainOrderByCheckTimeDesc(domain, pageable);
+        final Page<CertificateCheck> checks = certificateCheckRepository.findByDomainOrderByCheckTimeDesc(domain, pageable);
+        checks.forEach(this::prepare);
+        return checks;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public HistoryPage getDomainHistory(String domainName, String cursor, int size) {
+        final Domain domain = domainRepository.findByDomainName(domainName)
+                .orElseThrow(() -> new DomainNotFoundException("Domain not found: " + domainName));
+
+        // One extra row tells whether there is a next page
+        final List<CertificateCheck> checks;
+        if (cursor == null) {
+            checks = certificateCheckRepository.findHistory(domain.getId(), size + 1);
+        } else {
+            final HistoryCursor after = HistoryCursor.decode(cursor);
+            checks = certificateCheckRepository.findHistoryBefore(domain.getId(), after.checkTime(), after.id(), size + 1);
+        }
+        checks.forEach(this::prepare);
+        if (checks.size() <= size) {
+            return new HistoryPage(checks, null);
+        }
+        final List<CertificateCheck> page = checks.subList(0, size);
+        return new HistoryPage(page, HistoryCursor.after(page.getLast()).encode());
+    }
+
+    /**
+     * Sets the alert level and loads the certificate while the session is open;
+     * the proxies of one page are loaded together.
+     */
+    private void prepare(CertificateCheck check) {
+        Hibernate.initialize(check.getCertificate());
+        check.setAlertLevel(AlertLevel.of(check.getDaysUntilExpiry(), properties.getThresholds()).name());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,299 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.AlertLevel;
+import com.media.sslmonitor.dto.ExpiringDomain;
+import com.media.sslmonitor.dto.ExpirySummary;
+import com.media.sslmonitor.entity.DomainStatus;
+import com.media.sslmonitor.service.ExpiryIndex;
+import com.media.sslmonitor.util.ExpiryUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Latest expiry of every domain, kept in memory so /expiring is a range scan
+ * instead of a query. Entries hold times as epoch numbers rather than
+ * LocalDateTime objects and share the domain name between the per-domain map
+ * and the expiry-ordered set, which keeps the cost to roughly 150 bytes per
+ * domain. The index is loaded from domain_status on startup, updated from the
+ * save path on commit and, for checks saved by other instances, re-read every
+ * refresh-interval.
+ *
+ * <p>Alongside the entries it counts domains per alert level and valid
+ * certificates per expiry day. Both are adjusted when an entry changes, and
+ * when the date moves on only the expiry days that cross a threshold move
+ * between levels, so /summary never needs to count the domains again.
+ */
+@Service
+@Slf4j
+public class ExpiryIndexImpl implements ExpiryIndex, DisposableBean {
+
+    private static final String SELECT_STATUSES = """
+            SELECT domain_name, check_time, is_valid, expiry_date FROM domain_status
+            """;
+    private static final int FETCH_SIZE = 10_000;
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final SslCheckProperties.ExpiryIndex config;
+    private final SslCheckProperties.Thresholds thresholds;
+    private final int[] thresholdDays;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Entry> byDomain = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> byExpiry = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Entry::expirySeconds).thenComparing(Entry::domainName));
+    // Guarded by itself, together with levelCounts and countedDay
+    private final TreeMap<Long, Long> validByExpiryDay = new TreeMap<>();
+    private final long[] levelCounts = new long[AlertLevel.values().length];
+    private long countedDay;
+    private volatile boolean ready;
+    private ScheduledExecutorService refresher;
+
+    @Autowired
+    public ExpiryIndexImpl(SslCheckProperties properties, JdbcTemplate jdbcTemplate) {
+        this(properties, jdbcTemplate, Clock.systemDefaultZone());
+    }
+
+    public ExpiryIndexImpl(SslCheckProperties properties, JdbcTemplate jdbcTemplate, Clock clock) {
+        this.config = properties.getExpiryIndex();
+        this.thresholds = properties.getThresholds();
+        this.thresholdDays = IntStream.of(thresholds.getCritical(), thresholds.getWarning(),
+                thresholds.getInfo()).distinct().toArray();
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.countedDay = LocalDate.now(clock).toEpochDay();
+    }
+
+    // Runs after the domain_status backfill so backfilled rows are included
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        load();
+        final long refreshMs = config.getRefreshInterval().toMillis();
+        if (refreshMs > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SSLCheck-expiry-index");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refresh, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void load() {
+        final long startTime = System.currentTimeMillis();
+        jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(SELECT_STATUSES);
+                    ps.setFetchSize(FETCH_SIZE);
+                    return ps;
+                },
+                rs -> {
+                    apply(rs.getString("domain_name"), rs.getTimestamp("check_time"), rs.getBoolean("is_valid"),
+                            rs.getTimestamp("expiry_date"));
+                });
+        ready = true;
+        log.info("Loaded {} domains into the expiry index in {} ms", byExpiry.size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    private void refresh() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("Expiry index refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void update(List<DomainStatus> statuses) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            statuses.forEach(this::apply);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                statuses.forEach(ExpiryIndexImpl.this::apply);
+            }
+        });
+    }
+
+    @Override
+    public List<ExpiringDomain> findValidExpiringBefore(LocalDateTime expiryDate) {
+        final long threshold = expiryDate.toEpochSecond(ZoneOffset.UTC);
+        final List<ExpiringDomain> expiring = new ArrayList<>();
+        for (Entry entry : byExpiry) {
+            if (entry.expirySeconds() > threshold) {
+                break;
+            }
+            expiring.add(new ExpiringDomain(entry.domainName(),
+                    LocalDateTime.ofEpochSecond(entry.expirySeconds(), 0, ZoneOffset.UTC),
+                    fromMicros(entry.checkMicros())));
+        }
+        return expiring;
+    }
+
+    @Override
+    public ExpirySummary summarize(int days) {
+        final Map<AlertLevel, Long> byAlertLevel = new EnumMap<>(AlertLevel.class);
+        final SortedMap<Integer, Long> byDaysUntilExpiry = new TreeMap<>();
+        final long today;
+        synchronized (validByExpiryDay) {
+            today = rollOver();
+            for (AlertLevel level : AlertLevel.values()) {
+                byAlertLevel.put(level, levelCounts[level.ordinal()]);
+            }
+            validByExpiryDay.headMap(today + days, true)
+                    .forEach((day, count) -> byDaysUntilExpiry.put(ExpiryUtils.daysUntilExpiry(today, day), count));
+        }
+        return ExpirySummary.of(LocalDate.ofEpochDay(today), byAlertLevel, byDaysUntilExpiry);
+    }
+
+    @Override
+    public int size() {
+        return byDomain.size();
+    }
+
+    @Override
+    public void destroy() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    private void apply(DomainStatus status) {
+        apply(status.getDomainName(), status.getCheckTime(), status.isValid(), status.getExpiryDate());
+    }
+
+    private void apply(String domainName, Timestamp checkTime, boolean valid, Timestamp expiryDate) {
+        apply(domainName, checkTime.toLocalDateTime(), valid, expiryDate != null ? expiryDate.toLocalDateTime() : null);
+    }
+
+    private void apply(String domainName, LocalDateTime checkTime, boolean valid, LocalDateTime expiryDate) {
+        final boolean indexed = valid && expiryDate != null;
+        final Entry entry = new Entry(domainName, toMicros(checkTime), indexed,
+                indexed ? expiryDate.toEpochSecond(ZoneOffset.UTC) : 0);
+        // compute locks the domain's bin, so the set never holds two entries for one domain
+        byDomain.compute(domainName, (name, previous) -> {
+            if (previous != null && previous.checkMicros() > entry.checkMicros()) {
+                return previous;
+            }
+            if (previous != null) {
+                if (previous.valid()) {
+                    byExpiry.remove(previous);
+                }
+                count(previous, -1);
+            }
+            if (entry.valid()) {
+                byExpiry.add(entry);
+            }
+            count(entry, 1);
+            return entry;
+        });
+    }
+
+    private void count(Entry entry, long delta) {
+        synchronized (validByExpiryDay) {
+            final long today = rollOver();
+            if (!entry.valid()) {
+                levelCounts[AlertLevel.ERROR.ordinal()] += delta;
+                return;
+            }
+            // The epoch day of the local expiry date, as ExpiryUtils counts from
+            final long day = Math.floorDiv(entry.expirySeconds(), SECONDS_PER_DAY);
+            validByExpiryDay.merge(day, delta, (count, change) -> count + change == 0 ? null : count + change);
+            levelCounts[levelOf(today, day).ordinal()] += delta;
+        }
+    }
+
+    /**
+     * Moves the level counts forward to today and returns it. Each day that
+     * passes moves a day's certificates down a level only where its days until
+     * expiry reach a threshold. Caller holds the validByExpiryDay lock.
+     */
+    private long rollOver() {
+        final long today = LocalDate.now(clock).toEpochDay();
+        if (today < countedDay) {
+            // The clock went back; count the valid levels again from the expiry days
+            countedDay = today;
+            final long errors = levelCounts[AlertLevel.ERROR.ordinal()];
+            Arrays.fill(levelCounts, 0);
+            levelCounts[AlertLevel.ERROR.ordinal()] = errors;
+            validByExpiryDay.forEach((day, count) -> levelCounts[levelOf(today, day).ordinal()] += count);
+        }
+        while (countedDay < today) {
+            countedDay++;
+            for (int threshold : thresholdDays) {
+                final Long count = validByExpiryDay.get(countedDay + threshold);
+                final AlertLevel from = AlertLevel.of(threshold + 1, thresholds);
+                final AlertLevel to = AlertLevel.of(threshold, thresholds);
+                if (count != null && from != to) {
+                    levelCounts[from.ordinal()] -= count;
+                    levelCounts[to.ordinal()] += count;
+                }
+            }
+        }
+        return today;
+    }
+
+    private AlertLevel levelOf(long today, long expiryDay) {
+        return AlertLevel.of(ExpiryUtils.daysUntilExpiry(today, expiryDay), thresholds);
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Times are stored as epoch numbers of the local date-time, which round-trips
+     * LocalDateTime exactly without a zone lookup.
+     */
+    private record Entry(String domainName, long checkMicros, boolean valid, long expirySeconds) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.service.HostResolver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The JDK resolver blocks and has no timeout of its own, so lookups run on a
+ * small pool of ssl.check.dns.resolver-threads. The DNS timeout starts when a
+ * lookup gets a thread, so time spent queued behind other lookups is not
+ * counted against it. A lookup that times out or whose caller gives up is
+ * cancelled: a queued one never runs and a running one is interrupted, although
+ * a thread blocked inside the system resolver is only freed once that returns.
+ */
+@Service
+@Slf4j
+public class HostResolverImpl implements HostResolver, DisposableBean {
+
+    private final Duration timeout;
+    private final AddressLookup addressLookup;
+    private final ExecutorService resolver;
+    private final ScheduledExecutorService timer;
+
+    @Autowired
+    public HostResolverImpl(SslCheckProperties properties) {
+        this(properties, InetAddress::getByName);
+    }
+
+    public HostResolverImpl(SslCheckProperties properties, AddressLookup addressLookup) {
+        this.timeout = properties.getTimeouts().getDns();
+        this.addressLookup = addressLookup;
+        final AtomicInteger resolverThreads = new AtomicInteger();
+        this.resolver = Executors.newFixedThreadPool(properties.getDns().getResolverThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "SSLCheck-dns-" + resolverThreads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SSLCheck-dns-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<InetAddress> resolve(String host) {
+        final Lookup lookup = new Lookup(host);
+        try {
+            resolver.execute(lookup);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new UnknownHostException("Resolver is shut down"));
+        }
+        return lookup.address;
+    }
+
+    @Override
+    public void destroy() {
+        resolver.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    @FunctionalInterface
+    public interface AddressLookup {
+        InetAddress lookup(String host) throws UnknownHostException;
+    }
+
+    private final class Lookup extends FutureTask<InetAddress> {
+
+        private final String host;
+        private final CompletableFuture<InetAddress> address = new CompletableFuture<>();
+
+        Lookup(String host) {
+            super(() -> addressLookup.lookup(host));
+            this.host = host;
+            // Timed out or given up by the caller: drop it from the queue or interrupt it
+            address.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    cancel(true);
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            if (address.isDone()) {
+                return;
+            }
+            final ScheduledFuture<?> expiry = timer.schedule(this::timeOut, timeout.toMillis(), TimeUnit.MILLISECONDS);
+            try {
+                super.run();
+            } finally {
+                expiry.cancel(false);
+            }
+        }
+
+        private void timeOut() {
+            if (address.completeExceptionally(new UnknownHostException(
+                    host + ": DNS lookup timed out after " + timeout.toMillis() + " ms"))) {
+                log.debug("DNS lookup of {} timed out", host);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                address.complete(get());
+            } catch (ExecutionException e) {
+                address.completeExceptionally(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                address.completeExceptionally(e);
+            }
+        }
+    }
+}
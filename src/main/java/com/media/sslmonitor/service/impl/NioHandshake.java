@@ -0,0 +1,72 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.dto.CertificateInfo;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.net.ssl.SSLEngine;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * State of a single certificate probe. Apart from the accepted chain, which is
+ * published by the trust manager, it is only touched by its selector thread.
+ */
+@Getter
+@Setter
+class NioHandshake {
+
+    private final String domain;
+    private final String cleanDomain;
+    private final String host;
+    private final int port;
+    private final CompletableFuture<CertificateInfo> result = new CompletableFuture<>();
+
+    private InetSocketAddress address;
+    private SocketChannel channel;
+    private SelectionKey key;
+    private SSLEngine engine;
+    private ByteBuffer netIn;
+    private ByteBuffer netOut;
+    private ByteBuffer appIn;
+    private boolean connected;
+    private boolean resumable;
+    private boolean fullHandshakeRequired;
+    private boolean awaitingTicket;
+    private boolean resumed;
+    private X509Certificate certificate;
+    private long stageStartNanos;
+    private long deadlineNanos;
+    private volatile X509Certificate[] acceptedChain;
+
+    NioHandshake(String domain, String cleanDomain, String host, int port) {
+        this.domain = domain;
+        this.cleanDomain = cleanDomain;
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Resets the connection state so the probe can be started again, this time
+     * without offering a cached session.
+     */
+    void restartWithFullHandshake() {
+        channel = null;
+        key = null;
+        engine = null;
+        netIn = null;
+        netOut = null;
+        appIn = null;
+        connected = false;
+        resumable = false;
+        awaitingTicket = false;
+        resumed = false;
+        certificate = null;
+        acceptedChain = null;
+        fullHandshakeRequired = true;
+    }
+}
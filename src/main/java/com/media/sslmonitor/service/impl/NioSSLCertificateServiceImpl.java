@@ -0,0 +1,151 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.HostResolver;
+import com.media.sslmonitor.service.SSLCertificateService;
+import com.media.sslmonitor.util.DomainNameUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Certificate prober that runs TLS handshakes with {@link javax.net.ssl.SSLEngine}
+ * over non-blocking channels. A handful of selector threads serve all probes;
+ * only DNS resolution, which has no non-blocking JDK API, goes through the
+ * {@link HostResolver} pool, and only when the caller has not resolved the host.
+ * With session resumption enabled all loops share one client session cache.
+ */
+@Service
+@ConditionalOnProperty(prefix = "ssl.check", name = "prober", havingValue = "nio")
+@Slf4j
+public class NioSSLCertificateServiceImpl implements SSLCertificateService, DisposableBean {
+
+    private final NioSelectorLoop[] loops;
+    private final HostResolver hostResolver;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private final CheckMetrics metrics;
+
+    @Autowired
+    public NioSSLCertificateServiceImpl(SslCheckProperties properties, HostResolver hostResolver, CheckMetrics metrics)
+            throws GeneralSecurityException, IOException {
+        this(properties, defaultTrustManager(), hostResolver, metrics);
+    }
+
+    public NioSSLCertificateServiceImpl(SslCheckProperties properties, X509ExtendedTrustManager trustManager,
+                                        HostResolver hostResolver, CheckMetrics metrics)
+            throws GeneralSecurityException, IOException {
+        final SslCheckProperties.Nio config = properties.getNio();
+        final SslCheckProperties.Timeouts timeouts = properties.getTimeouts();
+        final CertificateCapturingTrustManager capturingTrustManager = new CertificateCapturingTrustManager(trustManager);
+        final SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[]{capturingTrustManager}, null);
+        SSLContext resumingContext = null;
+        if (config.isSessionResumption()) {
+            resumingContext = SSLContext.getInstance("TLS");
+            resumingContext.init(null, new TrustManager[]{capturingTrustManager}, null);
+            final SSLSessionContext sessions = resumingContext.getClientSessionContext();
+            sessions.setSessionCacheSize(config.getSessionCacheSize());
+            sessions.setSessionTimeout((int) config.getSessionTimeout().toSeconds());
+        }
+
+        final int selectorThreads = config.getSelectorThreads();
+        this.loops = new NioSelectorLoop[selectorThreads];
+        for (int i = 0; i < selectorThreads; i++) {
+            loops[i] = new NioSelectorLoop("SSLCheck-nio-" + i, sslContext, resumingContext, capturingTrustManager,
+                    timeouts.getConnect().toMillis(), timeouts.getHandshake().toMillis(),
+                    config.getFullHandshakeWithin(), metrics);
+        }
+        this.hostResolver = hostResolver;
+        this.metrics = metrics;
+        log.info("Started NIO certificate prober with {} selector threads (session resumption {})",
+                selectorThreads, config.isSessionResumption() ? "enabled" : "disabled");
+    }
+
+    @Override
+    public CertificateInfo checkCertificate(String domain) {
+        return checkCertificateAsync(domain).join();
+    }
+
+    @Override
+    public CompletableFuture<CertificateInfo> checkCertificateAsync(String domain) {
+        return checkCertificateAsync(domain, null);
+    }
+
+    @Override
+    public CertificateInfo checkCertificate(String domain, InetAddress address) {
+        return checkCertificateAsync(domain, address).join();
+    }
+
+    @Override
+    public CompletableFuture<CertificateInfo> checkCertificateAsync(String domain, InetAddress address) {
+        log.debug("Starting NIO SSL check for domain: {}", domain);
+
+        final NioHandshake handshake;
+        try {
+            final String cleanDomain = DomainNameUtils.normalize(domain);
+            handshake = new NioHandshake(domain, cleanDomain,
+                    DomainNameUtils.host(cleanDomain), DomainNameUtils.port(cleanDomain));
+        } catch (Exception e) {
+            log.error("Error checking certificate for domain {}: {}", domain, e.getMessage());
+            return CompletableFuture.completedFuture(CertificateInfo.failed(domain, e.getMessage()));
+        }
+
+        if (address != null) {
+            submit(handshake, address);
+            return handshake.getResult();
+        }
+        final long startTime = System.nanoTime();
+        hostResolver.resolve(handshake.getHost()).whenComplete((resolved, ex) -> {
+            if (ex != null) {
+                final Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                log.error("Error checking certificate for domain {}: {}", domain, cause.getMessage());
+                handshake.getResult().complete(CertificateInfo.failed(domain, cause.getMessage()));
+                return;
+            }
+            metrics.record(CheckMetrics.Stage.DNS, System.nanoTime() - startTime);
+            submit(handshake, resolved);
+        });
+        return handshake.getResult();
+    }
+
+    private void submit(NioHandshake handshake, InetAddress address) {
+        handshake.setAddress(new InetSocketAddress(address, handshake.getPort()));
+        loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)].submit(handshake);
+    }
+
+    private static X509ExtendedTrustManager defaultTrustManager() throws GeneralSecurityException {
+        final TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init((KeyStore) null);
+        return Arrays.stream(factory.getTrustManagers())
+                .filter(X509ExtendedTrustManager.class::isInstance)
+                .map(X509ExtendedTrustManager.class::cast)
+                .findFirst()
+                .orElseThrow(() -> new GeneralSecurityException("No X509 trust manager available"));
+    }
+
+    @Override
+    public void destroy() {
+        for (NioSelectorLoop loop : loops) {
+            loop.close();
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * One selector thread driving many client handshakes. Without a resuming
+ * context every probe is finished as soon as the server certificate has been
+ * accepted by the trust manager. With one, handshakes are completed so the
+ * session, and on TLS 1.3 the ticket that follows, can be cached and resumed
+ * on the next check of the same host.
+ */
+@Slf4j
+class NioSelectorLoop implements Runnable, Closeable {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private static final long SELECT_TIMEOUT_MS = 100;
+    private static final long TICKET_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final Pattern IP_LITERAL = Pattern.compile("^[0-9.]+$|:");
+
+    private final SSLContext sslContext;
+    private final SSLContext resumingContext;
+    private final CertificateCapturingTrustManager trustManager;
+    private final long connectTimeoutNanos;
+    private final long handshakeTimeoutNanos;
+    private final Duration fullHandshakeWithin;
+    private final CheckMetrics metrics;
+    private final Selector selector;
+    private final Queue<NioHandshake> pending = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    NioSelectorLoop(String name, SSLContext sslContext, SSLContext resumingContext,
+                    CertificateCapturingTrustManager trustManager, long connectTimeoutMs, long handshakeTimeoutMs,
+                    Duration fullHandshakeWithin, CheckMetrics metrics) throws IOException {
+        this.sslContext = sslContext;
+        this.resumingContext = resumingContext;
+        this.trustManager = trustManager;
+        this.connectTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(connectTimeoutMs);
+        this.handshakeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(handshakeTimeoutMs);
+        this.fullHandshakeWithin = fullHandshakeWithin;
+        this.metrics = metrics;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    void submit(NioHandshake handshake) {
+        if (!running) {
+            handshake.getResult().complete(CertificateInfo.failed(handshake.getDomain(), "Prober is shut down"));
+            return;
+        }
+        pending.add(handshake);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+                startPending();
+
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                expireTimedOut();
+            } catch (Exception e) {
+                if (running) {
+                    log.error("Unexpected error in NIO selector loop {}", thread.getName(), e);
+                }
+            }
+        }
+        shutdownProbes();
+    }
+
+    private void startPending() {
+        NioHandshake handshake;
+        while ((handshake = pending.poll()) != null) {
+            if (handshake.getResult().isDone()) {
+                // Cancelled before it was started
+                continue;
+            }
+            try {
+                final SocketChannel channel = SocketChannel.open();
+                handshake.setChannel(channel);
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                handshake.setStageStartNanos(System.nanoTime());
+                handshake.setDeadlineNanos(handshake.getStageStartNanos() + connectTimeoutNanos);
+                handshake.setKey(channel.register(selector, SelectionKey.OP_CONNECT, handshake));
+                if (channel.connect(handshake.getAddress())) {
+                    onConnected(handshake);
+                }
+            } catch (Exception e) {
+                fail(handshake, e);
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        final NioHandshake handshake = (NioHandshake) key.attachment();
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isConnectable()) {
+                if (handshake.getChannel().finishConnect()) {
+                    onConnected(handshake);
+                }
+                return;
+            }
+            if (key.isReadable()) {
+                read(handshake);
+            }
+            if (key.isWritable() && !flush(handshake)) {
+                return;
+            }
+            advance(handshake);
+        } catch (Exception e) {
+            fail(handshake, e);
+        }
+    }
+
+    private void onConnected(NioHandshake handshake) throws IOException {
+        final long connectedAt = System.nanoTime();
+        metrics.record(CheckMetrics.Stage.CONNECT, connectedAt - handshake.getStageStartNanos());
+        handshake.setStageStartNanos(connectedAt);
+
+        final boolean resumable = resumingContext != null && !handshake.isFullHandshakeRequired();
+        final SSLEngine engine = (resumable ? resumingContext : sslContext)
+                .createSSLEngine(handshake.getHost(), handshake.getPort());
+        engine.setUseClientMode(true);
+        final SSLParameters parameters = engine.getSSLParameters();
+        parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        if (!IP_LITERAL.matcher(handshake.getHost()).find()) {
+            parameters.setServerNames(List.of(new SNIHostName(handshake.getHost())));
+        }
+        engine.setSSLParameters(parameters);
+
+        final SSLSession session = engine.getSession();
+        handshake.setEngine(engine);
+        handshake.setResumable(resumable);
+        handshake.setNetIn(ByteBuffer.allocate(session.getPacketBufferSize()));
+        handshake.setNetOut(ByteBuffer.allocate(session.getPacketBufferSize()).flip());
+        handshake.setAppIn(ByteBuffer.allocate(session.getApplicationBufferSize()));
+        handshake.setConnected(true);
+        handshake.setDeadlineNanos(connectedAt + handshakeTimeoutNanos);
+        handshake.getKey().interestOps(SelectionKey.OP_READ);
+
+        trustManager.register(engine, handshake);
+        engine.beginHandshake();
+        advance(handshake);
+    }
+
+    private void advance(NioHandshake handshake) throws IOException {
+        final SSLEngine engine = handshake.getEngine();
+        if (handshake.isAwaitingTicket()) {
+            receiveTicket(handshake);
+            return;
+        }
+        while (true) {
+            if (handshake.getAcceptedChain() != null && !handshake.isResumable()) {
+                complete(handshake, handshake.getAcceptedChain()[0], false);
+                return;
+            }
+            switch (engine.getHandshakeStatus()) {
+                case NEED_TASK -> {
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                }
+                case NEED_WRAP -> {
+                    if (!flush(handshake)) {
+                        return;
+                    }
+                    final ByteBuffer netOut = handshake.getNetOut().clear();
+                    final SSLEngineResult result = engine.wrap(EMPTY, netOut);
+                    netOut.flip();
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                        handshake.setNetOut(ByteBuffer.allocate(netOut.capacity() * 2).flip());
+                    } else if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        throw new SSLException("Connection closed during handshake");
+                    } else if (!flush(handshake)) {
+                        return;
+                    }
+                }
+                case NEED_UNWRAP, NEED_UNWRAP_AGAIN -> {
+                    final ByteBuffer netIn = handshake.getNetIn().flip();
+                    final SSLEngineResult result = engine.unwrap(netIn, handshake.getAppIn());
+                    netIn.compact();
+                    switch (result.getStatus()) {
+                        case BUFFER_UNDERFLOW -> {
+                            if (!netIn.hasRemaining()) {
+                                handshake.setNetIn(enlarge(netIn));
+                            }
+                            return;
+                        }
+                        case BUFFER_OVERFLOW -> handshake.setAppIn(
+                                ByteBuffer.allocate(handshake.getAppIn().capacity() * 2));
+                        case CLOSED -> throw new SSLException("Connection closed during handshake");
+                        case OK -> handshake.getAppIn().clear();
+                    }
+                }
+                case FINISHED, NOT_HANDSHAKING -> {
+                    finished(handshake);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void finished(NioHandshake handshake) throws IOException {
+        final SSLSession session = handshake.getEngine().getSession();
+        // The trust manager is not consulted when a cached session is resumed
+        final boolean resumed = handshake.getAcceptedChain() == null;
+        final X509Certificate certificate;
+        if (resumed) {
+            final Certificate[] peerCertificates = session.getPeerCertificates();
+            if (peerCertificates.length == 0) {
+                throw new SSLPeerUnverifiedException("Server sent no certificate");
+            }
+            certificate = (X509Certificate) peerCertificates[0];
+        } else {
+            certificate = handshake.getAcceptedChain()[0];
+        }
+
+        if (resumed && expiresSoon(certificate)) {
+            // The server may have deployed a renewed certificate since the session was cached
+            session.invalidate();
+            restart(handshake);
+            return;
+        }
+        if (!handshake.isResumable() || !"TLSv1.3".equals(session.getProtocol())) {
+            complete(handshake, certificate, resumed);
+            return;
+        }
+
+        // TLS 1.3 sessions can only be resumed with the ticket the server sends after the handshake
+        metrics.record(CheckMetrics.Stage.HANDSHAKE, System.nanoTime() - handshake.getStageStartNanos());
+        handshake.setCertificate(certificate);
+        handshake.setResumed(resumed);
+        handshake.setAwaitingTicket(true);
+        handshake.setDeadlineNanos(System.nanoTime() + TICKET_WAIT_NANOS);
+        receiveTicket(handshake);
+    }
+
+    private void receiveTicket(NioHandshake handshake) throws IOException {
+        final ByteBuffer netIn = handshake.getNetIn().flip();
+        final SSLEngineResult result = netIn.hasRemaining()
+                ? handshake.getEngine().unwrap(netIn, handshake.getAppIn())
+                : null;
+        netIn.compact();
+        if (result == null) {
+            return;
+        }
+        switch (result.getStatus()) {
+            case BUFFER_UNDERFLOW -> {
+                if (!netIn.hasRemaining()) {
+                    handshake.setNetIn(enlarge(netIn));
+                }
+            }
+            case BUFFER_OVERFLOW -> handshake.setAppIn(ByteBuffer.allocate(handshake.getAppIn().capacity() * 2));
+            case OK, CLOSED -> complete(handshake, handshake.getCertificate(), handshake.isResumed());
+        }
+    }
+
+    private boolean expiresSoon(X509Certificate certificate) {
+        return certificate.getNotAfter().toInstant().isBefore(Instant.now().plus(fullHandshakeWithin));
+    }
+
+    private void restart(NioHandshake handshake) {
+        release(handshake);
+        handshake.restartWithFullHandshake();
+        pending.add(handshake);
+        selector.wakeup();
+    }
+
+    private void read(NioHandshake handshake) throws IOException {
+        if (!handshake.getNetIn().hasRemaining()) {
+            handshake.setNetIn(enlarge(handshake.getNetIn()));
+        }
+        if (handshake.getChannel().read(handshake.getNetIn()) < 0) {
+            throw new EOFException("Connection closed by peer during handshake");
+        }
+    }
+
+    /**
+     * Writes pending handshake bytes; returns false and waits for OP_WRITE when
+     * the socket buffer is full.
+     */
+    private boolean flush(NioHandshake handshake) throws IOException {
+        final ByteBuffer netOut = handshake.getNetOut();
+        if (netOut.hasRemaining()) {
+            handshake.getChannel().write(netOut);
+        }
+        final boolean flushed = !netOut.hasRemaining();
+        handshake.getKey().interestOps(flushed
+                ? SelectionKey.OP_READ
+                : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        return flushed;
+    }
+
+    private static ByteBuffer enlarge(ByteBuffer buffer) {
+        final ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    /**
+     * Fails probes past their connect or handshake deadline and closes the
+     * connections of probes the caller has cancelled.
+     */
+    private void expireTimedOut() {
+        final long now = System.nanoTime();
+        for (SelectionKey key : selector.keys()) {
+            final NioHandshake handshake = (NioHandshake) key.attachment();
+            if (!key.isValid() || handshake == null) {
+                continue;
+            }
+            if (handshake.getResult().isCancelled()) {
+                release(handshake);
+            } else if (now - handshake.getDeadlineNanos() > 0) {
+                fail(handshake, new SocketTimeoutException(
+                        handshake.isConnected() ? "Read timed out" : "Connect timed out"));
+            }
+        }
+    }
+
+    private void complete(NioHandshake handshake, X509Certificate certificate, boolean resumed) {
+        if (handshake.getResult().isDone()) {
+            release(handshake);
+            return;
+        }
+        if (!handshake.isAwaitingTicket()) {
+            metrics.record(CheckMetrics.Stage.HANDSHAKE, System.nanoTime() - handshake.getStageStartNanos());
+        }
+        metrics.recordHandshake(resumed);
+        release(handshake);
+        final long parseStart = System.nanoTime();
+        final CertificateInfo info = CertificateInfo.fromCertificate(handshake.getCleanDomain(), certificate);
+        metrics.record(CheckMetrics.Stage.PARSE, System.nanoTime() - parseStart);
+        log.info("Certificate check completed for {}: {} days until expiry",
+                handshake.getCleanDomain(), info.getDaysUntilExpiry());
+        handshake.getResult().complete(info);
+    }
+
+    private void fail(NioHandshake handshake, Exception e) {
+        if (handshake.getResult().isDone()) {
+            release(handshake);
+            return;
+        }
+        if (handshake.isAwaitingTicket()) {
+            // No ticket arrived in time; the certificate is all the probe needs
+            complete(handshake, handshake.getCertificate(), handshake.isResumed());
+            return;
+        }
+        if (handshake.isResumable() && handshake.getAcceptedChain() != null) {
+            // The certificate was accepted before the rest of the handshake failed
+            complete(handshake, handshake.getAcceptedChain()[0], false);
+            return;
+        }
+        release(handshake);
+        log.error("Error checking certificate for domain {}: {}", handshake.getDomain(), e.getMessage());
+        handshake.getResult().complete(CertificateInfo.failed(handshake.getDomain(), e.getMessage()));
+    }
+
+    private void release(NioHandshake handshake) {
+        if (handshake.getEngine() != null) {
+            trustManager.unregister(handshake.getEngine());
+        }
+        if (handshake.getKey() != null) {
+            handshake.getKey().cancel();
+        }
+        if (handshake.getChannel() != null) {
+            try {
+                handshake.getChannel().close();
+            } catch (IOException e) {
+                log.debug("Error closing channel for {}", handshake.getCleanDomain(), e);
+            }
+        }
+    }
+
+    private void shutdownProbes() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioHandshake handshake) {
+                fail(handshake, new IOException("Prober is shut down"));
+            }
+        }
+        NioHandshake handshake;
+        while ((handshake = pending.poll()) != null) {
+            fail(handshake, new IOException("Prober is shut down"));
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.debug("Error closing selector {}", thread.getName(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
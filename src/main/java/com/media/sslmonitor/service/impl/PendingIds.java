@@ -0,0 +1,63 @@
+package com.media.sslmonitor.service.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Holds the key to id pairs a registry inserted in the current transaction
+ * until it commits. Other transactions cannot see those rows before then, so
+ * the ids are only handed to the registry's shared map after the commit and
+ * are dropped on rollback; the transaction itself keeps reading them from here.
+ * Outside a transaction they are published at once.
+ */
+final class PendingIds {
+
+    private final Consumer<Map<String, Long>> publisher;
+
+    PendingIds(Consumer<Map<String, Long>> publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Ids inserted by the current transaction and not published yet.
+     */
+    Map<String, Long> get() {
+        final Map<String, Long> pending = bound();
+        return pending != null ? Collections.unmodifiableMap(pending) : Map.of();
+    }
+
+    void publishOnCommit(Map<String, Long> inserted) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publisher.accept(inserted);
+            return;
+        }
+        Map<String, Long> pending = bound();
+        if (pending == null) {
+            final Map<String, Long> created = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publisher.accept(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PendingIds.this);
+                }
+            });
+            pending = created;
+        }
+        pending.putAll(inserted);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> bound() {
+        return (Map<String, Long>) TransactionSynchronizationManager.getResource(this);
+    }
+}
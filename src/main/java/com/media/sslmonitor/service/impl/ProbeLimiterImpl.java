@@ -0,0 +1,215 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.HostResolver;
+import com.media.sslmonitor.service.ProbeLimiter;
+import com.media.sslmonitor.util.DomainNameUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-IP and per-registrable-domain probe limits. Each key has its own slot in a
+ * {@link ConcurrentHashMap}, so updates for different hosts do not contend, and
+ * probes over a limit wait in that key's FIFO queue without holding a thread.
+ * A released permit is handed straight to the next waiter. The host is resolved
+ * once, here or by the planner, and the address handed to the probe with the permit.
+ *
+ * <p>A probe never holds one key while queued for the other: it waits for the IP,
+ * then takes the domain only if it is free, and otherwise gives the IP back and
+ * waits for the domain instead, and so on. So a busy address does not hold up
+ * other hosts of its domain, nor a busy domain other hosts on its address, and
+ * two probes cannot deadlock each other.
+ */
+@Service
+@Slf4j
+public class ProbeLimiterImpl implements ProbeLimiter {
+
+    private static final Permit NO_LIMIT = () -> { };
+
+    private final SslCheckProperties.Limits config;
+    private final ConcurrentHashMap<String, KeyState> keys = new ConcurrentHashMap<>();
+    private final HostResolver hostResolver;
+    private final CheckMetrics metrics;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter ipWaits;
+    private final Counter domainWaits;
+    private final Timer ipWaitTime;
+    private final Timer domainWaitTime;
+
+    public ProbeLimiterImpl(SslCheckProperties properties, HostResolver hostResolver, CheckMetrics metrics,
+                            MeterRegistry meterRegistry) {
+        this.config = properties.getLimits();
+        this.hostResolver = hostResolver;
+        this.metrics = metrics;
+        this.ipWaits = limitWaits(meterRegistry, "ip");
+        this.domainWaits = limitWaits(meterRegistry, "domain");
+        this.ipWaitTime = limitWaitTime(meterRegistry, "ip");
+        this.domainWaitTime = limitWaitTime(meterRegistry, "domain");
+        meterRegistry.gauge("ssl.check.limit.waiting", waiting);
+    }
+
+    @Override
+    public CompletableFuture<Permit> acquire(String domain, CompletableFuture<InetAddress> address) {
+        if (!config.isEnabled()) {
+            return address == null ? CompletableFuture.completedFuture(NO_LIMIT)
+                    : address.thenApply(resolved -> releasing(resolved, List.of()));
+        }
+        final String host = DomainNameUtils.host(DomainNameUtils.normalize(domain));
+        final Limit domainLimit = new Limit("domain:" + DomainNameUtils.registrableDomain(host),
+                config.getMaxPerDomain(), domainWaits, domainWaitTime);
+
+        final CompletableFuture<Permit> permit = new CompletableFuture<>();
+        final long startTime = System.nanoTime();
+        final CompletableFuture<InetAddress> resolved = address != null ? address : hostResolver.resolve(host);
+        permit.whenComplete((granted, ex) -> {
+            if (permit.isCancelled()) {
+                resolved.cancel(false);
+            }
+        });
+        resolved.whenComplete((hostAddress, ex) -> {
+            if (ex != null) {
+                permit.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex);
+                return;
+            }
+            metrics.record(CheckMetrics.Stage.DNS, System.nanoTime() - startTime);
+            final Limit ipLimit = new Limit("ip:" + hostAddress.getHostAddress(), config.getMaxPerIp(), ipWaits,
+                    ipWaitTime);
+            acquireBoth(ipLimit, domainLimit, () -> grant(permit, hostAddress, List.of(ipLimit, domainLimit)));
+        });
+        return permit;
+    }
+
+    /**
+     * Waits for the first limit, then takes the second only if it is free right
+     * away. Otherwise the first is handed on and the probe waits for the second,
+     * with the roles swapped.
+     */
+    private void acquireBoth(Limit first, Limit second, Runnable onAcquired) {
+        acquire(first, () -> {
+            if (tryAcquire(second)) {
+                onAcquired.run();
+            } else {
+                release(first.key());
+                acquireBoth(second, first, onAcquired);
+            }
+        });
+    }
+
+    private boolean tryAcquire(Limit limit) {
+        final AtomicBoolean acquired = new AtomicBoolean();
+        keys.compute(limit.key(), (key, state) -> {
+            final KeyState current = state != null ? state : new KeyState();
+            if (current.active < limit.max()) {
+                current.active++;
+                acquired.set(true);
+            }
+            return current.active == 0 ? null : current;
+        });
+        return acquired.get();
+    }
+
+    private void acquire(Limit limit, Runnable onAcquired) {
+        final long queuedAt = System.nanoTime();
+        final AtomicBoolean acquired = new AtomicBoolean();
+        keys.compute(limit.key(), (key, state) -> {
+            final KeyState current = state != null ? state : new KeyState();
+            if (current.active < limit.max()) {
+                current.active++;
+                acquired.set(true);
+            } else {
+                current.waiters.add(() -> {
+                    waiting.decrementAndGet();
+                    limit.waitTime().record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                    onAcquired.run();
+                });
+            }
+            return current;
+        });
+        if (acquired.get()) {
+            onAcquired.run();
+        } else {
+            waiting.incrementAndGet();
+            limit.waits().increment();
+            log.debug("Probe waiting for {}", limit.key());
+        }
+    }
+
+    private void release(String key) {
+        final Runnable[] next = new Runnable[1];
+        keys.computeIfPresent(key, (k, state) -> {
+            next[0] = state.waiters.poll();
+            if (next[0] != null) {
+                // The permit passes to the next waiter
+                return state;
+            }
+            state.active--;
+            return state.active == 0 ? null : state;
+        });
+        if (next[0] != null) {
+            next[0].run();
+        }
+    }
+
+    private void grant(CompletableFuture<Permit> permit, InetAddress address, List<Limit> held) {
+        final Permit granted = releasing(address, held);
+        if (!permit.complete(granted)) {
+            // The caller gave up waiting
+            granted.release();
+        }
+    }
+
+    private Permit releasing(InetAddress address, List<Limit> held) {
+        final AtomicBoolean released = new AtomicBoolean();
+        return new Permit() {
+            @Override
+            public void release() {
+                if (released.compareAndSet(false, true)) {
+                    held.forEach(limit -> ProbeLimiterImpl.this.release(limit.key()));
+                }
+            }
+
+            @Override
+            public InetAddress address() {
+                return address;
+            }
+        };
+    }
+
+    private static Counter limitWaits(MeterRegistry meterRegistry, String limit) {
+        return Counter.builder("ssl.check.limit.waits")
+                .description("Probes that had to wait for a concurrency limit")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    private static Timer limitWaitTime(MeterRegistry meterRegistry, String limit) {
+        return Timer.builder("ssl.check.limit.wait")
+                .description("Time probes spent waiting for a concurrency limit")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    private record Limit(String key, int max, Counter waits, Timer waitTime) {
+    }
+
+    private static final class KeyState {
+        private int active;
+        private final Queue<Runnable> waiters = new ArrayDeque<>();
+    }
+}
@@ -0,0 +1,122 @@
+package com.media.sslmonitor.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Interner;
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.service.HostResolver;
+import com.media.sslmonitor.service.ProbePlanner;
+import com.media.sslmonitor.util.DomainNameUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Groups a batch by the certificate each name returned to its own SNI and by
+ * the address it resolves to. A name is only grouped while its own handshake is
+ * recent, so one that moved to another certificate on the same address is found
+ * within the verify interval. Only names that could be grouped are resolved
+ * here, without waiting for the lookups; their probes reuse the addresses.
+ */
+@Service
+@Slf4j
+public class ProbePlannerImpl implements ProbePlanner {
+
+    // Names sharing a certificate hold one fingerprint string between them
+    private static final Interner<String> FINGERPRINTS = Interner.newWeakInterner();
+
+    private final boolean enabled;
+    private final HostResolver hostResolver;
+    private final Cache<String, String> verified;
+
+    public ProbePlannerImpl(SslCheckProperties properties, HostResolver hostResolver) {
+        final SslCheckProperties.ProbeSharing config = properties.getProbeSharing();
+        this.enabled = config.isEnabled();
+        this.hostResolver = hostResolver;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(config.getMaxVerifiedDomains())
+                .expireAfterWrite(config.getVerifyInterval())
+                .build();
+    }
+
+    @Override
+    public Plan plan(Collection<String> domains) {
+        if (!enabled || domains.size() < 2) {
+            return Plan.NONE;
+        }
+        final Map<Candidate, List<String>> candidates = new LinkedHashMap<>();
+        for (String domain : domains) {
+            final String fingerprint = verified.getIfPresent(domain);
+            if (fingerprint != null) {
+                candidates.computeIfAbsent(new Candidate(fingerprint, DomainNameUtils.port(domain)),
+                        key -> new ArrayList<>()).add(domain);
+            }
+        }
+        candidates.values().removeIf(names -> names.size() < 2);
+        if (candidates.isEmpty()) {
+            return Plan.NONE;
+        }
+
+        final Map<String, CompletableFuture<InetAddress>> addresses = new HashMap<>();
+        candidates.values().forEach(names -> names.forEach(name ->
+                addresses.put(name, hostResolver.resolve(DomainNameUtils.host(name)))));
+        final CompletableFuture<Map<String, Plan.Group>> followers = CompletableFuture.allOf(addresses.values().stream()
+                        .map(address -> address.handle((resolved, ex) -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenApply(done -> group(candidates, addresses, domains.size()));
+        return new Plan(addresses, followers);
+    }
+
+    private static Map<String, Plan.Group> group(Map<Candidate, List<String>> candidates,
+                                                 Map<String, CompletableFuture<InetAddress>> addresses, int batchSize) {
+        final Map<String, Plan.Group> followers = new HashMap<>();
+        candidates.forEach((candidate, names) -> {
+            final Map<InetAddress, String> leaders = new HashMap<>();
+            for (String name : names) {
+                final InetAddress address = resolved(addresses.get(name));
+                if (address == null) {
+                    continue;
+                }
+                final String leader = leaders.putIfAbsent(address, name);
+                if (leader != null) {
+                    followers.put(name, new Plan.Group(leader, candidate.fingerprint()));
+                }
+            }
+        });
+        log.debug("{} of {} domains follow another name's handshake", followers.size(), batchSize);
+        return followers;
+    }
+
+    @Override
+    public void recordHandshake(CertificateInfo result) {
+        final String domain = DomainNameUtils.normalize(result.getDomain());
+        if (result.isValid() && result.getFingerprint() != null) {
+            verified.put(domain, FINGERPRINTS.intern(result.getFingerprint()));
+        } else {
+            verified.invalidate(domain);
+        }
+    }
+
+    private static InetAddress resolved(CompletableFuture<InetAddress> address) {
+        try {
+            return address.join();
+        } catch (CompletionException | CancellationException e) {
+            // The name is probed on its own and reports the lookup failure there
+            return null;
+        }
+    }
+
+    private record Candidate(String fingerprint, int port) {
+    }
+}
@@ -0,0 +1,332 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.service.DomainService;
+import com.media.sslmonitor.service.RescanScheduler;
+import com.media.sslmonitor.service.ScanPartitionLeases;
+import com.media.sslmonitor.util.ExpiryUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rescans every domain in the domains table without an external trigger. Domains
+ * sit in a queue ordered by their next check time; once a second the due ones,
+ * at most probes-per-second of them, are handed to {@link DomainService} so
+ * caching, coalescing and persistence work as for API requests. The next check
+ * time follows the certificate's days until expiry, and failing domains back off.
+ * When partitioned, only domains in partitions this instance holds a
+ * {@link ScanPartitionLeases lease} on are scheduled; domains of partitions it
+ * loses are dropped and new partitions are loaded as the leases change.
+ */
+@Service
+@ConditionalOnProperty(prefix = "ssl.check.scheduler", name = "enabled", havingValue = "true")
+@Slf4j
+public class RescanSchedulerImpl implements RescanScheduler, DisposableBean {
+
+    private static final String SELECT_DOMAINS = """
+            SELECT d.id, d.domain_name, s.check_time, s.is_valid, s.expiry_date
+            FROM domains d
+            LEFT JOIN domain_status s ON s.domain_id = d.id
+            """;
+
+    private static final String SELECT_PARTITIONS = SELECT_DOMAINS + "WHERE MOD(d.id, ?) = ANY(?)";
+
+    private final SslCheckProperties.Scheduler config;
+    private final SslCheckProperties.Thresholds thresholds;
+    private final DomainService domainService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ScanPartitionLeases leases;
+    private final Clock clock;
+
+    // Guarded by this; domains being checked are in the map but not in the queue
+    private final Map<String, ScheduledDomain> domains = new HashMap<>();
+    private final PriorityQueue<ScheduledDomain> queue =
+            new PriorityQueue<>(Comparator.comparing(ScheduledDomain::getNextCheck));
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile Set<Integer> partitions = Set.of();
+    private ScheduledExecutorService timer;
+
+    @Autowired
+    public RescanSchedulerImpl(SslCheckProperties properties, DomainService domainService, JdbcTemplate jdbcTemplate,
+                               Optional<ScanPartitionLeases> leases) {
+        this(properties, domainService, jdbcTemplate, leases.orElse(null), Clock.systemDefaultZone());
+    }
+
+    public RescanSchedulerImpl(SslCheckProperties properties, DomainService domainService, JdbcTemplate jdbcTemplate,
+                               Clock clock) {
+        this(properties, domainService, jdbcTemplate, null, clock);
+    }
+
+    public RescanSchedulerImpl(SslCheckProperties properties, DomainService domainService, JdbcTemplate jdbcTemplate,
+                               ScanPartitionLeases leases, Clock clock) {
+        this.config = properties.getScheduler();
+        this.thresholds = properties.getThresholds();
+        this.domainService = domainService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.leases = leases;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (leases != null) {
+            renewLeases();
+        } else {
+            loadDomains();
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SSLCheck-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(() -> runSafely(this::dispatch), 1, 1, TimeUnit.SECONDS);
+        final long reloadMs = config.getReloadInterval().toMillis();
+        timer.scheduleWithFixedDelay(() -> runSafely(this::loadDomains), reloadMs, reloadMs, TimeUnit.MILLISECONDS);
+        if (leases != null) {
+            final long renewMs = Math.max(config.getLeaseDuration().toMillis() / 3, 1);
+            timer.scheduleWithFixedDelay(() -> runSafely(this::renewLeases), renewMs, renewMs, TimeUnit.MILLISECONDS);
+        }
+        log.info("Rescan scheduler started at {} probes per second", config.getProbesPerSecond());
+    }
+
+    /**
+     * Adds domains that are not scheduled yet, due according to their last stored check.
+     */
+    public void loadDomains() {
+        final List<ScheduledDomain> loaded = new ArrayList<>();
+        final RowCallbackHandler handler = rs -> {
+            loaded.add(initialSchedule(rs.getLong("id"), rs.getString("domain_name"), rs.getTimestamp("check_time"),
+                    rs.getBoolean("is_valid"), rs.getTimestamp("expiry_date")));
+        };
+        if (leases == null) {
+            jdbcTemplate.query(SELECT_DOMAINS, handler);
+        } else {
+            final Set<Integer> owned = partitions;
+            if (owned.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_PARTITIONS);
+                ps.setInt(1, leases.partitions());
+                ps.setArray(2, con.createArrayOf("integer", owned.toArray()));
+                return ps;
+            }, handler);
+        }
+
+        int added = 0;
+        synchronized (this) {
+            for (ScheduledDomain domain : loaded) {
+                if (!owns(domain)) {
+                    // Lost while loading
+                    continue;
+                }
+                if (domains.putIfAbsent(domain.getName(), domain) == null) {
+                    domain.queued = true;
+                    queue.add(domain);
+                    added++;
+                }
+            }
+        }
+        if (added > 0) {
+            log.info("Scheduled {} new domains for rescan, {} in total", added, size());
+        }
+    }
+
+    /**
+     * Renews the partition leases. Domains of partitions given up or lost are
+     * dropped, and domains of newly held partitions are loaded.
+     */
+    public void renewLeases() {
+        final Set<Integer> renewed = leases.renew();
+        if (renewed.equals(partitions)) {
+            return;
+        }
+        final boolean gained = !partitions.containsAll(renewed);
+        partitions = renewed;
+        final int dropped;
+        synchronized (this) {
+            final int before = domains.size();
+            domains.values().removeIf(domain -> !owns(domain));
+            queue.removeIf(domain -> !owns(domain));
+            dropped = before - domains.size();
+        }
+        if (dropped > 0) {
+            log.info("Dropped {} domains of scan partitions no longer held", dropped);
+        }
+        if (gained) {
+            loadDomains();
+        }
+    }
+
+    /**
+     * Starts checks for due domains within the per-second budget. Returns the number started.
+     */
+    public int dispatch() {
+        final int budget = Math.min(config.getProbesPerSecond(), config.getMaxInFlight() - inFlight.get());
+        final Instant now = clock.instant();
+        final List<ScheduledDomain> due = new ArrayList<>();
+        synchronized (this) {
+            while (due.size() < budget && !queue.isEmpty() && !queue.peek().getNextCheck().isAfter(now)) {
+                final ScheduledDomain next = queue.poll();
+                next.queued = false;
+                due.add(next);
+            }
+        }
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        inFlight.addAndGet(due.size());
+        final DomainCheckRequest request = new DomainCheckRequest(
+                due.stream().map(ScheduledDomain::getName).toList(), false, null);
+        try {
+            domainService.checkDomainsAsync(request).whenComplete((responses, ex) -> {
+                if (ex != null) {
+                    log.warn("Scheduled check of {} domains failed: {}", due.size(), ex.getMessage());
+                }
+                for (int i = 0; i < due.size(); i++) {
+                    reschedule(due.get(i), ex == null ? responses.get(i) : null);
+                }
+                inFlight.addAndGet(-due.size());
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not start scheduled check of {} domains: {}", due.size(), e.getMessage());
+            due.forEach(domain -> reschedule(domain, null));
+            inFlight.addAndGet(-due.size());
+        }
+        return due.size();
+    }
+
+    @Override
+    public synchronized Optional<Instant> nextCheck(String domainName) {
+        final ScheduledDomain domain = domains.get(domainName);
+        return domain != null && domain.queued ? Optional.of(domain.getNextCheck()) : Optional.empty();
+    }
+
+    @Override
+    public synchronized int size() {
+        return domains.size();
+    }
+
+    @Override
+    public void destroy() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        if (leases != null) {
+            leases.release();
+        }
+    }
+
+    private ScheduledDomain initialSchedule(long id, String name, Timestamp checkTime, boolean valid,
+                                            Timestamp expiryDate) {
+        final int partition = leases != null ? (int) (id % leases.partitions()) : 0;
+        if (checkTime == null) {
+            return new ScheduledDomain(name, partition, clock.instant(), 0);
+        }
+        final Instant lastCheck = checkTime.toInstant();
+        if (!valid || expiryDate == null) {
+            return new ScheduledDomain(name, partition, lastCheck.plus(errorBackoff(1)), 1);
+        }
+        final long days = ExpiryUtils.daysUntilExpiry(LocalDateTime.now(clock), expiryDate.toLocalDateTime());
+        return new ScheduledDomain(name, partition, lastCheck.plus(interval(days)), 0);
+    }
+
+    private boolean owns(ScheduledDomain domain) {
+        return leases == null || partitions.contains(domain.getPartition());
+    }
+
+    private void reschedule(ScheduledDomain domain, DomainCheckResponse response) {
+        final Duration delay;
+        if (response == null || !response.isValid() || response.getDaysUntilExpiry() == null) {
+            domain.failures++;
+            delay = errorBackoff(domain.failures);
+        } else {
+            domain.failures = 0;
+            delay = interval(response.getDaysUntilExpiry());
+        }
+        domain.nextCheck = clock.instant().plus(withJitter(delay));
+        synchronized (this) {
+            if (domains.get(domain.getName()) != domain) {
+                // Its partition was given up while it was being checked
+                return;
+            }
+            domain.queued = true;
+            queue.add(domain);
+        }
+    }
+
+    private Duration interval(long daysUntilExpiry) {
+        if (daysUntilExpiry <= thresholds.getCritical()) return config.getCriticalInterval();
+        if (daysUntilExpiry <= thresholds.getWarning()) return config.getWarningInterval();
+        if (daysUntilExpiry <= thresholds.getInfo()) return config.getInfoInterval();
+        return config.getOkInterval();
+    }
+
+    private Duration errorBackoff(int failures) {
+        final Duration backoff = config.getErrorBackoff().multipliedBy(1L << Math.min(failures - 1, 20));
+        return backoff.compareTo(config.getMaxErrorBackoff()) < 0 ? backoff : config.getMaxErrorBackoff();
+    }
+
+    private Duration withJitter(Duration delay) {
+        if (config.getJitter() <= 0) {
+            return delay;
+        }
+        final double factor = 1 + config.getJitter() * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis((long) (delay.toMillis() * factor));
+    }
+
+    private void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("Rescan scheduler task failed", e);
+        }
+    }
+
+    @Getter
+    private static final class ScheduledDomain {
+        private final String name;
+        private final int partition;
+        private Instant nextCheck;
+        private int failures;
+        private boolean queued;
+
+        ScheduledDomain(String name, int partition, Instant nextCheck, int failures) {
+            this.name = name;
+            this.partition = partition;
+            this.nextCheck = nextCheck;
+            this.failures = failures;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.dto.CheckSummary;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.service.CheckResultQueue;
+import com.media.sslmonitor.service.ProbePlanner;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Hands the results of a request's lookups to a listener in the order they
+ * finish, on the calling thread, and reports the ones still missing at the
+ * deadline as timed out. Probed results are handed to the write-behind queue
+ * in chunks as they arrive, so memory does not grow with the batch, and they
+ * are saved even after the listener fails.
+ */
+@Slf4j
+final class ResultStreamer {
+
+    private static final int SAVE_CHUNK = 50;
+
+    private final CheckResultQueue checkResultQueue;
+    private final SslCheckProperties properties;
+
+    ResultStreamer(CheckResultQueue checkResultQueue, SslCheckProperties properties) {
+        this.checkResultQueue = checkResultQueue;
+        this.properties = properties;
+    }
+
+    CheckSummary stream(DomainCheckRequest request, Deadline deadline, ProbePlanner.Plan plan,
+                        List<SharedLookups.Lookup> lookups, ObjIntConsumer<DomainCheckResponse> listener) {
+        final BlockingQueue<StreamedResult> completed = new LinkedBlockingQueue<>();
+        for (int i = 0; i < lookups.size(); i++) {
+            final int index = i;
+            final SharedLookups.Lookup lookup = lookups.get(i);
+            lookup.result().whenComplete((info, ex) -> completed.add(new StreamedResult(index,
+                    ex == null ? info : CertificateInfo.failed(lookup.domain(), ex.getMessage()),
+                    lookup.owned())));
+        }
+        final int total = lookups.size();
+        final boolean[] streamed = new boolean[total];
+
+        final List<CertificateInfo> unsaved = new ArrayList<>(SAVE_CHUNK);
+        boolean listening = true;
+        int valid = 0;
+        int probed = 0;
+        int timedOut = 0;
+        try {
+            for (int i = 0; i < total; i++) {
+                final StreamedResult result = deadline.isSet()
+                        ? completed.poll(deadline.remainingNanos(), TimeUnit.NANOSECONDS)
+                        : completed.take();
+                if (result == null) {
+                    break;
+                }
+                streamed[result.index()] = true;
+                if (result.info().isValid()) {
+                    valid++;
+                }
+                if (result.owned()) {
+                    probed++;
+                    unsaved.add(result.info());
+                    if (unsaved.size() >= SAVE_CHUNK) {
+                        checkResultQueue.enqueue(List.copyOf(unsaved));
+                        unsaved.clear();
+                    }
+                }
+                listening = listening && emit(listener, DomainCheckResponse.fromCertificateInfo(result.info(),
+                        properties.getThresholds()), result.index());
+            }
+            for (int i = 0; i < total; i++) {
+                if (!streamed[i]) {
+                    timedOut++;
+                    lookups.get(i).abandon();
+                    listening = listening && emit(listener, DomainCheckResponse.timedOut(
+                            lookups.get(i).domain(), request.getDeadlineMs()), i);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for check results", e);
+        } finally {
+            checkResultQueue.enqueue(unsaved);
+        }
+
+        return CheckSummary.builder()
+                .total(total)
+                .valid(valid)
+                .failed(total - valid)
+                .timedOut(timedOut)
+                .probed(probed)
+                .handshakesSaved(plan.shared())
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - deadline.startNanos()))
+                .build();
+    }
+
+    private static boolean emit(ObjIntConsumer<DomainCheckResponse> listener, DomainCheckResponse response, int index) {
+        try {
+            listener.accept(response, index);
+            return true;
+        } catch (RuntimeException e) {
+            // The client went away; keep draining so every probed result is still saved
+            log.warn("Stopped streaming results: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private record StreamedResult(int index, CertificateInfo info, boolean owned) {
+    }
+}
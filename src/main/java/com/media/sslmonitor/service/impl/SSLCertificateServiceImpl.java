@@ -1,62 +1,81 @@
 package com.media.sslmonitor.service.impl;
 
+import com.media.sslmonitor.config.SslCheckProperties;
 import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.HostResolver;
 import com.media.sslmonitor.service.SSLCertificateService;
+import com.media.sslmonitor.util.DomainNameUtils;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import javax.net.ssl.*;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
 import java.net.URI;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
+@ConditionalOnProperty(prefix = "ssl.check", name = "prober", havingValue = "jdk", matchIfMissing = true)
+@RequiredArgsConstructor
 @Slf4j
 public class SSLCertificateServiceImpl implements SSLCertificateService {
 
+    private final SslCheckProperties properties;
+    private final HostResolver hostResolver;
+    private final CheckMetrics metrics;
+
     @Override
     public CertificateInfo checkCertificate(String domain) {
+        return checkCertificate(domain, null);
+    }
+
+    @Override
+    public CertificateInfo checkCertificate(String domain, InetAddress address) {
         log.info("Checking SSL certificate for domain: {}", domain);
 
         try {
-            final String cleanDomain = domain.replaceAll("^https?://", "").replaceAll("/.*$", "");
+            final String cleanDomain = DomainNameUtils.normalize(domain);
+
+            // Resolving up front bounds and times DNS on its own; the connection then hits the JVM address cache,
+            // which a lookup by the caller has filled as well
+            if (address == null) {
+                final long startTime = System.nanoTime();
+                resolve(DomainNameUtils.host(cleanDomain));
+                metrics.record(CheckMetrics.Stage.DNS, System.nanoTime() - startTime);
+            }
+            final long resolvedAt = System.nanoTime();
 
             final URI uri = URI.create("https://" + cleanDomain);
             final HttpsURLConnection connection = (HttpsURLConnection) uri.toURL().openConnection();
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
+            final LayeringSocketFactory socketFactory =
+                    new LayeringSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory());
+            connection.setSSLSocketFactory(socketFactory);
+            final SslCheckProperties.Timeouts timeouts = properties.getTimeouts();
+            connection.setConnectTimeout((int) timeouts.getConnect().toMillis());
+            connection.setReadTimeout((int) timeouts.getHandshake().toMillis());
             connection.connect();
+            final long handshakeDoneAt = System.nanoTime();
+            if (socketFactory.layeredAt != 0) {
+                metrics.record(CheckMetrics.Stage.CONNECT, socketFactory.layeredAt - resolvedAt);
+                metrics.record(CheckMetrics.Stage.HANDSHAKE, handshakeDoneAt - socketFactory.layeredAt);
+            }
 
             final Certificate[] certificates = connection.getServerCertificates();
             final X509Certificate cert = (X509Certificate) certificates[0];
 
-            final LocalDateTime expiryDate = LocalDateTime.ofInstant(
-                    cert.getNotAfter().toInstant(),
-                    ZoneId.systemDefault()
-            );
-
-            final long daysUntilExpiry = ChronoUnit.DAYS.between(
-                    LocalDateTime.now(),
-                    expiryDate
-            );
-
-            final CertificateInfo info = CertificateInfo.builder()
-                    .domain(cleanDomain)
-                    .isValid(true)
-                    .expiryDate(expiryDate)
-                    .issuer(cert.getIssuerX500Principal().getName())
-                    .subject(cert.getSubjectX500Principal().getName())
-                    .daysUntilExpiry((int) daysUntilExpiry)
-                    .checkTime(LocalDateTime.now())
-                    .build();
+            final CertificateInfo info = CertificateInfo.fromCertificate(cleanDomain, cert);
+            metrics.record(CheckMetrics.Stage.PARSE, System.nanoTime() - handshakeDoneAt);
 
             log.info("Certificate check completed for {}: {} days until expiry",
-                    cleanDomain, daysUntilExpiry);
+                    cleanDomain, info.getDaysUntilExpiry());
 
             connection.disconnect();
             return info;
@@ -64,12 +83,15 @@ public class SSLCertificateServiceImpl implements SSLCertificateService {
         } catch (Exception e) {
             log.error("Error checking certificate for domain {}: {}", domain, e.getMessage());
 
-            return CertificateInfo.builder()
-                    .domain(domain)
-                    .isValid(false)
-                    .errorMessage(e.getMessage())
-                    .checkTime(LocalDateTime.now())
-                    .build();
+            return CertificateInfo.failed(domain, e.getMessage());
+        }
+    }
+
+    private void resolve(String host) throws Exception {
+        try {
+            hostResolver.resolve(host).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
         }
     }
 
@@ -82,4 +104,63 @@ public class SSLCertificateServiceImpl implements SSLCertificateService {
         final CertificateInfo result = checkCertificate(domain);
         return CompletableFuture.completedFuture(result);
     }
-}
\ No newline at end of file
+
+    @Override
+    @Async("sslCheckExecutor")
+    public CompletableFuture<CertificateInfo> checkCertificateAsync(String domain, InetAddress address) {
+        return CompletableFuture.completedFuture(checkCertificate(domain, address));
+    }
+
+    /**
+     * Lets HttpsURLConnection open a plain socket and layer TLS on top of it, so
+     * the moment the TCP connect finished and the handshake started is known.
+     * Unconnected sockets are deliberately not supported, which is what makes
+     * the connection fall back to layering.
+     */
+    private static final class LayeringSocketFactory extends SSLSocketFactory {
+
+        private final SSLSocketFactory delegate;
+        private long layeredAt;
+
+        LayeringSocketFactory(SSLSocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+            layeredAt = System.nanoTime();
+            return delegate.createSocket(socket, host, port, autoClose);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return delegate.createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+                throws IOException {
+            return delegate.createSocket(address, port, localAddress, localPort);
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return delegate.getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.service.ScanPartitionLeases;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Partition leases in the scan_leases table. Every instance sends a heartbeat
+ * to scan_nodes and aims for partitions / live instances partitions: it gives
+ * up partitions above that share and takes unowned or expired ones below it.
+ * Taking a lease is a conditional UPDATE, so two instances never win the same
+ * partition. Partitions of an instance that stops renewing expire after the
+ * lease duration and are taken over on the others' next renewal. Expiry is
+ * stamped and compared with the database clock, never an instance's own.
+ */
+@Service
+@ConditionalOnProperty(prefix = "ssl.check.scheduler", name = "partitioned", havingValue = "true")
+@Slf4j
+public class ScanPartitionLeasesImpl implements ScanPartitionLeases {
+
+    // Lease and heartbeat times come from the database clock, so clock skew between instances cannot make two
+    // of them hold one partition or make a live instance look stopped
+    private static final String EXPIRES_AT = "CURRENT_TIMESTAMP + CAST(? AS DOUBLE PRECISION) * INTERVAL '1' SECOND";
+
+    private static final String INSERT_PARTITION = """
+            INSERT INTO scan_leases (partition_id, owner, expires_at) VALUES (?, NULL, CURRENT_TIMESTAMP)
+            ON CONFLICT DO NOTHING
+            """;
+    private static final String RENEW_NODE = "UPDATE scan_nodes SET expires_at = " + EXPIRES_AT + " WHERE node_id = ?";
+    private static final String INSERT_NODE =
+            "INSERT INTO scan_nodes (node_id, expires_at) VALUES (?, " + EXPIRES_AT + ") ON CONFLICT DO NOTHING";
+    private static final String DELETE_EXPIRED_NODES = "DELETE FROM scan_nodes WHERE expires_at <= CURRENT_TIMESTAMP";
+    private static final String COUNT_LIVE_NODES = "SELECT COUNT(*) FROM scan_nodes WHERE expires_at > CURRENT_TIMESTAMP";
+    private static final String DELETE_NODE = "DELETE FROM scan_nodes WHERE node_id = ?";
+
+    private static final String RENEW_LEASES =
+            "UPDATE scan_leases SET expires_at = " + EXPIRES_AT + " WHERE owner = ? AND partition_id < ?";
+    private static final String SELECT_OWNED =
+            "SELECT partition_id FROM scan_leases WHERE owner = ? AND partition_id < ? ORDER BY partition_id";
+    private static final String SELECT_FREE = """
+            SELECT partition_id FROM scan_leases
+            WHERE (owner IS NULL OR expires_at <= CURRENT_TIMESTAMP) AND partition_id < ?
+            """;
+    private static final String TAKE = "UPDATE scan_leases SET owner = ?, expires_at = " + EXPIRES_AT
+            + " WHERE partition_id = ? AND (owner IS NULL OR expires_at <= CURRENT_TIMESTAMP)";
+    private static final String GIVE_UP = """
+            UPDATE scan_leases SET owner = NULL, expires_at = CURRENT_TIMESTAMP WHERE partition_id = ? AND owner = ?
+            """;
+    private static final String GIVE_UP_ALL =
+            "UPDATE scan_leases SET owner = NULL, expires_at = CURRENT_TIMESTAMP WHERE owner = ?";
+
+    private final int partitions;
+    private final Duration leaseDuration;
+    private final double leaseSeconds;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final String nodeId;
+
+    // Guarded by this
+    private boolean initialized;
+    private Set<Integer> held = Set.of();
+    private LocalDateTime heldUntil = LocalDateTime.MIN;
+
+    @Autowired
+    public ScanPartitionLeasesImpl(SslCheckProperties properties, JdbcTemplate jdbcTemplate) {
+        this(properties, jdbcTemplate, Clock.systemDefaultZone(), ManagementFactory.getRuntimeMXBean().getName());
+    }
+
+    public ScanPartitionLeasesImpl(SslCheckProperties properties, JdbcTemplate jdbcTemplate, Clock clock,
+                                   String nodeId) {
+        this.partitions = properties.getScheduler().getPartitions();
+        this.leaseDuration = properties.getScheduler().getLeaseDuration();
+        this.leaseSeconds = leaseDuration.toMillis() / 1000.0;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public int partitions() {
+        return partitions;
+    }
+
+    @Override
+    public synchronized Set<Integer> renew() {
+        // Only used to know locally when the leases run out; the database decides who holds what
+        final LocalDateTime now = LocalDateTime.now(clock);
+        try {
+            if (!initialized) {
+                jdbcTemplate.batchUpdate(INSERT_PARTITION, IntStream.range(0, partitions).boxed().toList(),
+                        partitions, (ps, partition) -> ps.setInt(1, partition));
+                initialized = true;
+            }
+            final int share = share();
+
+            jdbcTemplate.update(RENEW_LEASES, leaseSeconds, nodeId, partitions);
+            final List<Integer> owned = new ArrayList<>(
+                    jdbcTemplate.queryForList(SELECT_OWNED, Integer.class, nodeId, partitions));
+            while (owned.size() > share) {
+                jdbcTemplate.update(GIVE_UP, owned.removeLast(), nodeId);
+            }
+            if (owned.size() < share) {
+                final List<Integer> free = new ArrayList<>(
+                        jdbcTemplate.queryForList(SELECT_FREE, Integer.class, partitions));
+                // Instances joining at the same time try different partitions first
+                Collections.shuffle(free);
+                for (int i = 0; i < free.size() && owned.size() < share; i++) {
+                    if (jdbcTemplate.update(TAKE, nodeId, leaseSeconds, free.get(i)) == 1) {
+                        owned.add(free.get(i));
+                    }
+                }
+            }
+
+            final Set<Integer> renewed = Collections.unmodifiableSet(new TreeSet<>(owned));
+            if (!renewed.equals(held)) {
+                log.info("Holding {} of {} scan partitions (share {})", renewed.size(), partitions, share);
+            }
+            held = renewed;
+            // Measured from before the renewal, so this instance stops scanning no later than the database expires it
+            heldUntil = now.plus(leaseDuration);
+        } catch (DataAccessException e) {
+            log.warn("Could not renew scan partition leases: {}", e.getMessage());
+            // Others may take the partitions once the leases run out, so stop scanning them then
+            if (!now.isBefore(heldUntil)) {
+                held = Set.of();
+            }
+        }
+        return held;
+    }
+
+    @Override
+    public synchronized void release() {
+        try {
+            jdbcTemplate.update(GIVE_UP_ALL, nodeId);
+            jdbcTemplate.update(DELETE_NODE, nodeId);
+        } catch (DataAccessException e) {
+            log.warn("Could not release scan partition leases: {}", e.getMessage());
+        }
+        held = Set.of();
+    }
+
+    /**
+     * Sends this instance's heartbeat and returns its share of the partitions.
+     */
+    private int share() {
+        if (jdbcTemplate.update(RENEW_NODE, leaseSeconds, nodeId) == 0) {
+            jdbcTemplate.update(INSERT_NODE, nodeId, leaseSeconds);
+        }
+        jdbcTemplate.update(DELETE_EXPIRED_NODES);
+        final Long live = jdbcTemplate.queryForObject(COUNT_LIVE_NODES, Long.class);
+        final long nodes = Math.max(1, live == null ? 1 : live);
+        return (int) ((partitions + nodes - 1) / nodes);
+    }
+}
@@ -0,0 +1,236 @@
+package com.media.sslmonitor.service.impl;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.AlertLevel;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.CertificateResultCache;
+import com.media.sslmonitor.service.ProbePlanner;
+import com.media.sslmonitor.util.DomainNameUtils;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Turns the domains of a request into lookups that share work wherever they
+ * can: recent results come from the result cache, a domain already being
+ * probed for another request waits for that probe, and a domain the planner
+ * grouped behind another name of the batch is answered from that name's
+ * handshake. Only what is left is handed to the prober.
+ */
+final class SharedLookups {
+
+    /**
+     * Starts the probe of one domain, reusing the planner's lookup of its host when there is one.
+     */
+    @FunctionalInterface
+    interface Prober {
+        CompletableFuture<CertificateInfo> probe(String domain, CompletableFuture<InetAddress> address);
+    }
+
+    private final CertificateResultCache certificateResultCache;
+    private final ProbePlanner probePlanner;
+    private final CheckMetrics metrics;
+    private final SslCheckProperties properties;
+    private final ConcurrentMap<String, InFlightProbe> inFlight = new ConcurrentHashMap<>();
+
+    SharedLookups(CertificateResultCache certificateResultCache, ProbePlanner probePlanner, CheckMetrics metrics,
+                  SslCheckProperties properties) {
+        this.certificateResultCache = certificateResultCache;
+        this.probePlanner = probePlanner;
+        this.metrics = metrics;
+        this.properties = properties;
+    }
+
+    ProbePlanner.Plan plan(DomainCheckRequest request) {
+        final Set<String> keys = new LinkedHashSet<>();
+        for (String domain : request.getDomains()) {
+            keys.add(DomainNameUtils.normalize(domain));
+        }
+        return probePlanner.plan(keys);
+    }
+
+    /**
+     * One lookup per requested domain, in request order. Grouped domains start
+     * once the planner's lookups are done; every other probe starts right away.
+     */
+    List<Lookup> lookupAll(DomainCheckRequest request, Deadline deadline, ProbePlanner.Plan plan, Prober prober) {
+        // Read by the threads that finish the planner's lookups
+        final Map<String, Lookup> byDomain = new ConcurrentHashMap<>();
+        final List<Lookup> lookups = new ArrayList<>();
+        for (String domain : request.getDomains()) {
+            final String key = DomainNameUtils.normalize(domain);
+            final Lookup first = byDomain.get(key);
+            if (first != null) {
+                lookups.add(new Lookup(key, first.result(), false, null));
+                continue;
+            }
+            final CompletableFuture<String> leaderOf = plan.leaderOf(key);
+            final Supplier<CompletableFuture<CertificateInfo>> own = () -> prober.probe(domain, plan.addressOf(key));
+            final Lookup lookup = lookup(key, domain, request.isForceRefresh(), deadline,
+                    leaderOf.isDone() && leaderOf.join() == null ? own : () -> {
+                        // A leader comes earlier in the request, so it is already in byDomain
+                        final CompletableFuture<CertificateInfo> result = new CompletableFuture<>();
+                        leaderOf.thenAccept(leaderName -> {
+                            final Lookup leader = leaderName != null ? byDomain.get(leaderName) : null;
+                            relay(result, leader != null ? () -> follow(plan, leader, key, own) : own);
+                        });
+                        return result;
+                    });
+            byDomain.put(key, lookup);
+            lookups.add(lookup);
+        }
+        return lookups;
+    }
+
+    private Lookup lookup(String key, String domain, boolean forceRefresh, Deadline deadline,
+                          Supplier<CompletableFuture<CertificateInfo>> prober) {
+        if (!forceRefresh) {
+            final Optional<CertificateInfo> cached = certificateResultCache.get(domain);
+            if (cached.isPresent()) {
+                return new Lookup(key, CompletableFuture.completedFuture(cached.get()), false, null);
+            }
+        }
+        if (deadline.expired()) {
+            return new Lookup(key, new CompletableFuture<>(), false, null);
+        }
+
+        // A probe already in flight started after this request arrived, so it is fresh enough even for forceRefresh
+        final InFlightProbe pending = new InFlightProbe(key);
+        InFlightProbe running;
+        while ((running = inFlight.putIfAbsent(key, pending)) != null) {
+            if (running.join()) {
+                return new Lookup(key, running.result, false, running);
+            }
+            // Every waiter gave up on it and it is being removed
+            inFlight.remove(key, running);
+        }
+
+        CompletableFuture<CertificateInfo> probe;
+        try {
+            probe = prober.get();
+        } catch (RuntimeException e) {
+            probe = CompletableFuture.failedFuture(e);
+        }
+        pending.probe = probe;
+        probe.whenComplete((info, ex) -> {
+            if (ex == null) {
+                metrics.recordResult(info, AlertLevel.of(info.getDaysUntilExpiry(), properties.getThresholds()));
+                certificateResultCache.put(domain, info);
+            }
+            inFlight.remove(key, pending);
+            if (ex == null) {
+                pending.result.complete(info);
+            } else {
+                pending.result.completeExceptionally(ex);
+            }
+        });
+        return new Lookup(key, pending.result, true, pending);
+    }
+
+    /**
+     * Answers a grouped domain from its leader's result, or probes it on its own
+     * when that result does not hold the certificate the domain was last seen with.
+     */
+    private CompletableFuture<CertificateInfo> follow(ProbePlanner.Plan plan, Lookup leader, String key,
+                                                      Supplier<CompletableFuture<CertificateInfo>> own) {
+        final CompletableFuture<CertificateInfo> result = new CompletableFuture<>();
+        leader.result().whenComplete((leaderInfo, failure) -> {
+            final Optional<CertificateInfo> shared = failure == null ? plan.share(key, leaderInfo) : Optional.empty();
+            if (shared.isPresent()) {
+                metrics.recordSharedProbe();
+                result.complete(shared.get());
+                return;
+            }
+            relay(result, own);
+        });
+        return result;
+    }
+
+    /**
+     * Starts the probe unless the result is already done, and completes the result
+     * with it; cancelling the result cancels the probe.
+     */
+    private static void relay(CompletableFuture<CertificateInfo> result,
+                              Supplier<CompletableFuture<CertificateInfo>> start) {
+        if (result.isDone()) {
+            return;
+        }
+        final CompletableFuture<CertificateInfo> probe;
+        try {
+            probe = start.get();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        result.whenComplete((info, ex) -> {
+            if (result.isCancelled()) {
+                probe.cancel(true);
+            }
+        });
+        probe.whenComplete((info, ex) -> {
+            if (ex == null) {
+                result.complete(info);
+            } else {
+                result.completeExceptionally(ex);
+            }
+        });
+    }
+
+    /**
+     * Result for one requested domain. Only the lookup that started a probe owns
+     * it and saves it; cached results and duplicates attached to a probe that is
+     * already running are returned without being saved again. Lookups waiting on
+     * a probe hold a share of it and give it up when their deadline passes.
+     */
+    record Lookup(String domain, CompletableFuture<CertificateInfo> result, boolean owned, InFlightProbe probe) {
+
+        void abandon() {
+            if (probe != null && !result.isDone()) {
+                probe.abandon();
+            }
+        }
+    }
+
+    /**
+     * A probe shared by every request waiting for the same domain. It is
+     * cancelled once the last of them has given up on it, which frees its
+     * executor slot or selector registration.
+     */
+    final class InFlightProbe {
+
+        private final String key;
+        private final CompletableFuture<CertificateInfo> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger(1);
+        private volatile CompletableFuture<CertificateInfo> probe;
+
+        InFlightProbe(String key) {
+            this.key = key;
+        }
+
+        boolean join() {
+            return waiters.getAndUpdate(n -> n == 0 ? 0 : n + 1) > 0;
+        }
+
+        void abandon() {
+            if (waiters.decrementAndGet() == 0) {
+                inFlight.remove(key, this);
+                final CompletableFuture<CertificateInfo> running = probe;
+                if (running != null) {
+                    running.cancel(true);
+                }
+            }
+        }
+    }
+}
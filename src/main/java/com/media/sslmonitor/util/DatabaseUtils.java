@@ -0,0 +1,15 @@
+package com.media.sslmonitor.util;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public final class DatabaseUtils {
+
+    private DatabaseUtils() {
+    }
+
+    public static boolean isPostgres(JdbcTemplate jdbcTemplate) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                "PostgreSQL".equalsIgnoreCase(con.getMetaData().getDatabaseProductName())));
+    }
+}
@@ -0,0 +1,101 @@
+package com.media.sslmonitor.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.regex.Pattern;
+
+public final class DomainNameUtils {
+
+    public static final int DEFAULT_HTTPS_PORT = 443;
+
+    private static final Pattern SCHEME = Pattern.compile("^https?://");
+    private static final Pattern PATH = Pattern.compile("/.*$");
+    private static final Pattern IPV4 = Pattern.compile("^\\d{1,3}(\\.\\d{1,3}){3}$");
+    private static final Pattern HOST_AND_PORT = Pattern.compile(
+            "^([a-z0-9_]([a-z0-9_-]{0,61}[a-z0-9])?(\\.[a-z0-9_]([a-z0-9_-]{0,61}[a-z0-9])?)*|\\[[0-9a-f:.]+])(:\\d{1,5})?$");
+    private static final int MAX_HOST_LENGTH = 253;
+
+    private DomainNameUtils() {
+    }
+
+    /**
+     * Strips the scheme and any path, e.g. {@code https://example.com/login} becomes {@code example.com}.
+     * An explicit port ({@code example.com:8443}) is kept.
+     */
+    public static String normalize(String domain) {
+        return PATH.matcher(SCHEME.matcher(domain).replaceFirst("")).replaceFirst("");
+    }
+
+    /**
+     * Whether a normalized, lower-case name is a syntactically valid host name or
+     * bracketed IPv6 literal with an optional port.
+     */
+    public static boolean isValid(String cleanDomain) {
+        return !cleanDomain.isEmpty() && host(cleanDomain).length() <= MAX_HOST_LENGTH
+                && HOST_AND_PORT.matcher(cleanDomain).matches();
+    }
+
+    public static String host(String cleanDomain) {
+        if (cleanDomain.startsWith("[")) {
+            final int end = cleanDomain.indexOf(']');
+            return end > 0 ? cleanDomain.substring(1, end) : cleanDomain;
+        }
+        final int colon = cleanDomain.lastIndexOf(':');
+        return colon > 0 && cleanDomain.indexOf(':') == colon ? cleanDomain.substring(0, colon) : cleanDomain;
+    }
+
+    public static int port(String cleanDomain) {
+        final int colon = cleanDomain.lastIndexOf(':');
+        final boolean bracketed = cleanDomain.startsWith("[");
+        if (colon < 0 || (bracketed && colon < cleanDomain.indexOf(']'))
+                || (!bracketed && cleanDomain.indexOf(':') != colon)) {
+            return DEFAULT_HTTPS_PORT;
+        }
+        try {
+            return Integer.parseInt(cleanDomain.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port in domain: " + cleanDomain);
+        }
+    }
+
+    /**
+     * Whether a certificate with these DNS names is valid for the host: an exact match,
+     * or a wildcard such as {@code *.example.com} standing for exactly one leftmost label.
+     * Case is ignored.
+     */
+    public static boolean coveredBy(String host, Collection<String> certificateNames) {
+        if (certificateNames == null) {
+            return false;
+        }
+        final int dot = host.indexOf('.');
+        for (String name : certificateNames) {
+            if (name.equalsIgnoreCase(host)) {
+                return true;
+            }
+            if (name.startsWith("*.") && dot > 0 && host.length() - dot == name.length() - 1
+                    && host.regionMatches(true, dot, name, 1, name.length() - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Best-effort registrable domain of a host without a public suffix list: the last two
+     * labels, or three when the host ends in a two-letter country code with a short
+     * second level such as {@code co.uk} or {@code com.au}. IP literals are returned as is.
+     */
+    public static String registrableDomain(String host) {
+        if (host.indexOf(':') >= 0 || IPV4.matcher(host).matches()) {
+            return host;
+        }
+        final String[] labels = host.toLowerCase().split("\\.");
+        if (labels.length <= 2) {
+            return host.toLowerCase();
+        }
+        final String tld = labels[labels.length - 1];
+        final String secondLevel = labels[labels.length - 2];
+        final int keep = tld.length() == 2 && secondLevel.length() <= 3 ? 3 : 2;
+        return String.join(".", Arrays.copyOfRange(labels, Math.max(0, labels.length - keep), labels.length));
+    }
+}
@@ -0,0 +1,28 @@
+package com.media.sslmonitor.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public final class ExpiryUtils {
+
+    private ExpiryUtils() {
+    }
+
+    /**
+     * Calendar days from now to the expiry date: 0 on the day the certificate
+     * expires, negative once that day has passed. Responses, alert levels and the
+     * expiry index all count this way, so a certificate changes level at midnight
+     * rather than at the time of day it expires.
+     */
+    public static int daysUntilExpiry(LocalDateTime now, LocalDateTime expiryDate) {
+        return daysUntilExpiry(now.toLocalDate().toEpochDay(), expiryDate.toLocalDate().toEpochDay());
+    }
+
+    public static int daysUntilExpiry(LocalDate today, LocalDate expiryDay) {
+        return daysUntilExpiry(today.toEpochDay(), expiryDay.toEpochDay());
+    }
+
+    public static int daysUntilExpiry(long todayEpochDay, long expiryEpochDay) {
+        return (int) Math.clamp(expiryEpochDay - todayEpochDay, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+}
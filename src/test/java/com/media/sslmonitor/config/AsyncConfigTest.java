@@ -0,0 +1,53 @@
+package com.media.sslmonitor.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncConfigTest {
+
+    @Test
+    void platformThreadExecutor_WhenSaturated_ShouldReportActiveQueuedAndRejectTask() throws Exception {
+        SslCheckProperties.Executor config = new SslCheckProperties.Executor();
+        config.setCorePoolSize(1);
+        config.setMaxPoolSize(1);
+        config.setQueueCapacity(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ThreadPoolTaskExecutor executor = AsyncConfig.platformThreadExecutor(config, registry);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+        try {
+            executor.execute(() -> {
+                running.countDown();
+                await(release);
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            executor.execute(() -> await(release));
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> ran.set(true)));
+
+            assertEquals(1.0, registry.get("ssl.check.executor.active").gauge().value());
+            assertEquals(1.0, registry.get("ssl.check.executor.queued").gauge().value());
+            assertEquals(1.0, registry.get("ssl.check.executor.rejected").counter().count());
+            assertFalse(ran.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.media.sslmonitor.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Wall-clock comparison of the two sslCheckExecutor modes for a batch of
+ * I/O-bound probes. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class SslCheckExecutorBenchmarkTest {
+
+    private static final int BATCH_SIZE = 2_000;
+    private static final long SIMULATED_HANDSHAKE_MS = 50;
+
+    @Test
+    void virtualThreadMode_ShouldFinishIoBoundBatchFasterThanPlatformPool() {
+        SslCheckProperties.Executor config = new SslCheckProperties.Executor();
+
+        ThreadPoolTaskExecutor platform = AsyncConfig.platformThreadExecutor(config, new SimpleMeterRegistry());
+        long platformMs;
+        try {
+            platformMs = runBatch(platform);
+        } finally {
+            platform.shutdown();
+        }
+
+        long virtualMs;
+        try (SimpleAsyncTaskExecutor virtual = AsyncConfig.virtualThreadExecutor(config, new SimpleMeterRegistry())) {
+            virtualMs = runBatch(virtual);
+        }
+
+        log.info("{} simulated handshakes of {} ms: PLATFORM={} ms, VIRTUAL={} ms (maxConcurrency={})",
+                BATCH_SIZE, SIMULATED_HANDSHAKE_MS, platformMs, virtualMs, config.getMaxConcurrency());
+        assertTrue(virtualMs < platformMs);
+    }
+
+    private long runBatch(Executor executor) {
+        final long startTime = System.currentTimeMillis();
+        List<CompletableFuture<String>> futures = IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> simulateHandshake(i), executor))
+                .toList();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private String simulateHandshake(int i) {
+        try {
+            Thread.sleep(SIMULATED_HANDSHAKE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "domain-" + i + ".com";
+    }
+}
@@ -1,11 +1,22 @@
 package com.media.sslmonitor.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.media.sslmonitor.dto.AlertLevel;
+import com.media.sslmonitor.dto.CheckSummary;
 import com.media.sslmonitor.dto.DomainCheckRequest;
 import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.ExpirySummary;
+import com.media.sslmonitor.dto.HistoryPage;
+import com.media.sslmonitor.dto.ImportSummary;
+import com.media.sslmonitor.dto.IssuerCount;
+import com.media.sslmonitor.dto.JobStatus;
 import com.media.sslmonitor.entity.CertificateCheck;
 import com.media.sslmonitor.entity.Domain;
 import com.media.sslmonitor.exception.DomainNotFoundException;
+import com.media.sslmonitor.exception.InvalidCursorException;
+import com.media.sslmonitor.exception.JobRejectedException;
+import com.media.sslmonitor.service.CheckJobService;
+import com.media.sslmonitor.service.DomainImportService;
 import com.media.sslmonitor.service.DomainService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,13 +28,24 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
@@ -44,6 +66,12 @@ class DomainControllerTest {
     @MockitoBean
     private DomainService domainService;
 
+    @MockitoBean
+    private DomainImportService domainImportService;
+
+    @MockitoBean
+    private CheckJobService checkJobService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -109,7 +137,7 @@ class DomainControllerTest {
     void checkDomainsAsync_ShouldReturnOkWithResults() throws Exception {
         List<DomainCheckResponse> expectedResponses = Collections.singletonList(testResponse);
         CompletableFuture<List<DomainCheckResponse>> futureResponse = CompletableFuture.completedFuture(expectedResponses);
-        when(domainService.checkDomainsAsync(any(DomainCheckRequest.class))).thenReturn(futureResponse);
+        when(checkJobService.checkAsync(any(DomainCheckRequest.class))).thenReturn(futureResponse);
 
         mockMvc.perform(post("/api/v1/domains/check-async")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -126,6 +154,92 @@ class DomainControllerTest {
                 });
     }
 
+    @Test
+    void checkDomainsAsync_WhenBacklogFull_ShouldReturnTooManyRequests() throws Exception {
+        when(checkJobService.checkAsync(any(DomainCheckRequest.class)))
+                .thenThrow(new JobRejectedException("Too many domains waiting", Duration.ofSeconds(10)));
+
+        mockMvc.perform(post("/api/v1/domains/check-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "10"));
+    }
+
+    @Test
+    void checkDomainsStream_ShouldWriteNdjsonResultsAndSummary() throws Exception {
+        stubStreaming();
+
+        MvcResult result = mockMvc.perform(post("/api/v1/domains/check-stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(FIRST_DOMAIN, objectMapper.readTree(lines[0]).get("domain").asText());
+        assertEquals(1, objectMapper.readTree(lines[1]).get("summary").get("total").asInt());
+    }
+
+    @Test
+    void checkDomainsStream_WithEventStreamAccept_ShouldWriteServerSentEvents() throws Exception {
+        stubStreaming();
+
+        MvcResult result = mockMvc.perform(post("/api/v1/domains/check-stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM));
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.startsWith("event: result\ndata: {"));
+        assertTrue(body.contains("event: summary\ndata: {\"total\":1"));
+    }
+
+    @Test
+    void importDomains_ShouldPassUploadToImporterAndReturnAccepted() throws Exception {
+        when(domainImportService.importDomains(any(Reader.class))).thenAnswer(invocation -> {
+            BufferedReader reader = new BufferedReader(invocation.<Reader>getArgument(0));
+            assertEquals(List.of(FIRST_DOMAIN, SECOND_DOMAIN), reader.lines().toList());
+            return ImportSummary.builder().id("import-1").state(JobStatus.State.RUNNING).read(2).registered(1).build();
+        });
+
+        mockMvc.perform(post("/api/v1/domains/import")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(FIRST_DOMAIN + "\n" + SECOND_DOMAIN + "\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/domains/import/import-1"))
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.registered").value(1));
+    }
+
+    @Test
+    void getImport_ShouldReturnImportProgress() throws Exception {
+        when(domainImportService.getImport("import-1")).thenReturn(ImportSummary.builder()
+                .id("import-1").state(JobStatus.State.DONE).read(2).imported(2).build());
+
+        mockMvc.perform(get("/api/v1/domains/import/import-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("DONE"))
+                .andExpect(jsonPath("$.imported").value(2));
+    }
+
+    private void stubStreaming() {
+        when(domainService.checkDomainsStreaming(any(DomainCheckRequest.class), any())).thenAnswer(invocation -> {
+            Consumer<DomainCheckResponse> listener = invocation.getArgument(1);
+            listener.accept(testResponse);
+            return CheckSummary.builder().total(1).valid(1).probed(1).build();
+        });
+    }
+
     @Test
     void getExpiringDomains_ShouldReturnDomainsExpiringSoon() throws Exception {
         int days = 30;
@@ -141,6 +255,35 @@ class DomainControllerTest {
                 .andExpect(jsonPath("$[0].daysUntilExpiry").value(30));
     }
 
+    @Test
+    void getSummary_ShouldReturnCountsByLevelAndExpiryDay() throws Exception {
+        Map<AlertLevel, Long> byAlertLevel = new EnumMap<>(AlertLevel.class);
+        byAlertLevel.put(AlertLevel.OK, 4L);
+        byAlertLevel.put(AlertLevel.CRITICAL, 1L);
+        ExpirySummary summary = ExpirySummary.of(LocalDate.of(2025, 8, 7), byAlertLevel, new TreeMap<>(Map.of(5, 1L)));
+        when(domainService.getExpirySummary(30)).thenReturn(summary);
+
+        mockMvc.perform(get("/api/v1/domains/summary")
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.date").value("2025-08-07"))
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.byAlertLevel.CRITICAL").value(1))
+                .andExpect(jsonPath("$.byDaysUntilExpiry.5").value(1));
+    }
+
+    @Test
+    void getIssuerCounts_ShouldReturnDomainsPerIssuer() throws Exception {
+        when(domainService.getIssuerCounts()).thenReturn(List.of(
+                new IssuerCount("CN=R11, O=Let's Encrypt, C=US", 12), new IssuerCount("Test CA", 3)));
+
+        mockMvc.perform(get("/api/v1/domains/issuers"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].issuer").value("CN=R11, O=Let's Encrypt, C=US"))
+                .andExpect(jsonPath("$[0].domains").value(12))
+                .andExpect(jsonPath("$[1].domains").value(3));
+    }
+
     @Test
     void getDomainHistory_ShouldReturnPagedResults() throws Exception {
         Page<CertificateCheck> expectedPage = new PageImpl<>(Arrays.asList(testCertificateCheck));
@@ -158,6 +301,30 @@ class DomainControllerTest {
                 .andExpect(jsonPath("$.size").value(1));
     }
 
+    @Test
+    void getDomainHistoryByCursor_ShouldReturnContentAndNextCursorWithoutTotals() throws Exception {
+        when(domainService.getDomainHistory(FIRST_DOMAIN, "abc", 500))
+                .thenReturn(new HistoryPage(List.of(testCertificateCheck), "def"));
+
+        mockMvc.perform(get("/api/v1/domains/{domainName}/history/cursor", FIRST_DOMAIN)
+                        .param("cursor", "abc")
+                        .param("size", "10000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("def"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void getDomainHistoryByCursor_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        when(domainService.getDomainHistory(FIRST_DOMAIN, "bogus", 20))
+                .thenThrow(new InvalidCursorException("Invalid cursor: bogus"));
+
+        mockMvc.perform(get("/api/v1/domains/{domainName}/history/cursor", FIRST_DOMAIN)
+                        .param("cursor", "bogus"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getDomainHistory_WhenDomainNotFound_ShouldReturnNotFound() throws Exception {
         when(domainService.getDomainHistory(eq(INVALID_DOMAIN), any(Pageable.class)))
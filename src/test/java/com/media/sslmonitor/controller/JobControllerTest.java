@@ -0,0 +1,114 @@
+package com.media.sslmonitor.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.JobResultsPage;
+import com.media.sslmonitor.dto.JobStatus;
+import com.media.sslmonitor.exception.JobNotFoundException;
+import com.media.sslmonitor.exception.JobRejectedException;
+import com.media.sslmonitor.service.CheckJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(JobController.class)
+class JobControllerTest {
+
+    private static final String JOB_ID = "0c9a3f4e-6b1d-4f0a-9c55-2b7f1e8d3a10";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private CheckJobService checkJobService;
+
+    @Test
+    void submit_ShouldReturnAcceptedWithJobLocation() throws Exception {
+        when(checkJobService.submit(any(DomainCheckRequest.class))).thenReturn(jobStatus(JobStatus.State.RUNNING, 0));
+
+        mockMvc.perform(post("/api/v1/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request())))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/jobs/" + JOB_ID))
+                .andExpect(jsonPath("$.id").value(JOB_ID))
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.total").value(2));
+    }
+
+    @Test
+    void submit_WhenBacklogFull_ShouldReturnTooManyRequestsWithRetryAfter() throws Exception {
+        when(checkJobService.submit(any(DomainCheckRequest.class)))
+                .thenThrow(new JobRejectedException("Too many domains waiting", Duration.ofSeconds(15)));
+
+        mockMvc.perform(post("/api/v1/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request())))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "15"))
+                .andExpect(jsonPath("$.message").value("Too many domains waiting"));
+    }
+
+    @Test
+    void getStatus_ShouldReturnProgress() throws Exception {
+        when(checkJobService.getStatus(JOB_ID)).thenReturn(jobStatus(JobStatus.State.RUNNING, 1));
+
+        mockMvc.perform(get("/api/v1/jobs/{jobId}", JOB_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.done").value(1))
+                .andExpect(jsonPath("$.failed").value(0));
+    }
+
+    @Test
+    void getStatus_WhenJobUnknown_ShouldReturnNotFound() throws Exception {
+        when(checkJobService.getStatus("missing")).thenThrow(new JobNotFoundException("Job not found: missing"));
+
+        mockMvc.perform(get("/api/v1/jobs/{jobId}", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getResults_ShouldClampPageSize() throws Exception {
+        DomainCheckResponse result = DomainCheckResponse.builder().domain("example.com").isValid(true).build();
+        when(checkJobService.getResults(JOB_ID, 0, 1000))
+                .thenReturn(new JobResultsPage(List.of(result), 0, 1000, 1, false));
+
+        mockMvc.perform(get("/api/v1/jobs/{jobId}/results", JOB_ID)
+                        .param("size", "50000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].domain").value("example.com"))
+                .andExpect(jsonPath("$.available").value(1))
+                .andExpect(jsonPath("$.complete").value(false));
+    }
+
+    private static DomainCheckRequest request() {
+        return new DomainCheckRequest(List.of("example.com", "test.com"), false, null);
+    }
+
+    private static JobStatus jobStatus(JobStatus.State state, int done) {
+        return JobStatus.builder()
+                .id(JOB_ID)
+                .state(state)
+                .total(2)
+                .done(done)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -83,27 +83,26 @@ class CertificateCheckRepositoryTest {
     }
 
     @Test
-    void findLatestChecksExpiringBefore_ShouldReturnOnlyLatestValidChecksExpiringSoon() {
-        LocalDateTime threshold = LocalDateTime.now().plusDays(25);
-
-        List<CertificateCheck> result = certificateCheckRepository
-                .findLatestChecksExpiringBefore(threshold);
-
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(check2.getId(), result.getFirst().getId()); // Should return latest check for domain1
-        assertEquals(domain1.getDomainName(), result.getFirst().getDomain().getDomainName());
-        assertTrue(result.getFirst().getExpiryDate().isBefore(threshold));
-    }
-
-    @Test
-    void findLatestChecksExpiringBefore_ShouldReturnEmptyWhenNoMatchingChecks() {
-        LocalDateTime threshold = LocalDateTime.now().plusDays(5);
-
-        List<CertificateCheck> result = certificateCheckRepository
-                .findLatestChecksExpiringBefore(threshold);
-
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
+    void findHistoryBefore_ShouldSeekPastCursorUsingIdForEqualCheckTimes() {
+        CertificateCheck check3 = new CertificateCheck();
+        check3.setDomain(domain1);
+        check3.setValid(false);
+        check3.setErrorMessage("Connection refused");
+        entityManager.persistAndFlush(check3);
+        LocalDateTime sameTime = LocalDateTime.now().plusMinutes(1).withNano(0);
+        entityManager.getEntityManager()
+                .createQuery("UPDATE CertificateCheck c SET c.checkTime = :time WHERE c.id IN :ids")
+                .setParameter("time", sameTime)
+                .setParameter("ids", List.of(check2.getId(), check3.getId()))
+                .executeUpdate();
+        entityManager.clear();
+
+        List<CertificateCheck> first = certificateCheckRepository.findHistory(domain1.getId(), 2);
+        CertificateCheck last = first.getLast();
+        List<CertificateCheck> second = certificateCheckRepository
+                .findHistoryBefore(domain1.getId(), last.getCheckTime(), last.getId(), 2);
+
+        assertEquals(List.of(check3.getId(), check2.getId()), first.stream().map(CertificateCheck::getId).toList());
+        assertEquals(List.of(check1.getId()), second.stream().map(CertificateCheck::getId).toList());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,139 @@
+package com.media.sslmonitor.repository;
+
+import com.media.sslmonitor.entity.CheckTask;
+import com.media.sslmonitor.support.PostgresModeDataJpaTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresModeDataJpaTest
+class CheckTaskRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 8, 7, 12, 0);
+
+    @Autowired
+    private CheckTaskRepository checkTaskRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void enqueue_ShouldSkipDomainsAlreadyQueued() {
+        assertEquals(2, checkTaskRepository.enqueue(List.of("a.com", "b.com", "a.com"), NOW));
+        assertEquals(1, checkTaskRepository.enqueue(List.of("b.com", "c.com"), NOW));
+
+        assertEquals(3, checkTaskRepository.count());
+    }
+
+    @Test
+    void claim_ShouldHideClaimedTasksUntilVisibilityTimeout() {
+        checkTaskRepository.enqueue(List.of("a.com", "b.com"), NOW);
+        checkTaskRepository.enqueue(List.of("later.com"), NOW.plusMinutes(10));
+
+        List<CheckTask> claimed = checkTaskRepository.claim("worker-1", 10, NOW, NOW.plusMinutes(5));
+
+        assertEquals(Set.of("a.com", "b.com"), domains(claimed));
+        assertTrue(claimed.stream().allMatch(task -> task.getAttempts() == 1));
+        assertTrue(checkTaskRepository.claim("worker-2", 10, NOW.plusMinutes(1), NOW.plusMinutes(6)).isEmpty());
+
+        List<CheckTask> reclaimed = checkTaskRepository.claim("worker-2", 10, NOW.plusMinutes(5), NOW.plusMinutes(10));
+        assertEquals(Set.of("a.com", "b.com"), domains(reclaimed));
+        assertTrue(reclaimed.stream().allMatch(task -> task.getAttempts() == 2));
+        CheckTask stored = checkTaskRepository.findById(reclaimed.getFirst().getId()).orElseThrow();
+        assertEquals("worker-2", stored.getLockedBy());
+        assertEquals(NOW.plusMinutes(10), stored.getVisibleAt());
+    }
+
+    @Test
+    void claim_ShouldRespectLimitInVisibilityOrder() {
+        checkTaskRepository.enqueue(List.of("second.com"), NOW.minusMinutes(1));
+        checkTaskRepository.enqueue(List.of("first.com"), NOW.minusMinutes(2));
+        checkTaskRepository.enqueue(List.of("third.com"), NOW);
+
+        List<CheckTask> claimed = checkTaskRepository.claim("worker-1", 2, NOW, NOW.plusMinutes(5));
+
+        assertEquals(List.of("first.com", "second.com"), claimed.stream().map(CheckTask::getDomainName).toList());
+    }
+
+    @Test
+    void complete_ShouldNotDeleteTasksClaimedAgain() {
+        checkTaskRepository.enqueue(List.of("a.com"), NOW);
+        List<CheckTask> stale = checkTaskRepository.claim("worker-1", 10, NOW, NOW.plusMinutes(5));
+        List<CheckTask> current = checkTaskRepository.claim("worker-2", 10, NOW.plusMinutes(5), NOW.plusMinutes(10));
+
+        assertEquals(0, checkTaskRepository.complete(stale));
+        assertEquals(1, checkTaskRepository.count());
+        assertEquals(1, checkTaskRepository.complete(current));
+        assertEquals(0, checkTaskRepository.count());
+    }
+
+    @Test
+    void retry_ShouldMakeTaskVisibleAgainWithError() {
+        checkTaskRepository.enqueue(List.of("a.com"), NOW);
+        List<CheckTask> claimed = checkTaskRepository.claim("worker-1", 10, NOW, NOW.plusMinutes(5));
+
+        checkTaskRepository.retry(claimed, NOW.plusMinutes(1), "Connection refused");
+
+        assertTrue(checkTaskRepository.claim("worker-1", 10, NOW, NOW.plusMinutes(5)).isEmpty());
+        CheckTask stored = checkTaskRepository.findById(claimed.getFirst().getId()).orElseThrow();
+        assertEquals("Connection refused", stored.getLastError());
+        assertNull(stored.getLockedBy());
+        assertEquals(2, checkTaskRepository.claim("worker-1", 10, NOW.plusMinutes(1), NOW.plusMinutes(6))
+                .getFirst().getAttempts());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void claim_WhileAnotherClaimHoldsItsRows_ShouldNotReturnThem() throws Exception {
+        final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        final CountDownLatch firstClaimed = new CountDownLatch(1);
+        final CountDownLatch secondDone = new CountDownLatch(1);
+        checkTaskRepository.enqueue(List.of("a.com", "b.com", "c.com", "d.com"), NOW);
+        try {
+            CompletableFuture<List<CheckTask>> first = CompletableFuture.supplyAsync(() ->
+                    transaction.execute(status -> {
+                        List<CheckTask> claimed = checkTaskRepository.claim("worker-1", 2, NOW, NOW.plusMinutes(5));
+                        firstClaimed.countDown();
+                        try {
+                            // Keep the row locks until the other claim has run
+                            secondDone.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return claimed;
+                    }));
+            assertTrue(firstClaimed.await(5, TimeUnit.SECONDS));
+            List<CheckTask> second = transaction.execute(status ->
+                    checkTaskRepository.claim("worker-2", 4, NOW, NOW.plusMinutes(5)));
+            secondDone.countDown();
+
+            Set<String> firstDomains = domains(first.get(5, TimeUnit.SECONDS));
+            assertEquals(2, firstDomains.size());
+            Set<String> overlap = new HashSet<>(firstDomains);
+            overlap.retainAll(domains(second));
+            assertTrue(overlap.isEmpty());
+        } finally {
+            secondDone.countDown();
+            checkTaskRepository.deleteAll();
+        }
+    }
+
+    private static Set<String> domains(List<CheckTask> tasks) {
+        Set<String> domains = new HashSet<>();
+        tasks.forEach(task -> domains.add(task.getDomainName()));
+        return domains;
+    }
+}
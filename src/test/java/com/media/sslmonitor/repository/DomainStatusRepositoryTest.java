@@ -0,0 +1,118 @@
+package com.media.sslmonitor.repository;
+
+import com.media.sslmonitor.dto.ExpiringDomain;
+import com.media.sslmonitor.entity.CertificateCheck;
+import com.media.sslmonitor.entity.Domain;
+import com.media.sslmonitor.entity.DomainStatus;
+import com.media.sslmonitor.support.PostgresModeDataJpaTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresModeDataJpaTest
+class DomainStatusRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DomainStatusRepository domainStatusRepository;
+
+    private Domain domain1;
+    private Domain domain2;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        domain1 = new Domain();
+        domain1.setDomainName("example.com");
+        entityManager.persistAndFlush(domain1);
+
+        domain2 = new Domain();
+        domain2.setDomainName("test.com");
+        entityManager.persistAndFlush(domain2);
+
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @Test
+    void findValidExpiringBefore_ShouldReturnValidStatusesOrderedByExpiry() {
+        domainStatusRepository.upsertAll(List.of(
+                status(domain1, 1L, now, true, now.plusDays(20)),
+                status(domain2, 2L, now, true, now.plusDays(10))));
+
+        List<ExpiringDomain> result = domainStatusRepository.findValidExpiringBefore(now.plusDays(25));
+
+        assertEquals(2, result.size());
+        assertEquals("test.com", result.get(0).domainName());
+        assertEquals("example.com", result.get(1).domainName());
+        assertEquals(now.plusDays(10), result.get(0).expiryDate());
+        assertEquals(now, result.get(0).checkTime());
+        assertTrue(domainStatusRepository.findValidExpiringBefore(now.plusDays(5)).isEmpty());
+    }
+
+    @Test
+    void countValidByExpiryDay_ShouldGroupValidStatusesByDate() {
+        domainStatusRepository.upsertAll(List.of(
+                status(domain1, 1L, now, true, now.plusDays(20)),
+                status(domain2, 2L, now, false, null)));
+
+        List<DomainStatusRepository.ExpiryDayCount> counts = domainStatusRepository.countValidByExpiryDay();
+
+        assertEquals(1, counts.size());
+        assertEquals(now.plusDays(20).toLocalDate(), counts.getFirst().getExpiryDay());
+        assertEquals(1, counts.getFirst().getDomains());
+        assertEquals(1, domainStatusRepository.countFailed());
+    }
+
+    @Test
+    void upsertAll_ShouldKeepNewestCheckPerDomain() {
+        domainStatusRepository.upsertAll(List.of(status(domain1, 2L, now, true, now.plusDays(20))));
+
+        domainStatusRepository.upsertAll(List.of(
+                status(domain1, 1L, now.minusHours(1), true, now.plusDays(15)),
+                status(domain2, 3L, now, false, null)));
+        domainStatusRepository.upsertAll(List.of(status(domain2, 4L, now.plusMinutes(1), true, now.plusDays(60))));
+        entityManager.clear();
+
+        assertEquals(2L, domainStatusRepository.findById(domain1.getId()).orElseThrow().getLastCheckId());
+        DomainStatus updated = domainStatusRepository.findById(domain2.getId()).orElseThrow();
+        assertEquals(4L, updated.getLastCheckId());
+        assertTrue(updated.isValid());
+    }
+
+    @Test
+    void backfillFromLatestChecks_ShouldCopyLatestCheckOfEachDomain() {
+        check(domain1, now.plusDays(15));
+        CertificateCheck latest = check(domain1, now.plusDays(20));
+        check(domain2, now.plusDays(60));
+
+        assertEquals(2, domainStatusRepository.backfillFromLatestChecks());
+        assertEquals(0, domainStatusRepository.backfillFromLatestChecks());
+        entityManager.clear();
+
+        DomainStatus status = domainStatusRepository.findById(domain1.getId()).orElseThrow();
+        assertEquals(latest.getId(), status.getLastCheckId());
+        assertEquals("example.com", status.getDomainName());
+    }
+
+    private DomainStatus status(Domain domain, Long checkId, LocalDateTime checkTime, boolean valid,
+                                LocalDateTime expiryDate) {
+        return new DomainStatus(domain.getId(), domain.getDomainName(), checkId, checkTime, valid, expiryDate, null);
+    }
+
+    private CertificateCheck check(Domain domain, LocalDateTime expiryDate) {
+        CertificateCheck check = new CertificateCheck();
+        check.setDomain(domain);
+        check.setValid(true);
+        check.setExpiryDate(expiryDate);
+        return entityManager.persistFlushFind(check);
+    }
+}
@@ -0,0 +1,220 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.entity.Certificate;
+import com.media.sslmonitor.entity.CertificateCheck;
+import com.media.sslmonitor.entity.CertificateEncoding;
+import com.media.sslmonitor.entity.Domain;
+import com.media.sslmonitor.entity.DomainStatus;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.repository.CertificateCheckRepository;
+import com.media.sslmonitor.repository.CertificateRepository;
+import com.media.sslmonitor.repository.DomainRepository;
+import com.media.sslmonitor.repository.DomainStatusRepository;
+import com.media.sslmonitor.service.impl.CertificateCheckWriterImpl;
+import com.media.sslmonitor.service.impl.CertificateRegistryImpl;
+import com.media.sslmonitor.service.impl.DomainRegistryImpl;
+import com.media.sslmonitor.service.impl.ExpiryIndexImpl;
+import com.media.sslmonitor.support.JdbcStatementCounter;
+import com.media.sslmonitor.support.PostgresModeDataJpaTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresModeDataJpaTest
+@Import({CertificateCheckWriterImpl.class, DomainRegistryImpl.class, JdbcStatementCounter.class,
+        CheckMetrics.class, SimpleMeterRegistry.class, SslCheckProperties.class,
+        ExpiryIndexImpl.class, CertificateRegistryImpl.class})
+class CertificateCheckWriterTest {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcStatementCounter statementCounter;
+
+    @Autowired
+    private CertificateCheckWriter certificateCheckWriter;
+
+    @Autowired
+    private DomainRepository domainRepository;
+
+    @Autowired
+    private CertificateCheckRepository certificateCheckRepository;
+
+    @Autowired
+    private DomainStatusRepository domainStatusRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @Autowired
+    private DomainRegistry domainRegistry;
+
+    @Autowired
+    private ExpiryIndex expiryIndex;
+
+    @Autowired
+    private CertificateRegistry certificateRegistry;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Test
+    void saveAll_WithThousandNewDomains_ShouldUseBatchedStatements() {
+        List<CertificateInfo> results = certificateInfos(BATCH_SIZE);
+        statementCounter.reset();
+
+        certificateCheckWriter.saveAll(results);
+        entityManager.flush();
+
+        // domain upsert + id lookup, then about one sequence fetch and one insert batch per
+        // 50 checks plus one status upsert batch, instead of a SELECT and two INSERTs per domain
+        int statements = statementCounter.getExecutions();
+        assertTrue(statements <= 50, "Executed statements: " + statements);
+        assertEquals(BATCH_SIZE, certificateCheckRepository.count());
+        assertEquals(BATCH_SIZE, domainRepository.count());
+        assertEquals(BATCH_SIZE, domainStatusRepository.count());
+        assertEquals(1, meterRegistry.get(CheckMetrics.STAGE_TIMER).tag("stage", "save").timer().count());
+    }
+
+    @Test
+    void saveAll_WithKnownDomains_ShouldReuseExistingDomainRows() {
+        Domain existing = new Domain();
+        existing.setDomainName("domain-0.com");
+        entityManager.persistAndFlush(existing);
+
+        certificateCheckWriter.saveAll(certificateInfos(3));
+        entityManager.flush();
+
+        assertEquals(3, domainRepository.count());
+        assertEquals(3, certificateCheckRepository.count());
+        assertEquals(existing.getId(), domainRepository.findByDomainName("domain-0.com").orElseThrow().getId());
+    }
+
+    @Test
+    void saveAll_WithChangesOnlyAndUnchangedResults_ShouldExtendLatestRow() {
+        CertificateCheckWriter writer = changesOnlyWriter();
+        CertificateInfo first = certificateInfo("example.com", "aa11");
+
+        writer.saveAll(List.of(first));
+        entityManager.flush();
+        writer.saveAll(List.of(certificateInfo("example.com", "aa11")));
+        writer.saveAll(List.of(certificateInfo("example.com", "aa11"), certificateInfo("example.com", "aa11")));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<CertificateCheck> rows = certificateCheckRepository.findAll();
+        assertEquals(1, rows.size());
+        assertEquals(4, rows.getFirst().getObservationCount());
+        assertTrue(rows.getFirst().getLastSeenAt().isAfter(rows.getFirst().getCheckTime()));
+        DomainStatus status = domainStatusRepository.findAll().getFirst();
+        assertEquals(rows.getFirst().getId(), status.getLastCheckId());
+        assertEquals(rows.getFirst().getLastSeenAt(), status.getCheckTime());
+    }
+
+    @Test
+    void saveAll_WithChangesOnlyAndChangedResults_ShouldInsertNewRows() {
+        CertificateCheckWriter writer = changesOnlyWriter();
+
+        writer.saveAll(List.of(certificateInfo("example.com", "aa11")));
+        entityManager.flush();
+        writer.saveAll(List.of(certificateInfo("example.com", "bb22")));
+        entityManager.flush();
+        writer.saveAll(List.of(CertificateInfo.failed("example.com", "Connection refused")));
+        entityManager.flush();
+        writer.saveAll(List.of(CertificateInfo.failed("example.com", "Connection refused"),
+                CertificateInfo.failed("example.com", "Connect timed out")));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<CertificateCheck> rows = certificateCheckRepository.findAll(Sort.by("id"));
+        assertEquals(List.of("aa11", "bb22"), rows.subList(0, 2).stream().map(CertificateCheck::getFingerprint).toList());
+        assertEquals(List.of("Connection refused", "Connect timed out"),
+                rows.subList(2, 4).stream().map(CertificateCheck::getErrorMessage).toList());
+        assertEquals(List.of(1, 1, 2, 1), rows.stream().map(CertificateCheck::getObservationCount).toList());
+        assertEquals(rows.getLast().getId(), domainStatusRepository.findAll().getFirst().getLastCheckId());
+    }
+
+    @Test
+    void saveAll_WithSharedCertificate_ShouldStoreItOnce() {
+        CertificateInfo first = certificateInfo("example.com", "cc33");
+        first.setSubject("CN=*.example.com");
+        first.setSubjectAltNames(List.of("*.example.com", "example.com"));
+        first.setEncoded(new byte[]{0x30, 0x03, 0x02, 0x01, 0x01});
+        CertificateInfo second = certificateInfo("www.example.com", "cc33");
+        second.setSubject("CN=*.example.com");
+
+        certificateCheckWriter.saveAll(List.of(first, second));
+        certificateCheckWriter.saveAll(List.of(certificateInfo("api.example.com", "cc33")));
+        entityManager.flush();
+        entityManager.clear();
+
+        Certificate certificate = certificateRepository.findByFingerprint("cc33").orElseThrow();
+        assertEquals(1, certificateRepository.count());
+        assertEquals("*.example.com,example.com", certificate.getSubjectAltNames());
+        assertArrayEquals(new byte[]{0x30, 0x03, 0x02, 0x01, 0x01},
+                entityManager.find(CertificateEncoding.class, certificate.getId()).getDer());
+        entityManager.clear();
+        List<CertificateCheck> rows = certificateCheckRepository.findAll();
+        assertEquals(3, rows.size());
+        assertFalse(Hibernate.isInitialized(rows.getFirst().getCertificate()));
+        for (CertificateCheck row : rows) {
+            assertEquals(certificate.getId(), row.getCertificate().getId());
+            assertEquals("Test CA", row.getIssuer());
+            assertEquals("CN=*.example.com", row.getSubject());
+        }
+        List<CertificateRepository.IssuerCount> issuers = certificateRepository.countValidByIssuer();
+        assertEquals(1, issuers.size());
+        assertEquals("Test CA", issuers.getFirst().getIssuer());
+        assertEquals(3, issuers.getFirst().getDomains());
+    }
+
+    private CertificateCheckWriter changesOnlyWriter() {
+        SslCheckProperties properties = new SslCheckProperties();
+        properties.getStorage().setHistoryMode(SslCheckProperties.HistoryMode.CHANGES_ONLY);
+        return new CertificateCheckWriterImpl(domainRepository, domainRegistry, certificateCheckRepository,
+                domainStatusRepository, new CheckMetrics(new SimpleMeterRegistry()), properties, expiryIndex,
+                certificateRegistry, certificateRepository);
+    }
+
+    private static CertificateInfo certificateInfo(String domain, String fingerprint) {
+        return CertificateInfo.builder()
+                .domain(domain)
+                .isValid(true)
+                .expiryDate(LocalDateTime.now().plusDays(30))
+                .issuer("Test CA")
+                .subject("CN=" + domain)
+                .daysUntilExpiry(30)
+                .checkTime(LocalDateTime.now())
+                .fingerprint(fingerprint)
+                .build();
+    }
+
+    private List<CertificateInfo> certificateInfos(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> CertificateInfo.builder()
+                        .domain("domain-" + i + ".com")
+                        .isValid(true)
+                        .expiryDate(LocalDateTime.now().plusDays(i % 365))
+                        .issuer("Test CA")
+                        .subject("CN=domain-" + i + ".com")
+                        .daysUntilExpiry(i % 365)
+                        .checkTime(LocalDateTime.now())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,113 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.service.impl.CertificateResultCacheImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CertificateResultCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private SslCheckProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private CertificateResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SslCheckProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CertificateResultCacheImpl(properties, meterRegistry, nanos::get, Runnable::run);
+    }
+
+    @Test
+    void get_WithNormalizedDomain_ShouldReturnCachedResult() {
+        CertificateInfo info = valid("example.com", 200);
+        cache.put("https://example.com/login", info);
+
+        assertSame(info, cache.get("example.com").orElseThrow());
+        assertTrue(cache.get("test.com").isEmpty());
+    }
+
+    @Test
+    void get_AfterTtl_ShouldExpireValidResult() {
+        cache.put("example.com", valid("example.com", 200));
+
+        advance(Duration.ofMinutes(59));
+        assertTrue(cache.get("example.com").isPresent());
+        advance(Duration.ofMinutes(2));
+        assertTrue(cache.get("example.com").isEmpty());
+    }
+
+    @Test
+    void get_WithCertificateNearCriticalThreshold_ShouldUseShorterTtl() {
+        // Crosses the 7 day threshold in 30 minutes
+        CertificateInfo info = valid("example.com", 0);
+        info.setExpiryDate(LocalDateTime.now().plusDays(7).plusMinutes(30));
+        cache.put("example.com", info);
+        cache.put("critical.com", valid("critical.com", 3));
+
+        advance(Duration.ofMinutes(6));
+        assertTrue(cache.get("example.com").isPresent());
+        assertTrue(cache.get("critical.com").isEmpty());
+        advance(Duration.ofMinutes(25));
+        assertTrue(cache.get("example.com").isEmpty());
+    }
+
+    @Test
+    void get_WithFailedCheck_ShouldUseErrorTtl() {
+        cache.put("broken.com", CertificateInfo.failed("broken.com", "Connection refused"));
+
+        advance(Duration.ofSeconds(59));
+        assertTrue(cache.get("broken.com").isPresent());
+        advance(Duration.ofSeconds(2));
+        assertTrue(cache.get("broken.com").isEmpty());
+    }
+
+    @Test
+    void get_WhenDisabled_ShouldNeverHit() {
+        properties.getCache().setEnabled(false);
+        cache = new CertificateResultCacheImpl(properties, new SimpleMeterRegistry(), nanos::get, Runnable::run);
+
+        cache.put("example.com", valid("example.com", 200));
+
+        assertTrue(cache.get("example.com").isEmpty());
+    }
+
+    @Test
+    void metrics_ShouldCountHitsMissesAndEvictions() {
+        properties.getCache().setMaximumSize(1);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CertificateResultCacheImpl(properties, meterRegistry, nanos::get, Runnable::run);
+
+        cache.put("example.com", valid("example.com", 200));
+        cache.get("example.com");
+        cache.get("test.com");
+        cache.put("test.com", valid("test.com", 200));
+
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.evictions").functionCounter().count());
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private static CertificateInfo valid(String domain, int days) {
+        return CertificateInfo.builder()
+                .domain(domain)
+                .isValid(true)
+                .expiryDate(LocalDateTime.now().plusDays(days))
+                .daysUntilExpiry(days)
+                .checkTime(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,186 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.JobResultsPage;
+import com.media.sslmonitor.dto.JobStatus;
+import com.media.sslmonitor.exception.JobNotFoundException;
+import com.media.sslmonitor.exception.JobRejectedException;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.impl.CheckJobServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckJobServiceTest {
+
+    @Mock
+    private DomainService domainService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SslCheckProperties properties;
+    private CheckJobServiceImpl jobService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SslCheckProperties();
+        properties.getJobs().setMaxBacklog(3);
+        properties.getJobs().setRetryAfter(Duration.ofSeconds(7));
+        jobService = new CheckJobServiceImpl(properties, domainService, new CheckMetrics(meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobService.destroy();
+    }
+
+    @Test
+    void checkAsync_ShouldReturnResultsInRequestOrder() throws Exception {
+        // Results finish last domain first
+        when(domainService.checkDomainsWithProgress(any(), any())).thenAnswer(invocation -> {
+            DomainCheckRequest request = invocation.getArgument(0);
+            ObjIntConsumer<DomainCheckResponse> listener = invocation.getArgument(1);
+            for (int i = request.getDomains().size() - 1; i >= 0; i--) {
+                listener.accept(response(request.getDomains().get(i), i != 0), i);
+            }
+            return null;
+        });
+
+        List<DomainCheckResponse> results = jobService.checkAsync(request("a.com", "b.com", "c.com"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("a.com", "b.com", "c.com"), results.stream().map(DomainCheckResponse::getDomain).toList());
+        assertEquals(0.0, meterRegistry.get(CheckMetrics.JOB_BACKLOG).gauge().value());
+    }
+
+    @Test
+    void submit_ShouldReportProgressAndPageFinishedResults() throws Exception {
+        CountDownLatch firstReported = new CountDownLatch(1);
+        when(domainService.checkDomainsWithProgress(any(), any())).thenAnswer(invocation -> {
+            ObjIntConsumer<DomainCheckResponse> listener = invocation.getArgument(1);
+            listener.accept(response("b.com", false), 1);
+            firstReported.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            listener.accept(response("a.com", true), 0);
+            return null;
+        });
+
+        JobStatus submitted = jobService.submit(request("a.com", "b.com"));
+        assertTrue(firstReported.await(5, TimeUnit.SECONDS));
+
+        JobStatus running = jobService.getStatus(submitted.getId());
+        assertEquals(JobStatus.State.RUNNING, running.getState());
+        assertEquals(2, running.getTotal());
+        assertEquals(1, running.getDone());
+        assertEquals(1, running.getFailed());
+        JobResultsPage page = jobService.getResults(submitted.getId(), 0, 10);
+        assertEquals(List.of("b.com"), page.getContent().stream().map(DomainCheckResponse::getDomain).toList());
+        assertFalse(page.isComplete());
+
+        release.countDown();
+        JobStatus done = awaitDone(submitted.getId());
+        assertEquals(2, done.getDone());
+        assertNotNull(done.getCompletedAt());
+        JobResultsPage second = jobService.getResults(submitted.getId(), 1, 1);
+        assertEquals("a.com", second.getContent().getFirst().getDomain());
+        assertEquals(2, second.getAvailable());
+        assertTrue(second.isComplete());
+    }
+
+    @Test
+    void submit_WhenBacklogFull_ShouldRejectUntilDomainsAreChecked() throws Exception {
+        when(domainService.checkDomainsWithProgress(any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            DomainCheckRequest request = invocation.getArgument(0);
+            ObjIntConsumer<DomainCheckResponse> listener = invocation.getArgument(1);
+            for (int i = 0; i < request.getDomains().size(); i++) {
+                listener.accept(response(request.getDomains().get(i), true), i);
+            }
+            return null;
+        });
+
+        // A job larger than the backlog is still admitted when nothing else is waiting
+        JobStatus large = jobService.submit(request("a.com", "b.com", "c.com", "d.com"));
+        JobRejectedException rejected = assertThrows(JobRejectedException.class,
+                () -> jobService.submit(request("e.com")));
+        assertEquals(Duration.ofSeconds(7), rejected.getRetryAfter());
+        assertEquals(4.0, meterRegistry.get(CheckMetrics.JOB_BACKLOG).gauge().value());
+        assertEquals(1.0, meterRegistry.get(CheckMetrics.JOB_REJECTED_COUNTER).counter().count());
+
+        release.countDown();
+        awaitDone(large.getId());
+        assertNotNull(jobService.submit(request("e.com")).getId());
+    }
+
+    @Test
+    void submit_WhenCheckFails_ShouldMarkJobFailedAndFreeBacklog() throws Exception {
+        when(domainService.checkDomainsWithProgress(any(), any())).thenThrow(new IllegalStateException("Interrupted"));
+
+        JobStatus submitted = jobService.submit(request("a.com", "b.com", "c.com"));
+
+        assertEquals(JobStatus.State.FAILED, awaitDone(submitted.getId()).getState());
+        assertEquals(0.0, meterRegistry.get(CheckMetrics.JOB_BACKLOG).gauge().value());
+    }
+
+    @Test
+    void finishedJob_AfterRetention_ShouldBePurgedWithoutNewSubmissions() throws Exception {
+        jobService.destroy();
+        properties.getJobs().setRetention(Duration.ofMillis(50));
+        jobService = new CheckJobServiceImpl(properties, domainService, new CheckMetrics(new SimpleMeterRegistry()));
+        when(domainService.checkDomainsWithProgress(any(), any())).thenReturn(null);
+
+        JobStatus job = jobService.submit(request("a.com"));
+
+        long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < giveUpAt) {
+            try {
+                jobService.getStatus(job.getId());
+                Thread.sleep(10);
+            } catch (JobNotFoundException e) {
+                return;
+            }
+        }
+        fail("Job was not purged");
+    }
+
+    @Test
+    void getStatus_WhenJobUnknown_ShouldThrow() {
+        assertThrows(JobNotFoundException.class, () -> jobService.getStatus("missing"));
+    }
+
+    private JobStatus awaitDone(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        JobStatus status = jobService.getStatus(jobId);
+        while (status.getState() == JobStatus.State.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = jobService.getStatus(jobId);
+        }
+        return status;
+    }
+
+    private static DomainCheckRequest request(String... domains) {
+        return new DomainCheckRequest(List.of(domains), false, null);
+    }
+
+    private static DomainCheckResponse response(String domain, boolean valid) {
+        return DomainCheckResponse.builder().domain(domain).isValid(valid).build();
+    }
+}
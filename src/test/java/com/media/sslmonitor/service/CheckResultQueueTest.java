@@ -0,0 +1,187 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.impl.CheckResultQueueImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckResultQueueTest {
+
+    @Mock
+    private CertificateCheckWriter certificateCheckWriter;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SslCheckProperties properties;
+    private CheckResultQueueImpl queue;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SslCheckProperties();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (queue != null) {
+            queue.destroy();
+        }
+    }
+
+    @Test
+    void enqueue_ShouldSaveInGroupCommitsOfBatchSize() {
+        properties.getWriteBehind().setBatchSize(3);
+        properties.getWriteBehind().setFlushInterval(Duration.ofSeconds(5));
+        queue = queue();
+
+        queue.enqueue(results(7));
+        queue.flush(0);
+
+        ArgumentCaptor<List<CertificateInfo>> batches = captor();
+        verify(certificateCheckWriter, times(3)).saveAll(batches.capture());
+        assertEquals(List.of(3, 3, 1), batches.getAllValues().stream().map(List::size).toList());
+        assertEquals(0.0, meterRegistry.get(CheckMetrics.WRITE_QUEUE_SIZE).gauge().value());
+    }
+
+    @Test
+    void enqueue_WhenQueueFull_ShouldBlockUntilWriterCatchesUp() throws Exception {
+        properties.getWriteBehind().setQueueCapacity(2);
+        properties.getWriteBehind().setBatchSize(1);
+        properties.getWriteBehind().setFlushInterval(Duration.ofMillis(10));
+        CountDownLatch databaseSlow = new CountDownLatch(1);
+        doAnswer(invocation -> databaseSlow.await(5, TimeUnit.SECONDS)).when(certificateCheckWriter).saveAll(any());
+        queue = queue();
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> queue.enqueue(results(4)));
+        verify(certificateCheckWriter, timeout(5000)).saveAll(any());
+        Thread.sleep(100);
+        assertFalse(producer.isDone());
+        assertEquals(2.0, meterRegistry.get(CheckMetrics.WRITE_QUEUE_SIZE).gauge().value());
+        assertTrue(meterRegistry.get(CheckMetrics.WRITE_QUEUE_LAG).gauge().value() > 0);
+
+        databaseSlow.countDown();
+        producer.get(5, TimeUnit.SECONDS);
+        queue.flush(0);
+        verify(certificateCheckWriter, times(4)).saveAll(any());
+    }
+
+    @Test
+    void destroy_ShouldSaveQueuedResultsWithoutWaitingForTheWindow() throws Exception {
+        properties.getWriteBehind().setFlushInterval(Duration.ofSeconds(30));
+        queue = queue();
+        queue.enqueue(results(2));
+
+        long start = System.nanoTime();
+        queue.destroy();
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        verify(certificateCheckWriter).saveAll(argThat(batch -> batch.size() == 2));
+
+        // Results that arrive after shutdown are saved by the caller
+        queue.enqueue(results(1));
+        verify(certificateCheckWriter).saveAll(argThat(batch -> batch.size() == 1));
+    }
+
+    @Test
+    void enqueue_WhenWriteFails_ShouldCountAndKeepWriting() {
+        properties.getWriteBehind().setBatchSize(1);
+        doThrow(new IllegalStateException("database down")).doNothing().when(certificateCheckWriter).saveAll(any());
+        queue = queue();
+
+        queue.enqueue(results(2));
+        queue.flush(0);
+
+        verify(certificateCheckWriter, times(2)).saveAll(any());
+        assertEquals(1.0, meterRegistry.get(CheckMetrics.WRITE_FAILURE_COUNTER).counter().count());
+    }
+
+    @Test
+    void enqueue_WhenOneResultIsRejected_ShouldSaveTheRestAndReportIt() {
+        properties.getWriteBehind().setBatchSize(8);
+        properties.getWriteBehind().setFlushInterval(Duration.ofSeconds(5));
+        List<String> saved = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<CertificateInfo> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(info -> info.getDomain().equals("host5.example.com"))) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            batch.forEach(info -> saved.add(info.getDomain()));
+            return null;
+        }).when(certificateCheckWriter).saveAll(any());
+        queue = queue();
+        queue.enqueue(results(2));
+        queue.flush(0);
+        long since = queue.position();
+
+        queue.enqueue(results(8));
+        Set<String> failed = queue.flush(since);
+
+        assertEquals(Set.of("host5.example.com"), failed);
+        assertEquals(9, saved.size());
+        assertFalse(saved.subList(2, 9).contains("host5.example.com"));
+        assertEquals(1.0, meterRegistry.get(CheckMetrics.WRITE_FAILURE_COUNTER).counter().count());
+    }
+
+    @Test
+    void enqueue_WhenDatabaseBriefyUnavailable_ShouldRetryTheBatch() {
+        properties.getWriteBehind().setRetryBackoff(Duration.ofMillis(10));
+        doThrow(new TransientDataAccessResourceException("connection reset")).doNothing()
+                .when(certificateCheckWriter).saveAll(any());
+        queue = queue();
+
+        queue.enqueue(results(3));
+        Set<String> failed = queue.flush(0);
+
+        assertTrue(failed.isEmpty());
+        verify(certificateCheckWriter, times(2)).saveAll(argThat(batch -> batch.size() == 3));
+        assertTrue(meterRegistry.find(CheckMetrics.WRITE_FAILURE_COUNTER).counters().isEmpty());
+    }
+
+    @Test
+    void enqueue_WhenDisabled_ShouldSaveOnCallingThread() {
+        properties.getWriteBehind().setEnabled(false);
+        queue = queue();
+        List<CertificateInfo> results = results(2);
+
+        queue.enqueue(results);
+
+        verify(certificateCheckWriter).saveAll(results);
+    }
+
+    private CheckResultQueueImpl queue() {
+        return new CheckResultQueueImpl(properties, certificateCheckWriter, new CheckMetrics(meterRegistry));
+    }
+
+    private static List<CertificateInfo> results(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> CertificateInfo.failed("host" + i + ".example.com", "Connection refused"))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<CertificateInfo>> captor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
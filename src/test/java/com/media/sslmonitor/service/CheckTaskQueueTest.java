@@ -0,0 +1,138 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.entity.CheckTask;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.repository.CheckTaskRepository;
+import com.media.sslmonitor.service.impl.CheckTaskQueueImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckTaskQueueTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 8, 7, 12, 0);
+
+    @Mock
+    private CheckTaskRepository checkTaskRepository;
+
+    @Mock
+    private DomainService domainService;
+
+    @Mock
+    private CheckResultQueue checkResultQueue;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CheckTaskQueue taskQueue;
+
+    @BeforeEach
+    void setUp() {
+        SslCheckProperties properties = new SslCheckProperties();
+        properties.getTaskQueue().setBatchSize(2);
+        properties.getTaskQueue().setMaxAttempts(3);
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        taskQueue = new CheckTaskQueueImpl(properties, checkTaskRepository, domainService, checkResultQueue,
+                new CheckMetrics(meterRegistry), clock);
+    }
+
+    @Test
+    void processBatch_ShouldDeleteTasksOnlyAfterResultsAreSaved() {
+        List<CheckTask> tasks = List.of(task(1, "a.com", 1), task(2, "b.com", 1));
+        when(checkTaskRepository.claim(anyString(), eq(2), eq(NOW), eq(NOW.plusMinutes(5)))).thenReturn(tasks);
+        when(domainService.checkDomainsAsync(any())).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(checkTaskRepository.complete(tasks)).thenReturn(2);
+
+        assertEquals(2, taskQueue.processBatch());
+
+        ArgumentCaptor<DomainCheckRequest> request = ArgumentCaptor.forClass(DomainCheckRequest.class);
+        InOrder inOrder = inOrder(domainService, checkResultQueue, checkTaskRepository);
+        inOrder.verify(domainService).checkDomainsAsync(request.capture());
+        inOrder.verify(checkResultQueue).flush(anyLong());
+        inOrder.verify(checkTaskRepository).complete(tasks);
+        assertEquals(List.of("a.com", "b.com"), request.getValue().getDomains());
+        assertTrue(request.getValue().isForceRefresh());
+        assertEquals(2.0, meterRegistry.get(CheckMetrics.TASK_COUNTER).tag("outcome", "completed").counter().count());
+    }
+
+    @Test
+    void processBatch_WhenResultNotSaved_ShouldRetryOnlyThatTask() {
+        CheckTask saved = task(1, "a.com", 1);
+        CheckTask unsaved = task(2, "b.com", 1);
+        when(checkTaskRepository.claim(anyString(), anyInt(), any(), any())).thenReturn(List.of(saved, unsaved));
+        when(domainService.checkDomainsAsync(any())).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(checkResultQueue.position()).thenReturn(41L);
+        when(checkResultQueue.flush(41L)).thenReturn(Set.of("b.com"));
+        when(checkTaskRepository.complete(List.of(saved))).thenReturn(1);
+
+        taskQueue.processBatch();
+
+        verify(checkTaskRepository).complete(List.of(saved));
+        verify(checkTaskRepository, never()).complete(List.of(unsaved));
+        verify(checkTaskRepository).retry(List.of(unsaved), NOW.plusMinutes(1),
+                "IllegalStateException: Check result could not be saved");
+        assertEquals(1.0, meterRegistry.get(CheckMetrics.TASK_COUNTER).tag("outcome", "completed").counter().count());
+        assertEquals(1.0, meterRegistry.get(CheckMetrics.TASK_COUNTER).tag("outcome", "retried").counter().count());
+    }
+
+    @Test
+    void processBatch_WhenCheckFails_ShouldRetryAndGiveUpAfterMaxAttempts() {
+        CheckTask retried = task(1, "a.com", 2);
+        CheckTask exhausted = task(2, "b.com", 3);
+        when(checkTaskRepository.claim(anyString(), anyInt(), any(), any())).thenReturn(List.of(retried, exhausted));
+        when(domainService.checkDomainsAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Executor shut down")));
+
+        taskQueue.processBatch();
+
+        verify(checkTaskRepository).retry(List.of(retried), NOW.plusMinutes(1),
+                "IllegalStateException: Executor shut down");
+        verify(checkTaskRepository).complete(List.of(exhausted));
+        verify(checkResultQueue, never()).flush(anyLong());
+        assertEquals(1.0, meterRegistry.get(CheckMetrics.TASK_COUNTER).tag("outcome", "retried").counter().count());
+        assertEquals(1.0, meterRegistry.get(CheckMetrics.TASK_COUNTER).tag("outcome", "abandoned").counter().count());
+    }
+
+    @Test
+    void processBatch_WhenNothingDue_ShouldNotCheck() {
+        when(checkTaskRepository.claim(anyString(), anyInt(), any(), any())).thenReturn(List.of());
+
+        assertEquals(0, taskQueue.processBatch());
+
+        verifyNoInteractions(domainService, checkResultQueue);
+    }
+
+    @Test
+    void enqueue_ShouldMakeTasksVisibleNow() {
+        when(checkTaskRepository.enqueue(List.of("a.com"), NOW)).thenReturn(1);
+
+        assertEquals(1, taskQueue.enqueue(List.of("a.com")));
+        assertEquals(0, taskQueue.enqueue(List.of()));
+        verify(checkTaskRepository).enqueue(List.of("a.com"), NOW);
+    }
+
+    private static CheckTask task(long id, String domain, int attempts) {
+        return new CheckTask(id, domain, NOW.plus(Duration.ofMinutes(5)), attempts, "worker", null, NOW);
+    }
+}
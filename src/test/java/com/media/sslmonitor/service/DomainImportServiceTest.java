@@ -0,0 +1,186 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.ImportSummary;
+import com.media.sslmonitor.dto.JobStatus;
+import com.media.sslmonitor.exception.JobNotFoundException;
+import com.media.sslmonitor.exception.JobRejectedException;
+import com.media.sslmonitor.service.impl.DomainImportServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DomainImportServiceTest {
+
+    @Mock
+    private DomainRegistry domainRegistry;
+
+    @Mock
+    private CheckJobService checkJobService;
+
+    @Mock
+    private CheckTaskQueue checkTaskQueue;
+
+    private SslCheckProperties properties;
+    private DomainImportServiceImpl importer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SslCheckProperties();
+        properties.getBulkImport().setBatchSize(2);
+        lenient().when(domainRegistry.findId(any())).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (importer != null) {
+            importer.destroy();
+        }
+    }
+
+    @Test
+    void importDomains_WithCsv_ShouldNormalizeDeduplicateAndQueueInBatches() throws Exception {
+        when(domainRegistry.findId("test.com")).thenReturn(Optional.of(7L));
+        when(checkJobService.checkAsync(any())).thenReturn(CompletableFuture.completedFuture(List.of()));
+        String csv = """
+                domain,owner
+                # staging hosts
+                https://Example.com/login,team-a
+                "test.com",team-b
+
+                example.com,team-c
+                not a domain,team-d
+                api.example.com:8443;team-e
+                """;
+
+        ImportSummary summary = awaitDone(importer().importDomains(new StringReader(csv)));
+
+        ArgumentCaptor<DomainCheckRequest> requests = ArgumentCaptor.forClass(DomainCheckRequest.class);
+        verify(checkJobService, times(2)).checkAsync(requests.capture());
+        assertEquals(List.of("example.com", "test.com"), requests.getAllValues().get(0).getDomains());
+        assertEquals(List.of("api.example.com:8443"), requests.getAllValues().get(1).getDomains());
+        verify(domainRegistry).resolveIds(List.of("example.com", "test.com"));
+        verify(domainRegistry).resolveIds(List.of("api.example.com:8443"));
+        assertEquals(5, summary.getRead());
+        assertEquals(3, summary.getImported());
+        assertEquals(2, summary.getRegistered());
+        assertEquals(1, summary.getDuplicates());
+        assertEquals(1, summary.getInvalid());
+    }
+
+    @Test
+    void importDomains_WhenBatchesStillProbing_ShouldAnswerAndFeedLaterBatchesOffTheRequestThread() throws Exception {
+        properties.getBulkImport().setMaxBatchesInFlight(1);
+        List<CompletableFuture<List<DomainCheckResponse>>> probes = new ArrayList<>();
+        when(checkJobService.checkAsync(any())).thenAnswer(invocation -> {
+            CompletableFuture<List<DomainCheckResponse>> probe = new CompletableFuture<>();
+            synchronized (probes) {
+                probes.add(probe);
+            }
+            return probe;
+        });
+        String domains = IntStream.range(0, 4).mapToObj(i -> "host" + i + ".example.com")
+                .collect(Collectors.joining("\n"));
+
+        ImportSummary accepted = importer().importDomains(new StringReader(domains));
+
+        assertNotNull(accepted.getId());
+        assertEquals(4, accepted.getRead());
+        verify(checkJobService, timeout(5000)).checkAsync(any());
+        Thread.sleep(100);
+        verify(checkJobService, times(1)).checkAsync(any());
+        assertEquals(JobStatus.State.RUNNING, importer.getImport(accepted.getId()).getState());
+
+        synchronized (probes) {
+            probes.getFirst().complete(List.of());
+        }
+        assertEquals(4, awaitDone(accepted).getImported());
+        verify(checkJobService, times(2)).checkAsync(any());
+    }
+
+    @Test
+    void getImport_WithUnknownId_ShouldThrow() {
+        assertThrows(JobNotFoundException.class, () -> importer().getImport("missing"));
+    }
+
+    @Test
+    void importDomains_WhenJobRejected_ShouldResubmitAfterRetryAfter() throws Exception {
+        when(checkJobService.checkAsync(any()))
+                .thenThrow(new JobRejectedException("Too many domains waiting", Duration.ofMillis(50)))
+                .thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        ImportSummary summary = awaitDone(importer().importDomains(new StringReader("a.com\nb.com\nc.com\n")));
+
+        assertEquals(3, summary.getImported());
+        assertEquals(0, summary.getRejected());
+        ArgumentCaptor<DomainCheckRequest> requests = ArgumentCaptor.forClass(DomainCheckRequest.class);
+        verify(checkJobService, times(3)).checkAsync(requests.capture());
+        assertEquals(List.of("a.com", "b.com"), requests.getAllValues().get(1).getDomains());
+        assertEquals(List.of("c.com"), requests.getAllValues().get(2).getDomains());
+    }
+
+    @Test
+    void importDomains_WhenAdmissionWaitRunsOut_ShouldReportRejectedDomains() throws Exception {
+        properties.getBulkImport().setMaxAdmissionWait(Duration.ofMillis(100));
+        when(checkJobService.checkAsync(any()))
+                .thenThrow(new JobRejectedException("Too many domains waiting", Duration.ofMillis(40)));
+
+        ImportSummary summary = awaitDone(importer().importDomains(new StringReader("a.com\nb.com\nc.com\n")));
+
+        assertEquals(0, summary.getImported());
+        assertEquals(3, summary.getRejected());
+        verify(domainRegistry).resolveIds(List.of("a.com", "b.com"));
+        verify(domainRegistry).resolveIds(List.of("c.com"));
+    }
+
+    @Test
+    void importDomains_WithTaskQueue_ShouldQueueBatchesAsTasks() throws Exception {
+        properties.getTaskQueue().setEnabled(true);
+
+        ImportSummary summary = awaitDone(importer().importDomains(new StringReader("a.com\nb.com\nc.com\n")));
+
+        assertEquals(3, summary.getImported());
+        verify(checkTaskQueue).enqueue(List.of("a.com", "b.com"));
+        verify(checkTaskQueue).enqueue(List.of("c.com"));
+        verifyNoInteractions(checkJobService);
+    }
+
+    private DomainImportService importer() {
+        if (importer == null) {
+            importer = new DomainImportServiceImpl(properties, domainRegistry, checkJobService, checkTaskQueue);
+        }
+        return importer;
+    }
+
+    private ImportSummary awaitDone(ImportSummary accepted) throws InterruptedException {
+        long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        ImportSummary summary = importer.getImport(accepted.getId());
+        while (summary.getState() == JobStatus.State.RUNNING && System.nanoTime() < giveUpAt) {
+            Thread.sleep(10);
+            summary = importer.getImport(accepted.getId());
+        }
+        assertEquals(JobStatus.State.DONE, summary.getState());
+        return summary;
+    }
+}
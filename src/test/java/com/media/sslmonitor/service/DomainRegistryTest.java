@@ -0,0 +1,93 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.entity.Domain;
+import com.media.sslmonitor.repository.DomainRepository;
+import com.media.sslmonitor.service.impl.DomainRegistryImpl;
+import com.media.sslmonitor.support.JdbcStatementCounter;
+import com.media.sslmonitor.support.PostgresModeDataJpaTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresModeDataJpaTest
+@Import({DomainRegistryImpl.class, JdbcStatementCounter.class})
+class DomainRegistryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcStatementCounter statementCounter;
+
+    @Autowired
+    private DomainRegistryImpl domainRegistry;
+
+    @Autowired
+    private DomainRepository domainRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void resolveIds_WithNewDomains_ShouldRegisterThemOnce() {
+        Map<String, Long> ids = domainRegistry.resolveIds(List.of("example.com", "test.com", "example.com"));
+
+        assertEquals(2, ids.size());
+        assertEquals(2, domainRepository.count());
+        assertEquals(ids.get("example.com"), domainRepository.findByDomainName("example.com").orElseThrow().getId());
+        assertNotNull(domainRepository.findByDomainName("test.com").orElseThrow().getCreatedAt());
+    }
+
+    @Test
+    void resolveIds_BeforeCommit_ShouldShareNewIdsOnlyWithinTheTransaction() throws Exception {
+        Map<String, Long> ids = domainRegistry.resolveIds(List.of("example.com"));
+
+        assertEquals(ids.get("example.com"), domainRegistry.findId("example.com").orElseThrow());
+        assertTrue(CompletableFuture.supplyAsync(() -> domainRegistry.findId("example.com")).get().isEmpty());
+        assertEquals(0, domainRegistry.size());
+    }
+
+    @Test
+    void resolveIds_WithCachedDomains_ShouldNotQueryDatabase() {
+        Map<String, Long> first = domainRegistry.resolveIds(List.of("example.com", "test.com"));
+        statementCounter.reset();
+
+        Map<String, Long> second = domainRegistry.resolveIds(List.of("example.com", "test.com"));
+
+        assertEquals(first, second);
+        assertEquals(0, statementCounter.getExecutions());
+    }
+
+    @Test
+    void resolveIds_WithDomainInsertedElsewhere_ShouldReturnExistingId() {
+        Domain existing = new Domain();
+        existing.setDomainName("example.com");
+        entityManager.persistAndFlush(existing);
+
+        Map<String, Long> ids = domainRegistry.resolveIds(List.of("example.com"));
+
+        assertEquals(existing.getId(), ids.get("example.com"));
+        assertEquals(1, domainRepository.count());
+    }
+
+    @Test
+    void loadDomains_ShouldPopulateCacheFromDatabase() {
+        Domain existing = new Domain();
+        existing.setDomainName("example.com");
+        entityManager.persistAndFlush(existing);
+
+        DomainRegistryImpl freshRegistry = new DomainRegistryImpl(jdbcTemplate);
+        freshRegistry.loadDomains();
+
+        assertEquals(existing.getId(), freshRegistry.findId("example.com").orElseThrow());
+        assertEquals(1, freshRegistry.size());
+    }
+}
@@ -1,35 +1,57 @@
 package com.media.sslmonitor.service;
 
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.AlertLevel;
 import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.dto.CheckSummary;
 import com.media.sslmonitor.dto.DomainCheckRequest;
 import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.dto.ExpiringDomain;
+import com.media.sslmonitor.dto.ExpirySummary;
+import com.media.sslmonitor.dto.HistoryCursor;
+import com.media.sslmonitor.dto.HistoryPage;
+import com.media.sslmonitor.dto.IssuerCount;
 import com.media.sslmonitor.entity.CertificateCheck;
 import com.media.sslmonitor.entity.Domain;
 import com.media.sslmonitor.exception.DomainNotFoundException;
+import com.media.sslmonitor.exception.InvalidCursorException;
+import com.media.sslmonitor.metrics.CheckMetrics;
 import com.media.sslmonitor.repository.CertificateCheckRepository;
+import com.media.sslmonitor.repository.CertificateRepository;
 import com.media.sslmonitor.repository.DomainRepository;
+import com.media.sslmonitor.repository.DomainStatusRepository;
 import com.media.sslmonitor.service.impl.DomainServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,6 +70,35 @@ class DomainServiceTest {
     @Mock
     private SSLCertificateService sslCertificateService;
 
+    @Mock
+    private CheckResultQueue checkResultQueue;
+
+    @Mock
+    private DomainStatusRepository domainStatusRepository;
+
+    @Mock
+    private CertificateResultCache certificateResultCache;
+
+    @Mock
+    private ProbeLimiter probeLimiter;
+
+    @Mock
+    private ExpiryIndex expiryIndex;
+
+    @Mock
+    private CertificateRepository certificateRepository;
+
+    @Mock
+    private ProbePlanner probePlanner;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private CheckMetrics checkMetrics = new CheckMetrics(meterRegistry);
+
+    @Spy
+    private SslCheckProperties properties = new SslCheckProperties();
+
     @InjectMocks
     private DomainServiceImpl domainService;
 
@@ -78,57 +129,381 @@ class DomainServiceTest {
         testCertificateCheck.setValid(testCertificateInfo.isValid());
         testCertificateCheck.setCheckTime(LocalDateTime.now());
 
+        lenient().when(probePlanner.plan(any())).thenReturn(ProbePlanner.Plan.NONE);
+        lenient().when(probeLimiter.acquire(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(() -> { }));
+
         testRequest = new DomainCheckRequest();
         testRequest.setDomains(Arrays.asList(FIRST_DOMAIN, SECOND_DOMAIN));
     }
 
     @Test
     void checkDomains_ShouldReturnResults() {
-        when(sslCertificateService.checkCertificate(FIRST_DOMAIN)).thenReturn(testCertificateInfo);
-        when(sslCertificateService.checkCertificate(SECOND_DOMAIN)).thenReturn(testCertificateInfo);
-        when(domainRepository.findByDomainName(anyString())).thenReturn(Optional.of(testDomain));
-        when(certificateCheckRepository.save(any(CertificateCheck.class))).thenReturn(testCertificateCheck);
+        when(sslCertificateService.checkCertificate(FIRST_DOMAIN, null)).thenReturn(testCertificateInfo);
+        when(sslCertificateService.checkCertificate(SECOND_DOMAIN, null)).thenReturn(testCertificateInfo);
 
         List<DomainCheckResponse> results = domainService.checkDomains(testRequest);
 
         assertNotNull(results);
         assertEquals(2, results.size());
-        verify(sslCertificateService).checkCertificate(FIRST_DOMAIN);
-        verify(sslCertificateService).checkCertificate(SECOND_DOMAIN);
-        verify(certificateCheckRepository, times(2)).save(any(CertificateCheck.class));
+        verify(sslCertificateService).checkCertificate(FIRST_DOMAIN, null);
+        verify(sslCertificateService).checkCertificate(SECOND_DOMAIN, null);
+        verify(checkResultQueue).enqueue(argThat(batch -> batch.size() == 2));
     }
 
     @Test
     void checkDomainsAsync_ShouldReturnResultsAsync() throws Exception {
         CompletableFuture<CertificateInfo> certInfoFuture = CompletableFuture.completedFuture(testCertificateInfo);
-        when(sslCertificateService.checkCertificateAsync(FIRST_DOMAIN)).thenReturn(certInfoFuture);
-        when(sslCertificateService.checkCertificateAsync(SECOND_DOMAIN)).thenReturn(certInfoFuture);
-        when(domainRepository.findByDomainName(anyString())).thenReturn(Optional.of(testDomain));
-        when(certificateCheckRepository.save(any(CertificateCheck.class))).thenReturn(testCertificateCheck);
+        when(sslCertificateService.checkCertificateAsync(FIRST_DOMAIN, null)).thenReturn(certInfoFuture);
+        when(sslCertificateService.checkCertificateAsync(SECOND_DOMAIN, null)).thenReturn(certInfoFuture);
 
         CompletableFuture<List<DomainCheckResponse>> futureResults = domainService.checkDomainsAsync(testRequest);
         List<DomainCheckResponse> results = futureResults.get();
 
         assertNotNull(results);
         assertEquals(2, results.size());
-        verify(sslCertificateService).checkCertificateAsync(FIRST_DOMAIN);
-        verify(sslCertificateService).checkCertificateAsync(SECOND_DOMAIN);
-        verify(certificateCheckRepository, times(2)).save(any(CertificateCheck.class));
+        verify(sslCertificateService).checkCertificateAsync(FIRST_DOMAIN, null);
+        verify(sslCertificateService).checkCertificateAsync(SECOND_DOMAIN, null);
+        verify(checkResultQueue).enqueue(argThat(batch -> batch.size() == 2));
+    }
+
+    @Test
+    void checkDomains_WithCachedResult_ShouldNotProbeOrSaveIt() {
+        when(certificateResultCache.get(FIRST_DOMAIN)).thenReturn(Optional.of(testCertificateInfo));
+        when(sslCertificateService.checkCertificate(SECOND_DOMAIN, null)).thenReturn(testCertificateInfo);
+
+        List<DomainCheckResponse> results = domainService.checkDomains(testRequest);
+
+        assertEquals(2, results.size());
+        verify(sslCertificateService, never()).checkCertificate(eq(FIRST_DOMAIN), any());
+        verify(certificateResultCache).put(SECOND_DOMAIN, testCertificateInfo);
+        verify(checkResultQueue).enqueue(argThat(batch -> batch.size() == 1));
+        assertEquals(1, meterRegistry.get(CheckMetrics.RESULT_COUNTER).tag("outcome", "valid").counter().count());
+    }
+
+    @Test
+    void checkDomainsAsync_WithForceRefresh_ShouldBypassCache() throws Exception {
+        testRequest.setForceRefresh(true);
+        CompletableFuture<CertificateInfo> certInfoFuture = CompletableFuture.completedFuture(testCertificateInfo);
+        when(sslCertificateService.checkCertificateAsync(FIRST_DOMAIN, null)).thenReturn(certInfoFuture);
+        when(sslCertificateService.checkCertificateAsync(SECOND_DOMAIN, null)).thenReturn(certInfoFuture);
+
+        List<DomainCheckResponse> results = domainService.checkDomainsAsync(testRequest).get();
+
+        assertEquals(2, results.size());
+        verify(certificateResultCache, never()).get(any());
+        verify(certificateResultCache, times(2)).put(any(), eq(testCertificateInfo));
+        verify(checkResultQueue).enqueue(argThat(batch -> batch.size() == 2));
+    }
+
+    @Test
+    void checkDomains_WithDuplicateDomains_ShouldProbeAndSaveOnce() {
+        testRequest.setDomains(Arrays.asList(FIRST_DOMAIN, "https://" + FIRST_DOMAIN + "/login", FIRST_DOMAIN));
+        when(sslCertificateService.checkCertificate(FIRST_DOMAIN, null)).thenReturn(testCertificateInfo);
+
+        List<DomainCheckResponse> results = domainService.checkDomains(testRequest);
+
+        assertEquals(3, results.size());
+        verify(sslCertificateService, times(1)).checkCertificate(any(), any());
+        verify(checkResultQueue).enqueue(argThat(batch -> batch.size() == 1));
+    }
+
+    @Test
+    void checkDomainsAsync_WithConcurrentRequests_ShouldShareInFlightProbe() throws Exception {
+        testRequest.setDomains(List.of(FIRST_DOMAIN));
+        CompletableFuture<CertificateInfo> probe = new CompletableFuture<>();
+        when(sslCertificateService.checkCertificateAsync(FIRST_DOMAIN, null)).thenReturn(probe);
+
+        CompletableFuture<List<DomainCheckResponse>> first = domainService.checkDomainsAsync(testRequest);
+        CompletableFuture<List<DomainCheckResponse>> second = domainService.checkDomainsAsync(testRequest);
+        assertFalse(first.isDone());
+        probe.complete(testCertificateInfo);
+
+        assertEquals(FIRST_DOMAIN, first.get().getFirst().getDomain());
+        assertEquals(FIRST_DOMAIN, second.get().getFirst().getDomain());
+        verify(sslCertificateService, times(1)).checkCertificateAsync(FIRST_DOMAIN, null);
+        verify(checkResultQueue).enqueue(argThat(batch -> batch.size() == 1));
+        verify(checkResultQueue).enqueue(argThat(List::isEmpty));
+    }
+
+    @Test
+    void checkDomainsAsync_ShouldSaveOffTheThreadThatFinishedTheLastProbe() throws Exception {
+        CompletableFuture<CertificateInfo> probe = new CompletableFuture<>();
+        when(sslCertificateService.checkCertificateAsync(FIRST_DOMAIN, null)).thenReturn(probe);
+        when(sslCertificateService.checkCertificateAsync(SECOND_DOMAIN, null))
+                .thenReturn(CompletableFuture.completedFuture(testCertificateInfo));
+        AtomicReference<Thread> savedOn = new AtomicReference<>();
+        doAnswer(invocation -> {
+            savedOn.set(Thread.currentThread());
+            return null;
+        }).when(checkResultQueue).enqueue(any());
+
+        CompletableFuture<List<DomainCheckResponse>> results = domainService.checkDomainsAsync(testRequest);
+        Thread selector = new Thread(() -> probe.complete(testCertificateInfo), "SSLCheck-nio-0");
+        selector.start();
+        selector.join();
+
+        assertEquals(2, results.get(5, TimeUnit.SECONDS).size());
+        assertNotNull(savedOn.get());
+        assertNotSame(selector, savedOn.get());
+    }
+
+    @Test
+    void checkDomainsAsync_WhenHostDoesNotResolve_ShouldReportFailureWithoutProbing() throws Exception {
+        when(probeLimiter.acquire(eq(FIRST_DOMAIN), any())).thenReturn(
+                CompletableFuture.failedFuture(new UnknownHostException(FIRST_DOMAIN)));
+        when(sslCertificateService.checkCertificateAsync(SECOND_DOMAIN, null))
+                .thenReturn(CompletableFuture.completedFuture(testCertificateInfo));
+
+        List<DomainCheckResponse> results = domainService.checkDomainsAsync(testRequest).get(5, TimeUnit.SECONDS);
+
+        assertFalse(results.getFirst().isValid());
+        assertEquals("ERROR", results.getFirst().getAlertLevel());
+        verify(sslCertificateService, never()).checkCertificateAsync(eq(FIRST_DOMAIN), any());
+        verify(checkResultQueue).enqueue(argThat(batch -> batch.size() == 2));
+    }
+
+    @Test
+    void checkDomainsAsync_WhenProbeExecutorFull_ShouldResubmitProbe() throws Exception {
+        when(sslCertificateService.checkCertificateAsync(FIRST_DOMAIN, null))
+                .thenThrow(new TaskRejectedException("Executor full"))
+                .thenReturn(CompletableFuture.completedFuture(testCertificateInfo));
+        when(sslCertificateService.checkCertificateAsync(SECOND_DOMAIN, null))
+                .thenReturn(CompletableFuture.completedFuture(testCertificateInfo));
+
+        List<DomainCheckResponse> results = domainService.checkDomainsAsync(testRequest).get(5, TimeUnit.SECONDS);
+
+        assertTrue(results.getFirst().isValid());
+        verify(sslCertificateService, times(2)).checkCertificateAsync(FIRST_DOMAIN, null);
+    }
+
+    @Test
+    void checkDomainsStreaming_ShouldNotifyEachResultAndSummarize() {
+        CertificateInfo failed = CertificateInfo.failed(SECOND_DOMAIN, "Connection refused");
+        when(certificateResultCache.get(FIRST_DOMAIN)).thenReturn(Optional.of(testCertificateInfo));
+        when(sslCertificateService.checkCertificateAsync(SECOND_DOMAIN, null)).thenReturn(CompletableFuture.completedFuture(failed));
+        List<DomainCheckResponse> streamed = new ArrayList<>();
+
+        CheckSummary summary = domainService.checkDomainsStreaming(testRequest, streamed::add);
+
+        assertEquals(2, streamed.size());
+        assertEquals(2, summary.getTotal());
+        assertEquals(1, summary.getValid());
+        assertEquals(1, summary.getFailed());
+        assertEquals(1, summary.getProbed());
+        verify(checkResultQueue).enqueue(List.of(failed));
+    }
+
+    @Test
+    void checkDomainsAsync_WithPlannedGroup_ShouldShareLeaderHandshake() throws Exception {
+        testRequest.setDomains(Arrays.asList("www.example.com", "api.example.com"));
+        when(probePlanner.plan(any())).thenReturn(new ProbePlanner.Plan(
+                Map.of("api.example.com", new ProbePlanner.Plan.Group("www.example.com", "aa11"))));
+        CertificateInfo leaderInfo = wildcardCertificate("www.example.com", "aa11");
+        when(sslCertificateService.checkCertificateAsync("www.example.com", null))
+                .thenReturn(CompletableFuture.completedFuture(leaderInfo));
+
+        List<DomainCheckResponse> results = domainService.checkDomainsAsync(testRequest).get();
+
+        assertEquals(List.of("www.example.com", "api.example.com"),
+                results.stream().map(DomainCheckResponse::getDomain).toList());
+        assertTrue(results.get(1).isValid());
+        verify(sslCertificateService, times(1)).checkCertificateAsync(any(), any());
+        verify(probePlanner).recordHandshake(leaderInfo);
+        verify(checkResultQueue).enqueue(argThat(batch -> batch.size() == 2
+                && batch.get(1).getDomain().equals("api.example.com")));
+        assertEquals(1, meterRegistry.get(CheckMetrics.SHARED_PROBE_COUNTER).counter().count());
+    }
+
+    @Test
+    void checkDomainsAsync_WhilePlannerResolves_ShouldStartOtherProbesAndReuseItsLookup() throws Exception {
+        testRequest.setDomains(Arrays.asList("www.example.com", "other.org"));
+        CompletableFuture<InetAddress> lookup = new CompletableFuture<>();
+        CompletableFuture<Map<String, ProbePlanner.Plan.Group>> groups = new CompletableFuture<>();
+        when(probePlanner.plan(any())).thenReturn(new ProbePlanner.Plan(Map.of("www.example.com", lookup), groups));
+        when(sslCertificateService.checkCertificateAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(testCertificateInfo));
+
+        CompletableFuture<List<DomainCheckResponse>> results = domainService.checkDomainsAsync(testRequest);
+
+        verify(sslCertificateService).checkCertificateAsync("other.org", null);
+        verify(probeLimiter, never()).acquire(eq("www.example.com"), any());
+        groups.complete(Map.of());
+        assertEquals(2, results.get(5, TimeUnit.SECONDS).size());
+        verify(probeLimiter).acquire("www.example.com", lookup);
+    }
+
+    @Test
+    void checkDomainsStreaming_WhenLeaderCertificateChanged_ShouldProbeFollowerOnItsOwn() {
+        testRequest.setDomains(Arrays.asList("www.example.com", "api.example.com"));
+        when(probePlanner.plan(any())).thenReturn(new ProbePlanner.Plan(
+                Map.of("api.example.com", new ProbePlanner.Plan.Group("www.example.com", "aa11"))));
+        when(sslCertificateService.checkCertificateAsync("www.example.com", null))
+                .thenReturn(CompletableFuture.completedFuture(wildcardCertificate("www.example.com", "bb22")));
+        when(sslCertificateService.checkCertificateAsync("api.example.com", null))
+                .thenReturn(CompletableFuture.completedFuture(wildcardCertificate("api.example.com", "aa11")));
+
+        CheckSummary summary = domainService.checkDomainsStreaming(testRequest, response -> { });
+
+        assertEquals(2, summary.getProbed());
+        assertEquals(0, summary.getHandshakesSaved());
+        verify(sslCertificateService).checkCertificateAsync("api.example.com", null);
+        verify(probePlanner, times(2)).recordHandshake(any());
+    }
+
+    @Test
+    void checkDomainsStreaming_WhenListenerFails_ShouldStillSaveResults() {
+        CompletableFuture<CertificateInfo> certInfoFuture = CompletableFuture.completedFuture(testCertificateInfo);
+        when(sslCertificateService.checkCertificateAsync(FIRST_DOMAIN, null)).thenReturn(certInfoFuture);
+        when(sslCertificateService.checkCertificateAsync(SECOND_DOMAIN, null)).thenReturn(certInfoFuture);
+
+        CheckSummary summary = domainService.checkDomainsStreaming(testRequest, response -> {
+            throw new IllegalStateException("Broken pipe");
+        });
+
+        assertEquals(2, summary.getProbed());
+        verify(checkResultQueue).enqueue(argThat(batch -> batch.size() == 2));
+    }
+
+    @Test
+    void checkDomainsAsync_WhenDeadlinePasses_ShouldTimeOutAndCancelProbe() throws Exception {
+        testRequest.setDeadlineMs(100L);
+        CompletableFuture<CertificateInfo> hanging = new CompletableFuture<>();
+        when(sslCertificateService.checkCertificateAsync(FIRST_DOMAIN, null))
+                .thenReturn(CompletableFuture.completedFuture(testCertificateInfo));
+        when(sslCertificateService.checkCertificateAsync(SECOND_DOMAIN, null)).thenReturn(hanging);
+
+        List<DomainCheckResponse> results = domainService.checkDomainsAsync(testRequest).get(5, TimeUnit.SECONDS);
+
+        assertEquals(FIRST_DOMAIN, results.get(0).getDomain());
+        assertTrue(results.get(0).isValid());
+        assertEquals(SECOND_DOMAIN, results.get(1).getDomain());
+        assertEquals(DomainCheckResponse.TIMEOUT, results.get(1).getAlertLevel());
+        assertTrue(hanging.isCancelled());
+        verify(checkResultQueue).enqueue(List.of(testCertificateInfo));
+    }
+
+    @Test
+    void checkDomainsAsync_WhenOtherRequestStillWaits_ShouldNotCancelSharedProbe() throws Exception {
+        testRequest.setDomains(List.of(FIRST_DOMAIN));
+        CompletableFuture<CertificateInfo> probe = new CompletableFuture<>();
+        when(sslCertificateService.checkCertificateAsync(FIRST_DOMAIN, null)).thenReturn(probe);
+        DomainCheckRequest impatient = new DomainCheckRequest(List.of(FIRST_DOMAIN), false, 50L);
+
+        CompletableFuture<List<DomainCheckResponse>> patient = domainService.checkDomainsAsync(testRequest);
+        List<DomainCheckResponse> timedOut = domainService.checkDomainsAsync(impatient).get(5, TimeUnit.SECONDS);
+        probe.complete(testCertificateInfo);
+
+        assertEquals(DomainCheckResponse.TIMEOUT, timedOut.getFirst().getAlertLevel());
+        assertFalse(probe.isCancelled());
+        assertTrue(patient.get(5, TimeUnit.SECONDS).getFirst().isValid());
+    }
+
+    @Test
+    void checkDomains_WhenDeadlinePasses_ShouldSkipRemainingDomains() {
+        testRequest.setDeadlineMs(50L);
+        when(sslCertificateService.checkCertificate(FIRST_DOMAIN, null)).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return testCertificateInfo;
+        });
+
+        List<DomainCheckResponse> results = domainService.checkDomains(testRequest);
+
+        assertTrue(results.get(0).isValid());
+        assertEquals(DomainCheckResponse.TIMEOUT, results.get(1).getAlertLevel());
+        verify(sslCertificateService, never()).checkCertificate(eq(SECOND_DOMAIN), any());
+    }
+
+    @Test
+    void checkDomainsStreaming_WhenDeadlinePasses_ShouldReportRemainingAsTimedOut() {
+        testRequest.setDeadlineMs(100L);
+        CompletableFuture<CertificateInfo> hanging = new CompletableFuture<>();
+        when(sslCertificateService.checkCertificateAsync(FIRST_DOMAIN, null))
+                .thenReturn(CompletableFuture.completedFuture(testCertificateInfo));
+        when(sslCertificateService.checkCertificateAsync(SECOND_DOMAIN, null)).thenReturn(hanging);
+        List<DomainCheckResponse> streamed = new ArrayList<>();
+
+        CheckSummary summary = domainService.checkDomainsStreaming(testRequest, streamed::add);
+
+        assertEquals(2, streamed.size());
+        assertEquals(DomainCheckResponse.TIMEOUT, streamed.get(1).getAlertLevel());
+        assertEquals(1, summary.getValid());
+        assertEquals(1, summary.getFailed());
+        assertEquals(1, summary.getTimedOut());
+        assertTrue(hanging.isCancelled());
     }
 
     @Test
     void getDomainsExpiringSoon_ShouldReturnFilteredResults() {
         int days = 30;
-        List<CertificateCheck> expectedChecks = Collections.singletonList(testCertificateCheck);
-        when(certificateCheckRepository.findLatestChecksExpiringBefore(any(LocalDateTime.class)))
-                .thenReturn(expectedChecks);
+        ExpiringDomain expiring = new ExpiringDomain(testDomain.getDomainName(), testCertificateCheck.getExpiryDate(),
+                testCertificateCheck.getCheckTime());
+        when(domainStatusRepository.findValidExpiringBefore(any(LocalDateTime.class)))
+                .thenReturn(Collections.singletonList(expiring));
 
         List<DomainCheckResponse> results = domainService.getDomainsExpiringSoon(days);
 
         assertNotNull(results);
         assertEquals(1, results.size());
         assertEquals(testDomain.getDomainName(), results.getFirst().getDomain());
-        verify(certificateCheckRepository).findLatestChecksExpiringBefore(any(LocalDateTime.class));
+        assertEquals("WARNING", results.getFirst().getAlertLevel());
+        verify(domainStatusRepository).findValidExpiringBefore(any(LocalDateTime.class));
+        verifyNoInteractions(certificateCheckRepository);
+    }
+
+    @Test
+    void getDomainsExpiringSoon_ShouldUseConfiguredThresholds() {
+        properties.getThresholds().setCritical(45);
+        ExpiringDomain expiring = new ExpiringDomain(testDomain.getDomainName(), testCertificateCheck.getExpiryDate(),
+                testCertificateCheck.getCheckTime());
+        when(domainStatusRepository.findValidExpiringBefore(any(LocalDateTime.class))).thenReturn(List.of(expiring));
+
+        List<DomainCheckResponse> results = domainService.getDomainsExpiringSoon(30);
+
+        assertEquals("CRITICAL", results.getFirst().getAlertLevel());
+    }
+
+    @Test
+    void getExpirySummary_WhenIndexNotReady_ShouldCountFromDatabase() {
+        LocalDate today = LocalDate.now();
+        when(domainStatusRepository.countFailed()).thenReturn(2L);
+        when(domainStatusRepository.countValidByExpiryDay()).thenReturn(List.of(
+                expiryDayCount(today.minusDays(1), 1),
+                expiryDayCount(today.plusDays(20), 3),
+                expiryDayCount(today.plusDays(200), 5)));
+
+        ExpirySummary summary = domainService.getExpirySummary(30);
+
+        assertEquals(today, summary.getDate());
+        assertEquals(11, summary.getTotal());
+        assertEquals(Map.of(AlertLevel.OK, 5L, AlertLevel.INFO, 0L, AlertLevel.WARNING, 3L,
+                AlertLevel.CRITICAL, 1L, AlertLevel.ERROR, 2L), summary.getByAlertLevel());
+        assertEquals(Map.of(-1, 1L, 20, 3L), summary.getByDaysUntilExpiry());
+    }
+
+    @Test
+    void getDomainsExpiringSoon_WhenIndexReady_ShouldNotQueryDatabase() {
+        ExpiringDomain expiring = new ExpiringDomain(FIRST_DOMAIN, LocalDateTime.now().plusDays(5), LocalDateTime.now());
+        when(expiryIndex.isReady()).thenReturn(true);
+        when(expiryIndex.findValidExpiringBefore(any(LocalDateTime.class))).thenReturn(List.of(expiring));
+
+        List<DomainCheckResponse> results = domainService.getDomainsExpiringSoon(30);
+
+        assertEquals(FIRST_DOMAIN, results.getFirst().getDomain());
+        assertEquals("CRITICAL", results.getFirst().getAlertLevel());
+        verifyNoInteractions(domainStatusRepository);
+    }
+
+    @Test
+    void getIssuerCounts_ShouldMapRepositoryCounts() {
+        CertificateRepository.IssuerCount count = mock(CertificateRepository.IssuerCount.class);
+        when(count.getIssuer()).thenReturn("Test CA");
+        when(count.getDomains()).thenReturn(42L);
+        when(certificateRepository.countValidByIssuer()).thenReturn(List.of(count));
+
+        List<IssuerCount> result = domainService.getIssuerCounts();
+
+        assertEquals(List.of(new IssuerCount("Test CA", 42)), result);
     }
 
     @Test
@@ -148,6 +523,41 @@ class DomainServiceTest {
         verify(certificateCheckRepository).findByDomainOrderByCheckTimeDesc(testDomain, pageable);
     }
 
+    @Test
+    void getDomainHistory_WithCursor_ShouldSeekAfterItAndReturnNextCursor() {
+        CertificateCheck older = new CertificateCheck();
+        older.setId(2L);
+        older.setCheckTime(LocalDateTime.of(2025, 8, 1, 12, 0));
+        String cursor = new HistoryCursor(LocalDateTime.of(2025, 8, 2, 12, 0), 3L).encode();
+        when(domainRepository.findByDomainName(FIRST_DOMAIN)).thenReturn(Optional.of(testDomain));
+        when(certificateCheckRepository.findHistoryBefore(1L, LocalDateTime.of(2025, 8, 2, 12, 0), 3L, 2))
+                .thenReturn(List.of(older, testCertificateCheck));
+
+        HistoryPage page = domainService.getDomainHistory(FIRST_DOMAIN, cursor, 1);
+
+        assertEquals(List.of(older), page.getContent());
+        assertEquals(HistoryCursor.after(older), HistoryCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getDomainHistory_OnLastPage_ShouldReturnNoCursor() {
+        when(domainRepository.findByDomainName(FIRST_DOMAIN)).thenReturn(Optional.of(testDomain));
+        when(certificateCheckRepository.findHistory(1L, 21)).thenReturn(List.of(testCertificateCheck));
+
+        HistoryPage page = domainService.getDomainHistory(FIRST_DOMAIN, null, 20);
+
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getDomainHistory_WithMalformedCursor_ShouldThrowInvalidCursor() {
+        when(domainRepository.findByDomainName(FIRST_DOMAIN)).thenReturn(Optional.of(testDomain));
+
+        assertThrows(InvalidCursorException.class,
+                () -> domainService.getDomainHistory(FIRST_DOMAIN, "not-a-cursor", 20));
+    }
+
     @Test
     void getDomainHistory_WhenDomainNotFound_ShouldThrowException() {
         Pageable pageable = PageRequest.of(0, 10);
@@ -159,4 +569,32 @@ class DomainServiceTest {
         verify(domainRepository).findByDomainName(INVALID_DOMAIN);
         verify(certificateCheckRepository, never()).findByDomainOrderByCheckTimeDesc(any(), any());
     }
-}
\ No newline at end of file
+
+    private static DomainStatusRepository.ExpiryDayCount expiryDayCount(LocalDate expiryDay, long domains) {
+        return new DomainStatusRepository.ExpiryDayCount() {
+            @Override
+            public LocalDate getExpiryDay() {
+                return expiryDay;
+            }
+
+            @Override
+            public long getDomains() {
+                return domains;
+            }
+        };
+    }
+
+    private static CertificateInfo wildcardCertificate(String domain, String fingerprint) {
+        return CertificateInfo.builder()
+                .domain(domain)
+                .isValid(true)
+                .expiryDate(LocalDateTime.now().plusDays(60))
+                .issuer("Test CA")
+                .subject("CN=*.example.com")
+                .daysUntilExpiry(60)
+                .checkTime(LocalDateTime.now())
+                .fingerprint(fingerprint)
+                .subjectAltNames(List.of("*.example.com"))
+                .build();
+    }
+}
@@ -0,0 +1,183 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.AlertLevel;
+import com.media.sslmonitor.dto.ExpiringDomain;
+import com.media.sslmonitor.dto.ExpirySummary;
+import com.media.sslmonitor.entity.DomainStatus;
+import com.media.sslmonitor.service.impl.ExpiryIndexImpl;
+import com.media.sslmonitor.support.MutableClock;
+import com.media.sslmonitor.support.PostgresModeDataJpaTest;
+import com.media.sslmonitor.util.ExpiryUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresModeDataJpaTest
+@Import({ExpiryIndexImpl.class, SslCheckProperties.class})
+class ExpiryIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 8, 7, 12, 0, 0, 123_456_000);
+
+    @Autowired
+    private ExpiryIndexImpl expiryIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void load_ShouldIndexValidStatusesByExpiry() {
+        insertStatus(1, "late.com", true, NOW.plusDays(20));
+        insertStatus(2, "soon.com", true, NOW.plusDays(3));
+        insertStatus(3, "broken.com", false, null);
+        insertStatus(4, "far.com", true, NOW.plusDays(200));
+
+        expiryIndex.load();
+
+        // The index is shared with the other tests in this context, so only the loaded domains are compared
+        assertTrue(expiryIndex.isReady());
+        assertTrue(expiryIndex.size() >= 4);
+        List<ExpiringDomain> expiring = expiryIndex.findValidExpiringBefore(NOW.plusDays(30)).stream()
+                .filter(domain -> domain.domainName().matches("(late|soon|broken|far)\\.com"))
+                .toList();
+        assertEquals(List.of("soon.com", "late.com"), expiring.stream().map(ExpiringDomain::domainName).toList());
+        // Certificate expiries are whole seconds, which is all the index keeps
+        assertEquals(NOW.plusDays(3).withNano(0), expiring.getFirst().expiryDate());
+        assertEquals(NOW, expiring.getFirst().checkTime());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void update_ShouldReplaceExpiryAndIgnoreOlderChecks() {
+        expiryIndex.update(List.of(status("renewed.com", NOW, true, NOW.plusDays(2))));
+        expiryIndex.update(List.of(status("renewed.com", NOW.plusHours(1), true, NOW.plusDays(90))));
+        expiryIndex.update(List.of(status("renewed.com", NOW.minusHours(1), true, NOW.plusDays(1))));
+        expiryIndex.update(List.of(status("failing.com", NOW, true, NOW.plusDays(1)),
+                status("failing.com", NOW.plusHours(1), false, null)));
+
+        assertEquals(List.of(), expiringNames(NOW.plusDays(30), "renewed.com", "failing.com"));
+        assertEquals(List.of("renewed.com"), expiringNames(NOW.plusDays(90), "renewed.com", "failing.com"));
+    }
+
+    @Test
+    void update_InTransaction_ShouldApplyOnlyAfterCommit() {
+        expiryIndex.update(List.of(status("committed.com", NOW, true, NOW.plusDays(1))));
+        assertEquals(List.of(), expiringNames(NOW.plusDays(2), "committed.com"));
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertEquals(List.of("committed.com"), expiringNames(NOW.plusDays(2), "committed.com"));
+    }
+
+    private List<String> expiringNames(LocalDateTime before, String... domainNames) {
+        List<String> names = List.of(domainNames);
+        return expiryIndex.findValidExpiringBefore(before).stream()
+                .map(ExpiringDomain::domainName)
+                .filter(names::contains)
+                .toList();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void summarize_ShouldCountDomainsByLevelAndExpiryDay() {
+        ExpiryIndexImpl index = new ExpiryIndexImpl(new SslCheckProperties(), jdbcTemplate, clockAt(NOW));
+        index.update(List.of(
+                status("critical.com", NOW, true, NOW.plusDays(3)),
+                status("warning.com", NOW, true, NOW.plusDays(20)),
+                status("info.com", NOW, true, NOW.plusDays(60)),
+                status("ok.com", NOW, true, NOW.plusDays(200)),
+                status("broken.com", NOW, false, null)));
+
+        ExpirySummary summary = index.summarize(30);
+
+        assertEquals(NOW.toLocalDate(), summary.getDate());
+        assertEquals(5, summary.getTotal());
+        assertEquals(levels(1, 1, 1, 1, 1), summary.getByAlertLevel());
+        assertEquals(Map.of(3, 1L, 20, 1L), summary.getByDaysUntilExpiry());
+
+        index.update(List.of(status("warning.com", NOW.plusHours(1), true, NOW.plusDays(200)),
+                status("broken.com", NOW.plusHours(1), true, NOW.plusDays(3))));
+
+        assertEquals(levels(2, 1, 0, 2, 0), index.summarize(30).getByAlertLevel());
+        assertEquals(Map.of(3, 2L), index.summarize(30).getByDaysUntilExpiry());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void summarize_WhenDaysPass_ShouldMoveDomainsAcrossThresholds() {
+        MutableClock clock = clockAt(NOW);
+        ExpiryIndexImpl index = new ExpiryIndexImpl(new SslCheckProperties(), jdbcTemplate, clock);
+        index.update(List.of(
+                status("eight.com", NOW, true, NOW.plusDays(8)),
+                status("thirty-one.com", NOW, true, NOW.plusDays(31)),
+                status("ninety-one.com", NOW, true, NOW.plusDays(91))));
+        assertEquals(levels(1, 1, 1, 0, 0), index.summarize(100).getByAlertLevel());
+
+        clock.advance(Duration.ofDays(1));
+        assertEquals(levels(0, 1, 1, 1, 0), index.summarize(100).getByAlertLevel());
+        assertEquals(Map.of(7, 1L, 30, 1L, 90, 1L), index.summarize(100).getByDaysUntilExpiry());
+
+        clock.advance(Duration.ofDays(10));
+        assertEquals(levels(0, 1, 1, 1, 0), index.summarize(100).getByAlertLevel());
+        assertEquals(Map.of(-3, 1L, 20, 1L, 80, 1L), index.summarize(100).getByDaysUntilExpiry());
+
+        clock.advance(Duration.ofDays(-30));
+        assertEquals(levels(1, 1, 1, 0, 0), index.summarize(100).getByAlertLevel());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void summarize_WhenExpiryIsEarlierInTheDayThanNow_ShouldCountDaysLikeResponses() {
+        ExpiryIndexImpl index = new ExpiryIndexImpl(new SslCheckProperties(), jdbcTemplate, clockAt(NOW));
+        // Eight calendar days away but less than eight full days, on the critical threshold's edge
+        LocalDateTime expiry = NOW.plusDays(8).withHour(9);
+        index.update(List.of(status("morning.com", NOW, true, expiry)));
+
+        int daysUntilExpiry = ExpiryUtils.daysUntilExpiry(NOW, expiry);
+        assertEquals(8, daysUntilExpiry);
+        assertEquals(Map.of(daysUntilExpiry, 1L), index.summarize(30).getByDaysUntilExpiry());
+        assertEquals(AlertLevel.of(daysUntilExpiry, new SslCheckProperties().getThresholds()), AlertLevel.WARNING);
+        assertEquals(levels(0, 0, 1, 0, 0), index.summarize(30).getByAlertLevel());
+    }
+
+    private static MutableClock clockAt(LocalDateTime time) {
+        return new MutableClock(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Map<AlertLevel, Long> levels(long ok, long info, long warning, long critical, long error) {
+        return Map.of(AlertLevel.OK, ok, AlertLevel.INFO, info, AlertLevel.WARNING, warning,
+                AlertLevel.CRITICAL, critical, AlertLevel.ERROR, error);
+    }
+
+    private void insertStatus(long domainId, String domainName, boolean valid, LocalDateTime expiryDate) {
+        jdbcTemplate.update("""
+                        INSERT INTO domain_status (domain_id, domain_name, last_check_id, check_time, is_valid, expiry_date)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """, domainId, domainName, domainId, Timestamp.valueOf(NOW), valid,
+                expiryDate != null ? Timestamp.valueOf(expiryDate) : null);
+    }
+
+    private static DomainStatus status(String domainName, LocalDateTime checkTime, boolean valid,
+                                       LocalDateTime expiryDate) {
+        DomainStatus status = new DomainStatus();
+        status.setDomainName(domainName);
+        status.setCheckTime(checkTime);
+        status.setValid(valid);
+        status.setExpiryDate(expiryDate);
+        return status;
+    }
+}
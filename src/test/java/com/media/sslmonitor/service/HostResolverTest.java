@@ -0,0 +1,90 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.service.impl.HostResolverImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostResolverTest {
+
+    private static final InetAddress ADDRESS = InetAddress.getLoopbackAddress();
+
+    private SslCheckProperties properties;
+    private HostResolverImpl resolver;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SslCheckProperties();
+        properties.getDns().setResolverThreads(1);
+        properties.getTimeouts().setDns(Duration.ofMillis(300));
+    }
+
+    @AfterEach
+    void tearDown() {
+        resolver.destroy();
+    }
+
+    @Test
+    void resolve_BehindSlowLookup_ShouldStartTimeoutWhenLookupRuns() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        resolver = new HostResolverImpl(properties, host -> {
+            if (host.equals("slow.example.com")) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                throw new UnknownHostException(host);
+            }
+            return ADDRESS;
+        });
+
+        CompletableFuture<InetAddress> slow = resolver.resolve("slow.example.com");
+        CompletableFuture<InetAddress> queued = resolver.resolve("fast.example.com");
+
+        ExecutionException timedOut = assertThrows(ExecutionException.class, () -> slow.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(UnknownHostException.class, timedOut.getCause());
+        assertTrue(timedOut.getCause().getMessage().contains("timed out"));
+        // The timed-out lookup was cancelled, which freed the only thread for the queued one
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(ADDRESS, queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void resolve_WhenCallerGivesUpWhileQueued_ShouldNotLookUp() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> lookedUp = new CopyOnWriteArrayList<>();
+        resolver = new HostResolverImpl(properties, host -> {
+            lookedUp.add(host);
+            if (host.equals("busy.example.com")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return ADDRESS;
+        });
+
+        CompletableFuture<InetAddress> busy = resolver.resolve("busy.example.com");
+        resolver.resolve("abandoned.example.com").cancel(false);
+        release.countDown();
+
+        assertEquals(ADDRESS, busy.get(5, TimeUnit.SECONDS));
+        assertEquals(ADDRESS, resolver.resolve("next.example.com").get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("busy.example.com", "next.example.com"), lookedUp);
+    }
+}
@@ -0,0 +1,197 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.impl.HostResolverImpl;
+import com.media.sslmonitor.service.impl.NioSSLCertificateServiceImpl;
+import com.media.sslmonitor.support.TestTlsServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NioSSLCertificateServiceTest {
+
+    private TestTlsServer server;
+    private SslCheckProperties properties;
+    private HostResolverImpl hostResolver;
+    private SimpleMeterRegistry meterRegistry;
+    private NioSSLCertificateServiceImpl sslCertificateService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = TestTlsServer.start();
+        properties = new SslCheckProperties();
+        hostResolver = new HostResolverImpl(properties);
+        meterRegistry = new SimpleMeterRegistry();
+        sslCertificateService = new NioSSLCertificateServiceImpl(
+                properties, server.trustManager(), hostResolver, new CheckMetrics(meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        sslCertificateService.destroy();
+        hostResolver.destroy();
+        server.close();
+    }
+
+    @Test
+    void checkCertificate_WithTrustedServer_ShouldReturnValidCertificateInfo() throws Exception {
+        CertificateInfo result = sslCertificateService.checkCertificate(server.getDomain());
+
+        LocalDateTime expectedExpiry = LocalDateTime.ofInstant(
+                server.getCertificate().getNotAfter().toInstant(), ZoneId.systemDefault());
+        assertTrue(result.isValid());
+        assertNull(result.getErrorMessage());
+        assertEquals(server.getDomain(), result.getDomain());
+        assertEquals(expectedExpiry, result.getExpiryDate());
+        assertEquals("CN=localhost", result.getSubject());
+        assertEquals(64, result.getFingerprint().length());
+    }
+
+    @Test
+    void checkCertificate_WithTrustedServer_ShouldTimeEveryStage() {
+        sslCertificateService.checkCertificate(server.getDomain());
+
+        for (String stage : List.of("dns", "connect", "handshake", "parse")) {
+            assertEquals(1, meterRegistry.get(CheckMetrics.STAGE_TIMER).tag("stage", stage).timer().count(), stage);
+        }
+    }
+
+    @Test
+    void checkCertificate_WithSessionResumption_ShouldResumeOnRecheck() throws Exception {
+        properties.getNio().setSessionResumption(true);
+        properties.getNio().setFullHandshakeWithin(Duration.ZERO);
+        NioSSLCertificateServiceImpl resuming = new NioSSLCertificateServiceImpl(
+                properties, server.trustManager(), hostResolver, new CheckMetrics(meterRegistry));
+        try {
+            CertificateInfo first = resuming.checkCertificate(server.getDomain());
+            CertificateInfo second = resuming.checkCertificate(server.getDomain());
+
+            assertTrue(first.isValid());
+            assertTrue(second.isValid());
+            assertEquals(first.getExpiryDate(), second.getExpiryDate());
+            assertEquals(1, handshakes("full"));
+            assertEquals(1, handshakes("resumed"));
+        } finally {
+            resuming.destroy();
+        }
+    }
+
+    @Test
+    void checkCertificate_WithResumedCertificateCloseToExpiry_ShouldForceFullHandshake() throws Exception {
+        properties.getNio().setSessionResumption(true);
+        properties.getNio().setFullHandshakeWithin(Duration.ofDays(365 * 100));
+        NioSSLCertificateServiceImpl resuming = new NioSSLCertificateServiceImpl(
+                properties, server.trustManager(), hostResolver, new CheckMetrics(meterRegistry));
+        try {
+            resuming.checkCertificate(server.getDomain());
+            CertificateInfo recheck = resuming.checkCertificate(server.getDomain());
+
+            assertTrue(recheck.isValid());
+            assertEquals(2, handshakes("full"));
+            assertEquals(0, handshakes("resumed"));
+            assertEquals(3, server.getConnectionCount());
+        } finally {
+            resuming.destroy();
+        }
+    }
+
+    @Test
+    void checkCertificate_WithDomainContainingProtocol_ShouldCleanDomainName() {
+        CertificateInfo result = sslCertificateService.checkCertificate("https://" + server.getDomain() + "/path");
+
+        assertTrue(result.isValid());
+        assertEquals(server.getDomain(), result.getDomain());
+    }
+
+    @Test
+    void checkCertificate_WithUntrustedCertificate_ShouldReturnInvalidCertificateInfo() throws Exception {
+        NioSSLCertificateServiceImpl defaultTrust = new NioSSLCertificateServiceImpl(
+                properties, hostResolver, new CheckMetrics(new SimpleMeterRegistry()));
+        try {
+            CertificateInfo result = defaultTrust.checkCertificate(server.getDomain());
+
+            assertFalse(result.isValid());
+            assertNotNull(result.getErrorMessage());
+            assertNull(result.getExpiryDate());
+        } finally {
+            defaultTrust.destroy();
+        }
+    }
+
+    @Test
+    void checkCertificate_WithClosedPort_ShouldReturnInvalidCertificateInfo() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+
+        CertificateInfo result = sslCertificateService.checkCertificate("localhost:" + closedPort);
+
+        assertFalse(result.isValid());
+        assertNotNull(result.getErrorMessage());
+    }
+
+    @Test
+    void checkCertificate_WithSilentServer_ShouldFailAfterHandshakeTimeout() throws Exception {
+        properties.getTimeouts().setHandshake(Duration.ofMillis(200));
+        NioSSLCertificateServiceImpl prober = new NioSSLCertificateServiceImpl(
+                properties, server.trustManager(), hostResolver, new CheckMetrics(meterRegistry));
+        try (ServerSocket silent = new ServerSocket(0)) {
+            long startTime = System.nanoTime();
+
+            CertificateInfo result = prober.checkCertificate("localhost:" + silent.getLocalPort());
+
+            assertFalse(result.isValid());
+            assertEquals("Read timed out", result.getErrorMessage());
+            assertTrue(Duration.ofNanos(System.nanoTime() - startTime).compareTo(Duration.ofSeconds(5)) < 0);
+        } finally {
+            prober.destroy();
+        }
+    }
+
+    @Test
+    void checkCertificateAsync_WhenCancelled_ShouldCloseConnection() throws Exception {
+        try (ServerSocket silent = new ServerSocket(0)) {
+            CompletableFuture<CertificateInfo> probe =
+                    sslCertificateService.checkCertificateAsync("localhost:" + silent.getLocalPort());
+            try (Socket accepted = silent.accept()) {
+                accepted.setSoTimeout(5000);
+
+                probe.cancel(true);
+
+                // Returns at end of stream; times out if the prober keeps the connection open
+                accepted.getInputStream().readAllBytes();
+            }
+        }
+    }
+
+    @Test
+    void checkCertificateAsync_WithManyConcurrentProbes_ShouldCompleteAllOnOneSelectorThread() {
+        List<CompletableFuture<CertificateInfo>> futures = IntStream.range(0, 200)
+                .mapToObj(i -> sslCertificateService.checkCertificateAsync(server.getDomain()))
+                .toList();
+
+        List<CertificateInfo> results = futures.stream().map(CompletableFuture::join).toList();
+
+        assertEquals(200, results.size());
+        assertTrue(results.stream().allMatch(CertificateInfo::isValid));
+    }
+
+    private double handshakes(String type) {
+        return meterRegistry.get(CheckMetrics.HANDSHAKE_COUNTER).tag("type", type).counter().count();
+    }
+}
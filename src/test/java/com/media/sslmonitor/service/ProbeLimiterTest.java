@@ -0,0 +1,151 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.impl.HostResolverImpl;
+import com.media.sslmonitor.service.impl.ProbeLimiterImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProbeLimiterTest {
+
+    private SslCheckProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private HostResolverImpl hostResolver;
+    private ProbeLimiterImpl limiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SslCheckProperties();
+        properties.getLimits().setMaxPerIp(2);
+        meterRegistry = new SimpleMeterRegistry();
+        hostResolver = new HostResolverImpl(properties);
+        limiter = new ProbeLimiterImpl(properties, hostResolver, new CheckMetrics(meterRegistry), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hostResolver.destroy();
+    }
+
+    @Test
+    void acquire_OverIpLimit_ShouldWaitWithoutBlockingOtherHosts() throws Exception {
+        ProbeLimiter.Permit first = await(limiter.acquire("127.0.0.1"));
+        await(limiter.acquire("127.0.0.1:8443"));
+        CompletableFuture<ProbeLimiter.Permit> third = limiter.acquire("https://127.0.0.1/");
+        waitForQueuedProbes(1);
+
+        assertFalse(third.isDone());
+        assertNotNull(await(limiter.acquire("127.0.0.2")));
+
+        first.release();
+        assertNotNull(await(third));
+        assertEquals(1, meterRegistry.get("ssl.check.limit.waits").tag("limit", "ip").counter().count());
+        assertEquals(1, meterRegistry.get("ssl.check.limit.wait").tag("limit", "ip").timer().count());
+    }
+
+    @Test
+    void acquire_OverDomainLimit_ShouldWaitForSameRegistrableDomain() throws Exception {
+        properties.getLimits().setMaxPerDomain(1);
+        ProbeLimiter.Permit first = await(limiter.acquire("localhost"));
+        CompletableFuture<ProbeLimiter.Permit> second = limiter.acquire("localhost:8443");
+
+        assertFalse(second.isDone());
+        assertNotNull(await(limiter.acquire("127.0.0.1")));
+        first.release();
+        first.release();
+        assertNotNull(await(second));
+        assertEquals(1, meterRegistry.get("ssl.check.limit.waits").tag("limit", "domain").counter().count());
+    }
+
+    @Test
+    void acquire_WhileWaitingForAnAddress_ShouldNotHoldUpOtherAddressesOfTheDomain() throws Exception {
+        properties.getLimits().setMaxPerIp(1);
+        properties.getLimits().setMaxPerDomain(2);
+        HostResolverImpl stubResolver = new HostResolverImpl(properties, host -> InetAddress.getByAddress(host,
+                host.startsWith("a.") ? new byte[]{10, 0, 0, 1} : new byte[]{10, 0, 0, 2}));
+        try {
+            ProbeLimiterImpl stubLimiter = new ProbeLimiterImpl(properties, stubResolver,
+                    new CheckMetrics(meterRegistry), meterRegistry);
+            ProbeLimiter.Permit first = await(stubLimiter.acquire("a.example.com"));
+            CompletableFuture<ProbeLimiter.Permit> second = stubLimiter.acquire("a.example.com:8443");
+            waitForQueuedProbes(1);
+
+            ProbeLimiter.Permit other = await(stubLimiter.acquire("b.example.com"));
+            assertEquals("10.0.0.2", other.address().getHostAddress());
+            assertFalse(second.isDone());
+
+            first.release();
+            assertEquals("10.0.0.1", await(second).address().getHostAddress());
+        } finally {
+            stubResolver.destroy();
+        }
+    }
+
+    @Test
+    void acquire_WhenHostDoesNotResolve_ShouldFailWithoutPermit() {
+        HostResolverImpl stubResolver = new HostResolverImpl(properties, host -> {
+            throw new UnknownHostException(host);
+        });
+        try {
+            ProbeLimiterImpl stubLimiter = new ProbeLimiterImpl(properties, stubResolver,
+                    new CheckMetrics(meterRegistry), meterRegistry);
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> await(stubLimiter.acquire("missing.example.com")));
+            assertInstanceOf(UnknownHostException.class, failure.getCause());
+        } finally {
+            stubResolver.destroy();
+        }
+    }
+
+    @Test
+    void acquire_WithPlannerLookup_ShouldUseItsAddressWithoutResolvingAgain() throws Exception {
+        HostResolverImpl failingResolver = new HostResolverImpl(properties, host -> {
+            throw new UnknownHostException("Resolved twice: " + host);
+        });
+        try {
+            ProbeLimiterImpl reusing = new ProbeLimiterImpl(properties, failingResolver,
+                    new CheckMetrics(meterRegistry), meterRegistry);
+            InetAddress planned = InetAddress.getByAddress("www.example.com", new byte[]{10, 0, 0, 1});
+
+            ProbeLimiter.Permit permit = await(reusing.acquire("www.example.com",
+                    CompletableFuture.completedFuture(planned)));
+
+            assertSame(planned, permit.address());
+        } finally {
+            failingResolver.destroy();
+        }
+    }
+
+    @Test
+    void acquire_WhenDisabled_ShouldNotLimit() {
+        properties.getLimits().setEnabled(false);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.acquire("127.0.0.1").isDone());
+        }
+    }
+
+    private static ProbeLimiter.Permit await(CompletableFuture<ProbeLimiter.Permit> permit) throws Exception {
+        return permit.get(5, TimeUnit.SECONDS);
+    }
+
+    private void waitForQueuedProbes(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("ssl.check.limit.waiting").gauge().value() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
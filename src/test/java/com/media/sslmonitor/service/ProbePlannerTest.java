@@ -0,0 +1,137 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.service.impl.ProbePlannerImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProbePlannerTest {
+
+    @Mock
+    private HostResolver hostResolver;
+
+    private SslCheckProperties properties;
+    private ProbePlannerImpl planner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new SslCheckProperties();
+        planner = new ProbePlannerImpl(properties, hostResolver);
+        resolves("www.example.com", "10.0.0.1");
+        resolves("api.example.com", "10.0.0.1");
+        resolves("cdn.example.com", "10.0.0.2");
+    }
+
+    @Test
+    void plan_WithNamesOnOneAddressAndCertificate_ShouldFollowFirstName() {
+        verified("www.example.com", "aa11");
+        verified("api.example.com", "aa11");
+        verified("cdn.example.com", "aa11");
+        verified("api.example.com:8443", "aa11");
+
+        ProbePlanner.Plan plan = planner.plan(List.of("www.example.com", "api.example.com", "cdn.example.com",
+                "api.example.com:8443", "new.example.com"));
+
+        plan.grouped().join();
+        assertEquals(1, plan.followers());
+        assertEquals("www.example.com", plan.leaderOf("api.example.com").join());
+        assertNull(plan.leaderOf("www.example.com").join());
+        assertNull(plan.leaderOf("cdn.example.com").join());
+        assertNull(plan.leaderOf("new.example.com").join());
+        // The probes reuse the planner's lookups
+        assertNotNull(plan.addressOf("www.example.com"));
+        assertNull(plan.addressOf("new.example.com"));
+        verify(hostResolver, times(1)).resolve("api.example.com");
+    }
+
+    @Test
+    void plan_WithDifferentCertificatesOrFailedHandshake_ShouldNotGroup() {
+        verified("www.example.com", "aa11");
+        verified("api.example.com", "bb22");
+        verified("cdn.example.com", "aa11");
+        planner.recordHandshake(CertificateInfo.failed("cdn.example.com", "Connection refused"));
+
+        ProbePlanner.Plan plan = planner.plan(List.of("www.example.com", "api.example.com", "cdn.example.com"));
+
+        plan.grouped().join();
+        assertEquals(0, plan.followers());
+        verifyNoInteractions(hostResolver);
+    }
+
+    @Test
+    void plan_WhileLookupsRun_ShouldOnlyHoldBackNamesThatMayBeGrouped() throws Exception {
+        CompletableFuture<InetAddress> slowLookup = new CompletableFuture<>();
+        when(hostResolver.resolve("api.example.com")).thenReturn(slowLookup);
+        verified("www.example.com", "aa11");
+        verified("api.example.com", "aa11");
+
+        ProbePlanner.Plan plan = planner.plan(List.of("www.example.com", "api.example.com", "new.example.com"));
+
+        assertTrue(plan.leaderOf("new.example.com").isDone());
+        assertFalse(plan.leaderOf("api.example.com").isDone());
+        slowLookup.complete(InetAddress.getByName("10.0.0.1"));
+        assertEquals("www.example.com", plan.leaderOf("api.example.com").join());
+        assertSame(slowLookup, plan.addressOf("api.example.com"));
+    }
+
+    @Test
+    void plan_WhenDisabled_ShouldProbeEveryName() {
+        properties.getProbeSharing().setEnabled(false);
+        ProbePlannerImpl disabled = new ProbePlannerImpl(properties, hostResolver);
+        disabled.recordHandshake(certificate("www.example.com", "aa11"));
+        disabled.recordHandshake(certificate("api.example.com", "aa11"));
+
+        assertSame(ProbePlanner.Plan.NONE, disabled.plan(List.of("www.example.com", "api.example.com")));
+    }
+
+    @Test
+    void share_ShouldOnlyAcceptTheExpectedCertificateCoveringTheName() {
+        ProbePlanner.Plan plan = new ProbePlanner.Plan(Map.of(
+                "api.example.com", new ProbePlanner.Plan.Group("www.example.com", "aa11"),
+                "other.org", new ProbePlanner.Plan.Group("www.example.com", "aa11")));
+        CertificateInfo leader = certificate("www.example.com", "aa11");
+
+        assertEquals("api.example.com", plan.share("api.example.com", leader).orElseThrow().getDomain());
+        assertTrue(plan.share("other.org", leader).isEmpty());
+        assertTrue(plan.share("api.example.com", certificate("www.example.com", "bb22")).isEmpty());
+        assertTrue(plan.share("api.example.com", CertificateInfo.failed("www.example.com", "Timed out")).isEmpty());
+        assertEquals(1, plan.shared());
+    }
+
+    private void verified(String domain, String fingerprint) {
+        planner.recordHandshake(certificate(domain, fingerprint));
+    }
+
+    private void resolves(String host, String address) throws UnknownHostException {
+        lenient().when(hostResolver.resolve(host))
+                .thenReturn(CompletableFuture.completedFuture(InetAddress.getByName(address)));
+    }
+
+    private static CertificateInfo certificate(String domain, String fingerprint) {
+        return CertificateInfo.builder()
+                .domain(domain)
+                .isValid(true)
+                .expiryDate(LocalDateTime.now().plusDays(60))
+                .issuer("Test CA")
+                .daysUntilExpiry(60)
+                .checkTime(LocalDateTime.now())
+                .fingerprint(fingerprint)
+                .subjectAltNames(List.of("*.example.com"))
+                .build();
+    }
+}
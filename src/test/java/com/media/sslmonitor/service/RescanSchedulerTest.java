@@ -0,0 +1,162 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.dto.DomainCheckRequest;
+import com.media.sslmonitor.dto.DomainCheckResponse;
+import com.media.sslmonitor.entity.Domain;
+import com.media.sslmonitor.entity.DomainStatus;
+import com.media.sslmonitor.repository.DomainStatusRepository;
+import com.media.sslmonitor.service.impl.RescanSchedulerImpl;
+import com.media.sslmonitor.support.MutableClock;
+import com.media.sslmonitor.support.PostgresModeDataJpaTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@PostgresModeDataJpaTest
+class RescanSchedulerTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DomainStatusRepository domainStatusRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final MutableClock clock = new MutableClock(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+    private final DomainService domainService = mock(DomainService.class);
+    private SslCheckProperties properties;
+    private RescanSchedulerImpl scheduler;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SslCheckProperties();
+        properties.getScheduler().setJitter(0);
+        scheduler = new RescanSchedulerImpl(properties, domainService, jdbcTemplate, clock);
+    }
+
+    @Test
+    void loadDomains_ShouldScheduleByLastCheckAndDaysUntilExpiry() {
+        LocalDateTime lastCheck = LocalDateTime.now(clock).minusMinutes(30);
+        domain("new.com");
+        status(domain("far.com"), lastCheck, true, 200);
+        status(domain("critical.com"), lastCheck, true, 3);
+        status(domain("broken.com"), lastCheck, false, null);
+
+        scheduler.loadDomains();
+
+        Instant checked = lastCheck.atZone(ZoneId.systemDefault()).toInstant();
+        assertEquals(4, scheduler.size());
+        assertEquals(clock.instant(), scheduler.nextCheck("new.com").orElseThrow());
+        assertEquals(checked.plus(Duration.ofHours(24)), scheduler.nextCheck("far.com").orElseThrow());
+        assertEquals(checked.plus(Duration.ofHours(1)), scheduler.nextCheck("critical.com").orElseThrow());
+        assertEquals(checked.plus(Duration.ofMinutes(15)), scheduler.nextCheck("broken.com").orElseThrow());
+    }
+
+    @Test
+    void dispatch_ShouldStartOnlyDueDomainsWithinRate() {
+        properties.getScheduler().setProbesPerSecond(2);
+        for (int i = 0; i < 3; i++) {
+            domain("domain-" + i + ".com");
+        }
+        status(domain("far.com"), LocalDateTime.now(clock), true, 200);
+        when(domainService.checkDomainsAsync(any())).thenReturn(new CompletableFuture<>());
+        scheduler.loadDomains();
+
+        assertEquals(2, scheduler.dispatch());
+        assertEquals(1, scheduler.dispatch());
+        assertEquals(0, scheduler.dispatch());
+
+        ArgumentCaptor<DomainCheckRequest> requests = ArgumentCaptor.forClass(DomainCheckRequest.class);
+        verify(domainService, times(2)).checkDomainsAsync(requests.capture());
+        assertFalse(requests.getAllValues().stream().anyMatch(request -> request.getDomains().contains("far.com")));
+    }
+
+    @Test
+    void dispatch_AfterResults_ShouldRescheduleAndBackOffFailures() {
+        domain("ok.com");
+        domain("broken.com");
+        when(domainService.checkDomainsAsync(any())).thenAnswer(invocation -> {
+            DomainCheckRequest request = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(request.getDomains().stream()
+                    .map(name -> name.equals("ok.com") ? response(name, true, 20) : response(name, false, null))
+                    .toList());
+        });
+        scheduler.loadDomains();
+
+        scheduler.dispatch();
+        assertEquals(clock.instant().plus(Duration.ofHours(4)), scheduler.nextCheck("ok.com").orElseThrow());
+        assertEquals(clock.instant().plus(Duration.ofMinutes(15)), scheduler.nextCheck("broken.com").orElseThrow());
+
+        clock.advance(Duration.ofMinutes(16));
+        assertEquals(1, scheduler.dispatch());
+        assertEquals(clock.instant().plus(Duration.ofMinutes(30)), scheduler.nextCheck("broken.com").orElseThrow());
+    }
+
+    @Test
+    void renewLeases_ShouldScheduleOnlyDomainsOfHeldPartitions() {
+        ScanPartitionLeases leases = mock(ScanPartitionLeases.class);
+        when(leases.partitions()).thenReturn(2);
+        scheduler = new RescanSchedulerImpl(properties, domainService, jdbcTemplate, leases, clock);
+        Domain first = domain("first.com");
+        Domain second = domain("second.com");
+        Domain even = first.getId() % 2 == 0 ? first : second;
+        Domain odd = even == first ? second : first;
+        CompletableFuture<List<DomainCheckResponse>> probe = new CompletableFuture<>();
+        when(domainService.checkDomainsAsync(any())).thenReturn(probe);
+
+        when(leases.renew()).thenReturn(Set.of(0));
+        scheduler.renewLeases();
+        assertEquals(1, scheduler.size());
+        assertTrue(scheduler.nextCheck(even.getDomainName()).isPresent());
+        assertEquals(1, scheduler.dispatch());
+
+        // The even domain is still being checked when its partition moves elsewhere
+        when(leases.renew()).thenReturn(Set.of(1));
+        scheduler.renewLeases();
+        assertEquals(1, scheduler.size());
+        assertTrue(scheduler.nextCheck(odd.getDomainName()).isPresent());
+
+        probe.complete(List.of(response(even.getDomainName(), true, 200)));
+        assertEquals(1, scheduler.size());
+        assertTrue(scheduler.nextCheck(even.getDomainName()).isEmpty());
+    }
+
+    private Domain domain(String name) {
+        Domain domain = new Domain();
+        domain.setDomainName(name);
+        return entityManager.persistAndFlush(domain);
+    }
+
+    private void status(Domain domain, LocalDateTime checkTime, boolean valid, Integer daysUntilExpiry) {
+        domainStatusRepository.upsertAll(List.of(new DomainStatus(domain.getId(), domain.getDomainName(), 1L, checkTime,
+                valid, daysUntilExpiry != null ? LocalDateTime.now(clock).plusDays(daysUntilExpiry).plusHours(1) : null,
+                null)));
+    }
+
+    private static DomainCheckResponse response(String domain, boolean valid, Integer daysUntilExpiry) {
+        return DomainCheckResponse.builder()
+                .domain(domain)
+                .isValid(valid)
+                .daysUntilExpiry(daysUntilExpiry)
+                .build();
+    }
+}
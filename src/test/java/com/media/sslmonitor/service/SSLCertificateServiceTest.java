@@ -1,25 +1,47 @@
 package com.media.sslmonitor.service;
 
+import com.media.sslmonitor.config.SslCheckProperties;
 import com.media.sslmonitor.dto.CertificateInfo;
+import com.media.sslmonitor.metrics.CheckMetrics;
+import com.media.sslmonitor.service.impl.HostResolverImpl;
 import com.media.sslmonitor.service.impl.SSLCertificateServiceImpl;
+import com.media.sslmonitor.support.TestTlsServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@ExtendWith(MockitoExtension.class)
 class SSLCertificateServiceTest {
 
     private static final String VALID_DOMAIN = "google.com";
     private static final String INVALID_DOMAIN = "this-domain-does-not-exist.com";
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+    private HostResolverImpl hostResolver;
     private SSLCertificateServiceImpl sslCertificateService;
 
+    @BeforeEach
+    void setUp() {
+        SslCheckProperties properties = new SslCheckProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        hostResolver = new HostResolverImpl(properties);
+        sslCertificateService = new SSLCertificateServiceImpl(properties, hostResolver, new CheckMetrics(meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hostResolver.destroy();
+    }
+
     @Test
     void checkCertificate_WithValidDomain_ShouldReturnValidCertificateInfo() {
         CertificateInfo result = sslCertificateService.checkCertificate(VALID_DOMAIN);
@@ -74,4 +96,23 @@ class SSLCertificateServiceTest {
         assertFalse(result.isValid());
         assertNotNull(result.getErrorMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void checkCertificate_WithTrustedLocalServer_ShouldTimeEveryStage() throws Exception {
+        SSLSocketFactory defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        try (TestTlsServer server = TestTlsServer.start()) {
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[]{server.trustManager()}, null);
+            HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
+
+            CertificateInfo result = sslCertificateService.checkCertificate(server.getDomain());
+
+            assertTrue(result.isValid(), result.getErrorMessage());
+            for (String stage : List.of("dns", "connect", "handshake", "parse")) {
+                assertEquals(1, meterRegistry.get(CheckMetrics.STAGE_TIMER).tag("stage", stage).timer().count(), stage);
+            }
+        } finally {
+            HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.media.sslmonitor.service;
+
+import com.media.sslmonitor.config.SslCheckProperties;
+import com.media.sslmonitor.service.impl.ScanPartitionLeasesImpl;
+import com.media.sslmonitor.support.MutableClock;
+import com.media.sslmonitor.support.PostgresModeDataJpaTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresModeDataJpaTest
+class ScanPartitionLeasesTest {
+
+    private static final Set<Integer> ALL = IntStream.range(0, 8).boxed().collect(Collectors.toSet());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final MutableClock clock = new MutableClock(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+    private SslCheckProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SslCheckProperties();
+        properties.getScheduler().setPartitions(8);
+        properties.getScheduler().setLeaseDuration(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void renew_WithSingleNode_ShouldHoldEveryPartition() {
+        ScanPartitionLeases node = leases("node-a");
+
+        assertEquals(ALL, node.renew());
+        clock.advance(Duration.ofSeconds(10));
+        assertEquals(ALL, node.renew());
+    }
+
+    @Test
+    void renew_WhenNodeJoins_ShouldSplitPartitionsEvenly() {
+        ScanPartitionLeases first = leases("node-a");
+        ScanPartitionLeases second = leases("node-b");
+        first.renew();
+
+        // The newcomer finds nothing free until the first node gives up its surplus
+        assertTrue(second.renew().isEmpty());
+        Set<Integer> firstHeld = first.renew();
+        Set<Integer> secondHeld = second.renew();
+
+        assertEquals(4, firstHeld.size());
+        assertEquals(4, secondHeld.size());
+        Set<Integer> union = new HashSet<>(firstHeld);
+        union.addAll(secondHeld);
+        assertEquals(ALL, union);
+    }
+
+    @Test
+    void renew_WhenNodeStopsRenewing_ShouldTakeOverItsPartitionsAfterLeaseExpires() {
+        ScanPartitionLeases first = leases("node-a");
+        ScanPartitionLeases second = leases("node-b");
+        first.renew();
+        second.renew();
+        first.renew();
+        second.renew();
+
+        assertEquals(4, first.renew().size());
+        expire("node-b");
+
+        assertEquals(ALL, first.renew());
+    }
+
+    @Test
+    void renew_WithNodeClockAhead_ShouldNotTakeLiveLeases() {
+        ScanPartitionLeases first = leases("node-a");
+        ScanPartitionLeases skewed = new ScanPartitionLeasesImpl(properties, jdbcTemplate,
+                new MutableClock(clock.instant().plus(Duration.ofHours(1))), "node-b");
+        first.renew();
+
+        // Expiry is judged by the database clock, so the first node's leases are still live to the skewed one
+        assertTrue(skewed.renew().isEmpty());
+        assertEquals(4, first.renew().size());
+        assertEquals(4, skewed.renew().size());
+    }
+
+    @Test
+    void release_ShouldLetOtherNodesTakePartitionsAtOnce() {
+        ScanPartitionLeases first = leases("node-a");
+        ScanPartitionLeases second = leases("node-b");
+        first.renew();
+        second.renew();
+
+        first.release();
+
+        assertEquals(ALL, second.renew());
+    }
+
+    // The database clock stands still inside the test transaction, so age the node's stamps instead
+    private void expire(String nodeId) {
+        jdbcTemplate.update("UPDATE scan_leases SET expires_at = expires_at - INTERVAL '1' HOUR WHERE owner = ?", nodeId);
+        jdbcTemplate.update("UPDATE scan_nodes SET expires_at = expires_at - INTERVAL '1' HOUR WHERE node_id = ?", nodeId);
+    }
+
+    private ScanPartitionLeases leases(String nodeId) {
+        return new ScanPartitionLeasesImpl(properties, jdbcTemplate, clock, nodeId);
+    }
+}
@@ -0,0 +1,105 @@
+package com.media.sslmonitor.support;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process TLS server with the self-signed {@code localhost} certificate from
+ * {@code tls/test-server.p12}, standing in for real hosts in tests.
+ */
+public class TestTlsServer implements AutoCloseable {
+
+    private static final String KEYSTORE = "/tls/test-server.p12";
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    private final KeyStore keyStore;
+    private final SSLServerSocket serverSocket;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private TestTlsServer() throws Exception {
+        keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = TestTlsServer.class.getResourceAsStream(KEYSTORE)) {
+            keyStore.load(in, PASSWORD);
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), null, null);
+
+        serverSocket = (SSLServerSocket) context.getServerSocketFactory()
+                .createServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "test-tls-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public static TestTlsServer start() throws Exception {
+        return new TestTlsServer();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public String getDomain() {
+        return "localhost:" + getPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public X509Certificate getCertificate() throws Exception {
+        return (X509Certificate) keyStore.getCertificate("localhost");
+    }
+
+    /**
+     * Trust manager that accepts the server's self-signed certificate.
+     */
+    public X509ExtendedTrustManager trustManager() throws Exception {
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init(keyStore);
+        return (X509ExtendedTrustManager) factory.getTrustManagers()[0];
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                SSLSocket socket = (SSLSocket) serverSocket.accept();
+                workers.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(SSLSocket socket) {
+        try (socket) {
+            connections.incrementAndGet();
+            socket.setTcpNoDelay(true);
+            socket.startHandshake();
+            socket.getInputStream().read();
+        } catch (IOException ignored) {
+            // clients hang up as soon as they have the certificate
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,55 @@
+package com.media.sslmonitor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DomainNameUtilsTest {
+
+    @Test
+    void normalize_ShouldStripSchemeAndPath() {
+        assertEquals("example.com:8443", DomainNameUtils.normalize("https://example.com:8443/login"));
+    }
+
+    @Test
+    void hostAndPort_ShouldHandleIpv6Literals() {
+        assertEquals("::1", DomainNameUtils.host("[::1]:8443"));
+        assertEquals(8443, DomainNameUtils.port("[::1]:8443"));
+        assertEquals(443, DomainNameUtils.port("example.com"));
+    }
+
+    @Test
+    void registrableDomain_ShouldKeepRegistrableLabels() {
+        assertEquals("example.com", DomainNameUtils.registrableDomain("cdn.api.Example.com"));
+        assertEquals("example.co.uk", DomainNameUtils.registrableDomain("www.example.co.uk"));
+        assertEquals("example.de", DomainNameUtils.registrableDomain("shop.example.de"));
+        assertEquals("localhost", DomainNameUtils.registrableDomain("localhost"));
+        assertEquals("10.0.0.1", DomainNameUtils.registrableDomain("10.0.0.1"));
+        assertEquals("::1", DomainNameUtils.registrableDomain("::1"));
+    }
+
+    @Test
+    void isValid_ShouldAcceptHostNamesAndRejectGarbage() {
+        assertTrue(DomainNameUtils.isValid("example.com"));
+        assertTrue(DomainNameUtils.isValid("_dmarc.mail-1.example.co.uk:8443"));
+        assertTrue(DomainNameUtils.isValid("[::1]:8443"));
+        assertFalse(DomainNameUtils.isValid(""));
+        assertFalse(DomainNameUtils.isValid("exa mple.com"));
+        assertFalse(DomainNameUtils.isValid("-example.com"));
+        assertFalse(DomainNameUtils.isValid("example..com"));
+        assertFalse(DomainNameUtils.isValid("a".repeat(64) + ".com"));
+    }
+
+    @Test
+    void coveredBy_ShouldMatchExactNamesAndSingleLabelWildcards() {
+        List<String> names = List.of("example.com", "*.Example.com");
+        assertTrue(DomainNameUtils.coveredBy("example.com", names));
+        assertTrue(DomainNameUtils.coveredBy("WWW.example.com", names));
+        assertFalse(DomainNameUtils.coveredBy("a.b.example.com", names));
+        assertFalse(DomainNameUtils.coveredBy("example.org", names));
+        assertFalse(DomainNameUtils.coveredBy("wwwexample.com", List.of("*.example.com")));
+        assertFalse(DomainNameUtils.coveredBy("example.com", null));
+    }
+}